@@ -7,8 +7,10 @@ import io.github.notsyncing.cowherd.annotations.Route
 import io.github.notsyncing.cowherd.annotations.httpmethods.HttpAnyMethod
 import io.github.notsyncing.cowherd.models.ActionContext
 import io.github.notsyncing.cowherd.models.Pair
+import io.github.notsyncing.cowherd.models.ParameterList
 import io.github.notsyncing.cowherd.models.UploadFileInfo
 import io.github.notsyncing.cowherd.service.CowherdService
+import io.github.notsyncing.cowherd.utils.CookieUtils
 import io.github.notsyncing.cowherd.utils.FutureUtils
 import io.vertx.core.http.HttpServerRequest
 import java.net.HttpCookie
@@ -64,17 +66,18 @@ open class CowherdApiGatewayService : CowherdService() {
             return FutureUtils.failed(IllegalArgumentException("This request to API gateway has invalid path: $actionPath"))
         }
 
-        val (pt, paramStr) = getEncodedParameters(__parameters__)
+        val parameters = ParameterList.from(__parameters__)
+        val (pt, paramStr) = getEncodedParameters(parameters)
 
         var serviceClassName = serviceClassNamePart
 
         if (serviceClassName.compareTo("new_session", true) == 0) {
             val session = newSession()
 
-            if (__parameters__.any { (it.key == "cookies") && (it.value == "true") }) {
+            if (parameters.getAll("cookies").contains("true")) {
                 val cookie = HttpCookie(ACCESS_TOKEN_NAME, session)
 
-                if (__parameters__.any { (it.key == "remember") && (it.value == "true") }) {
+                if (parameters.getAll("remember").contains("true")) {
                     cookie.maxAge = Long.MAX_VALUE
                 }
 
@@ -84,10 +87,10 @@ open class CowherdApiGatewayService : CowherdService() {
             return CompletableFuture.completedFuture(session)
         }
 
-        val namespace = __parameters__.firstOrNull { it.key == "namespace" }
+        val namespace = parameters.getFirst("namespace")
 
         if (namespace != null) {
-            serviceClassName = resolveNamespace(namespace.value, serviceClassName)
+            serviceClassName = resolveNamespace(namespace, serviceClassName)
         }
 
         val serviceMethodNamePartStart = serviceClassNamePartEnd + 1
@@ -150,10 +153,11 @@ open class CowherdApiGatewayService : CowherdService() {
         if (request?.headers()?.contains("Authorization") == true) {
             val authHeader = request.getHeader("Authorization")
             sessionIdentifier = authHeader.replace("Bearer ", "")
-        } else if (__parameters__.any { (it.key == ACCESS_TOKEN_NAME) || (it.key == ACCESS_TOKEN_NAME_2) }) {
-            sessionIdentifier = __parameters__.first { (it.key == ACCESS_TOKEN_NAME) || (it.key == ACCESS_TOKEN_NAME_2) }.value
-        } else if (__cookies__?.any { (it.name == ACCESS_TOKEN_NAME) || (it.name == ACCESS_TOKEN_NAME_2) } == true) {
-            sessionIdentifier = __cookies__.first { (it.name == ACCESS_TOKEN_NAME) || (it.name == ACCESS_TOKEN_NAME_2) }.value
+        } else if ((parameters.containsKey(ACCESS_TOKEN_NAME)) || (parameters.containsKey(ACCESS_TOKEN_NAME_2))) {
+            sessionIdentifier = parameters.getFirst(ACCESS_TOKEN_NAME) ?: parameters.getFirst(ACCESS_TOKEN_NAME_2)
+        } else {
+            sessionIdentifier = CookieUtils.getCookieValue(__cookies__, ACCESS_TOKEN_NAME)
+                    ?: CookieUtils.getCookieValue(__cookies__, ACCESS_TOKEN_NAME_2)
         }
 
         val o: Any?
@@ -197,11 +201,11 @@ open class CowherdApiGatewayService : CowherdService() {
         }
     }
 
-    private fun getEncodedParameters(parameters: List<Pair<String, String>>): kotlin.Pair<ParameterEncodeType, String> {
-        for (p in parameters) {
-            if (p.key == "json") {
-                return kotlin.Pair(ParameterEncodeType.Json, p.value)
-            }
+    private fun getEncodedParameters(parameters: ParameterList): kotlin.Pair<ParameterEncodeType, String> {
+        val json = parameters.getFirst("json")
+
+        if (json != null) {
+            return kotlin.Pair(ParameterEncodeType.Json, json)
         }
 
         return kotlin.Pair(ParameterEncodeType.Unknown, "")
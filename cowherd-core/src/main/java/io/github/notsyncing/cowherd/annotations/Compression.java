@@ -0,0 +1,19 @@
+package io.github.notsyncing.cowherd.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指示当前方法返回值的压缩级别，覆盖全局配置
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Compression
+{
+    /**
+     * 压缩级别，取值 1 ~ 9，0 表示不压缩当前方法的返回值
+     */
+    int level();
+}
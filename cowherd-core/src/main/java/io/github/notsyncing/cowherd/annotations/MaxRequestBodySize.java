@@ -0,0 +1,19 @@
+package io.github.notsyncing.cowherd.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指示当前方法允许的非表单请求体的最大长度，覆盖全局配置
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxRequestBodySize
+{
+    /**
+     * 请求体的最大长度，小于等于 0 表示不限制
+     */
+    long value();
+}
@@ -0,0 +1,70 @@
+package io.github.notsyncing.cowherd.commons;
+
+/**
+ * CSRF 令牌设置信息
+ */
+public class CSRFConfig
+{
+    private boolean stateless = false;
+    private String secret;
+    private long tokenTtl = 24 * 60 * 60;
+    private long replayBucketSize = 60;
+
+    /**
+     * 获取是否使用无状态的 CSRF 令牌
+     * 无状态令牌带有过期时间及 HMAC 签名，验证时无需在服务器上查找，因此可以在多个服务器节点之间通用
+     * @return 是否使用无状态的 CSRF 令牌
+     */
+    public boolean isStateless()
+    {
+        return stateless;
+    }
+
+    public void setStateless(boolean stateless)
+    {
+        this.stateless = stateless;
+    }
+
+    /**
+     * 获取用于签名无状态 CSRF 令牌的密钥，为空时每次启动随机生成，多个服务器节点之间需设置相同的密钥
+     * @return 签名密钥
+     */
+    public String getSecret()
+    {
+        return secret;
+    }
+
+    public void setSecret(String secret)
+    {
+        this.secret = secret;
+    }
+
+    /**
+     * 获取 CSRF 令牌的有效期，单位为秒
+     * @return CSRF 令牌的有效期
+     */
+    public long getTokenTtl()
+    {
+        return tokenTtl;
+    }
+
+    public void setTokenTtl(long tokenTtl)
+    {
+        this.tokenTtl = tokenTtl;
+    }
+
+    /**
+     * 获取记录已使用的无状态令牌时，每个时间段的长度，单位为秒
+     * 已使用的令牌按过期时间分段记录，整个时间段内的令牌都过期后，该时间段的记录将被一并丢弃
+     * @return 每个时间段的长度
+     */
+    public long getReplayBucketSize()
+    {
+        return replayBucketSize;
+    }
+
+    public void setReplayBucketSize(long replayBucketSize)
+    {
+        this.replayBucketSize = replayBucketSize;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.notsyncing.cowherd.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 响应压缩策略设置信息，仅在启用了 HTTP 压缩时生效
+ */
+public class CompressionConfig
+{
+    private int minSize = 1024;
+    private int level = 6;
+    private List<String> allowContentTypes = new ArrayList<>(Arrays.asList("text/*", "application/json",
+            "application/javascript", "application/x-javascript", "application/xml", "image/svg+xml"));
+    private List<String> denyContentTypes = new ArrayList<>(Arrays.asList("image/*", "video/*", "audio/*",
+            "font/woff", "font/woff2", "application/zip", "application/gzip", "application/x-gzip",
+            "application/pdf", "application/octet-stream"));
+    private long cacheSize = 16 * 1024 * 1024;
+
+    /**
+     * 获取需要压缩的响应的最小长度，短于此长度的响应不压缩
+     * @return 需要压缩的响应的最小长度
+     */
+    public int getMinSize()
+    {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize)
+    {
+        this.minSize = minSize;
+    }
+
+    /**
+     * 获取默认的压缩级别，取值 1 ~ 9，可以在服务方法上用 Compression 注解覆盖
+     * @return 默认的压缩级别
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    public void setLevel(int level)
+    {
+        this.level = level;
+    }
+
+    /**
+     * 获取允许压缩的内容类型，支持以 type/* 的形式匹配一类内容，为空表示除禁止压缩的内容类型之外都允许压缩
+     * @return 允许压缩的内容类型
+     */
+    public List<String> getAllowContentTypes()
+    {
+        return allowContentTypes;
+    }
+
+    public void setAllowContentTypes(List<String> allowContentTypes)
+    {
+        this.allowContentTypes = allowContentTypes;
+    }
+
+    /**
+     * 获取禁止压缩的内容类型，支持以 type/* 的形式匹配一类内容，精确匹配允许压缩的内容类型优先于此列表
+     * @return 禁止压缩的内容类型
+     */
+    public List<String> getDenyContentTypes()
+    {
+        return denyContentTypes;
+    }
+
+    public void setDenyContentTypes(List<String> denyContentTypes)
+    {
+        this.denyContentTypes = denyContentTypes;
+    }
+
+    /**
+     * 获取压缩结果缓存的最大总长度，带有 ETag 的服务方法返回值压缩后会以 ETag 为键缓存，小于等于 0 表示不缓存
+     * @return 压缩结果缓存的最大总长度
+     */
+    public long getCacheSize()
+    {
+        return cacheSize;
+    }
+
+    public void setCacheSize(long cacheSize)
+    {
+        this.cacheSize = cacheSize;
+    }
+}
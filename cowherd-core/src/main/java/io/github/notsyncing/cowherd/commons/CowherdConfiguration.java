@@ -35,6 +35,33 @@ public class CowherdConfiguration
     @ConfigField
     private static long maxUploadFileSize = 2 * 1024 * 1024;
 
+    @ConfigField
+    private static long maxRequestBodySize = 10 * 1024 * 1024;
+
+    @ConfigField
+    private static long requestBodyMemoryThreshold = 256 * 1024;
+
+    @ConfigField
+    private static int maxStreamBufferSize = 256 * 1024;
+
+    @ConfigField
+    private static long staticFileCacheSize = 32 * 1024 * 1024;
+
+    @ConfigField
+    private static long maxCachedStaticFileSize = 64 * 1024;
+
+    @ConfigField
+    private static int maxMissingStaticFileCount = 10000;
+
+    @ConfigField
+    private static boolean precompressStaticFiles = false;
+
+    @ConfigField
+    private static boolean bundleClasspathAssets = false;
+
+    @ConfigField
+    private static boolean fingerprintStaticFiles = false;
+
     @ConfigField
     private static Path uploadCacheDir;
 
@@ -50,6 +77,12 @@ public class CowherdConfiguration
     @ConfigField("websocket")
     private static WebsocketConfig websocketConfig;
 
+    @ConfigField("compression")
+    private static CompressionConfig compressionConfig = new CompressionConfig();
+
+    @ConfigField("csrf")
+    private static CSRFConfig csrfConfig = new CSRFConfig();
+
     @ConfigField
     private static Path logDir;
 
@@ -147,6 +180,42 @@ public class CowherdConfiguration
         CowherdConfiguration.enableCompression = enableCompression;
     }
 
+    /**
+     * 获取响应压缩策略的设置
+     * @return 响应压缩策略设置信息
+     */
+    public static CompressionConfig getCompressionConfig()
+    {
+        return compressionConfig;
+    }
+
+    /**
+     * 设置响应压缩策略
+     * @param compressionConfig 要设置的响应压缩策略信息
+     */
+    public static void setCompressionConfig(CompressionConfig compressionConfig)
+    {
+        CowherdConfiguration.compressionConfig = compressionConfig;
+    }
+
+    /**
+     * 获取 CSRF 令牌设置信息
+     * @return CSRF 令牌设置信息
+     */
+    public static CSRFConfig getCsrfConfig()
+    {
+        return csrfConfig;
+    }
+
+    /**
+     * 设置 CSRF 令牌的相关设置
+     * @param csrfConfig 要设置的 CSRF 令牌设置信息
+     */
+    public static void setCsrfConfig(CSRFConfig csrfConfig)
+    {
+        CowherdConfiguration.csrfConfig = csrfConfig;
+    }
+
     /**
      * 获取允许上传文件的最大长度
      * @return 允许上传文件的最大长度
@@ -165,6 +234,168 @@ public class CowherdConfiguration
         CowherdConfiguration.maxUploadFileSize = maxUploadFileSize;
     }
 
+    /**
+     * 获取非表单请求体的最大长度，小于等于 0 表示不限制
+     * @return 请求体的最大长度
+     */
+    public static long getMaxRequestBodySize()
+    {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * 设置非表单请求体的最大长度，小于等于 0 表示不限制
+     * @param maxRequestBodySize 请求体的最大长度
+     */
+    public static void setMaxRequestBodySize(long maxRequestBodySize)
+    {
+        CowherdConfiguration.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    /**
+     * 获取请求体在内存中缓存的最大长度，超过该长度的请求体将被写入临时文件
+     * @return 请求体在内存中缓存的最大长度
+     */
+    public static long getRequestBodyMemoryThreshold()
+    {
+        return requestBodyMemoryThreshold;
+    }
+
+    /**
+     * 设置请求体在内存中缓存的最大长度，超过该长度的请求体将被写入临时文件
+     * @param requestBodyMemoryThreshold 请求体在内存中缓存的最大长度
+     */
+    public static void setRequestBodyMemoryThreshold(long requestBodyMemoryThreshold)
+    {
+        CowherdConfiguration.requestBodyMemoryThreshold = requestBodyMemoryThreshold;
+    }
+
+    /**
+     * 获取向客户端发送输入流时，每次传输在内存中缓存的最大长度
+     * @return 每次传输在内存中缓存的最大长度
+     */
+    public static int getMaxStreamBufferSize()
+    {
+        return maxStreamBufferSize;
+    }
+
+    /**
+     * 设置向客户端发送输入流时，每次传输在内存中缓存的最大长度
+     * @param maxStreamBufferSize 每次传输在内存中缓存的最大长度
+     */
+    public static void setMaxStreamBufferSize(int maxStreamBufferSize)
+    {
+        CowherdConfiguration.maxStreamBufferSize = maxStreamBufferSize;
+    }
+
+    /**
+     * 获取静态文件缓存占用内存的最大大小，小于等于 0 表示不缓存静态文件
+     * @return 静态文件缓存的最大大小
+     */
+    public static long getStaticFileCacheSize()
+    {
+        return staticFileCacheSize;
+    }
+
+    /**
+     * 设置静态文件缓存占用内存的最大大小，小于等于 0 表示不缓存静态文件
+     * @param staticFileCacheSize 静态文件缓存的最大大小
+     */
+    public static void setStaticFileCacheSize(long staticFileCacheSize)
+    {
+        CowherdConfiguration.staticFileCacheSize = staticFileCacheSize;
+    }
+
+    /**
+     * 获取内容会被缓存在内存中的静态文件的最大长度
+     * @return 静态文件的最大长度
+     */
+    public static long getMaxCachedStaticFileSize()
+    {
+        return maxCachedStaticFileSize;
+    }
+
+    /**
+     * 设置内容会被缓存在内存中的静态文件的最大长度
+     * @param maxCachedStaticFileSize 静态文件的最大长度
+     */
+    public static void setMaxCachedStaticFileSize(long maxCachedStaticFileSize)
+    {
+        CowherdConfiguration.maxCachedStaticFileSize = maxCachedStaticFileSize;
+    }
+
+    /**
+     * 获取静态文件缓存中最多记录的不存在的文件数量，小于等于 0 表示不记录
+     * @return 最多记录的不存在的文件数量
+     */
+    public static int getMaxMissingStaticFileCount()
+    {
+        return maxMissingStaticFileCount;
+    }
+
+    /**
+     * 设置静态文件缓存中最多记录的不存在的文件数量，小于等于 0 表示不记录
+     * @param maxMissingStaticFileCount 最多记录的不存在的文件数量
+     */
+    public static void setMaxMissingStaticFileCount(int maxMissingStaticFileCount)
+    {
+        CowherdConfiguration.maxMissingStaticFileCount = maxMissingStaticFileCount;
+    }
+
+    /**
+     * 获取是否在启动时为上下文路径中的静态文件预先生成 .gz 文件
+     * @return 是否预先压缩静态文件
+     */
+    public static boolean isPrecompressStaticFiles()
+    {
+        return precompressStaticFiles;
+    }
+
+    /**
+     * 设置是否在启动时为上下文路径中的静态文件预先生成 .gz 文件
+     * @param precompressStaticFiles 是否预先压缩静态文件
+     */
+    public static void setPrecompressStaticFiles(boolean precompressStaticFiles)
+    {
+        CowherdConfiguration.precompressStaticFiles = precompressStaticFiles;
+    }
+
+    /**
+     * 获取是否在启动时将类路径上下文路径（$）中的所有文件读入内存
+     * @return 是否将类路径中的静态文件读入内存
+     */
+    public static boolean isBundleClasspathAssets()
+    {
+        return bundleClasspathAssets;
+    }
+
+    /**
+     * 设置是否在启动时将类路径上下文路径（$）中的所有文件读入内存，读入后这些文件的修改将不再生效
+     * @param bundleClasspathAssets 是否将类路径中的静态文件读入内存
+     */
+    public static void setBundleClasspathAssets(boolean bundleClasspathAssets)
+    {
+        CowherdConfiguration.bundleClasspathAssets = bundleClasspathAssets;
+    }
+
+    /**
+     * 获取是否在启动时为静态资源生成带内容哈希的路径
+     * @return 是否为静态资源生成指纹
+     */
+    public static boolean isFingerprintStaticFiles()
+    {
+        return fingerprintStaticFiles;
+    }
+
+    /**
+     * 设置是否在启动时为静态资源生成带内容哈希的路径，带哈希的路径将以永久缓存的方式发送
+     * @param fingerprintStaticFiles 是否为静态资源生成指纹
+     */
+    public static void setFingerprintStaticFiles(boolean fingerprintStaticFiles)
+    {
+        CowherdConfiguration.fingerprintStaticFiles = fingerprintStaticFiles;
+    }
+
     /**
      * 获取上传文件的临时存放路径
      * @return 上传文件的临时存放路径
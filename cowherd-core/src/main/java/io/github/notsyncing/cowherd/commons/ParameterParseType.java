@@ -2,5 +2,6 @@ package io.github.notsyncing.cowherd.commons;
 
 public enum ParameterParseType {
     Normal,
-    JSON
+    JSON,
+    JSONBody
 }
@@ -0,0 +1,21 @@
+package io.github.notsyncing.cowherd.exceptions;
+
+/**
+ * 请求体长度超过限额时发生的异常
+ */
+public class RequestBodyOversizeException extends Exception
+{
+    private long maxSize;
+
+    public RequestBodyOversizeException(long maxSize)
+    {
+        super("Request body is oversize, max size = " + maxSize);
+
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.notsyncing.cowherd.files;
+
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 静态资源指纹清单
+ * 在启动时计算上下文路径中静态资源的内容哈希，并为每个资源生成带哈希的路径，如 app.js 对应 app.3f2a9c1d.js。
+ * 带哈希的路径的内容永远不会改变，因此可以被客户端永久缓存。页面文件（.html）及预先压缩的文件不会生成指纹。
+ */
+public class AssetManifest
+{
+    private static final int HASH_LENGTH = 8;
+
+    private static CowherdLogger log = CowherdLogger.getInstance(AssetManifest.class);
+
+    private final Map<String, String> urls = new ConcurrentHashMap<>();
+    private final Map<String, String> paths = new ConcurrentHashMap<>();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+
+    /**
+     * 计算指定目录中所有静态资源的指纹，加入清单
+     * 已在清单中的资源不会被覆盖，因此应按上下文路径的优先顺序依次添加
+     * @param root 要计算的目录
+     */
+    public void addDirectory(Path root) throws IOException
+    {
+        List<Path> files;
+
+        try (Stream<Path> s = Files.walk(root)) {
+            files = s.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+
+            if ((urls.containsKey(path)) || (!isFingerprintable(path))) {
+                continue;
+            }
+
+            String etag = StaticFileCache.createETag(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+
+            try (InputStream in = Files.newInputStream(file)) {
+                add(path, hash(in), etag);
+            }
+        }
+    }
+
+    private static boolean isFingerprintable(String path)
+    {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+
+        return (name.lastIndexOf('.') > 0) && (!name.endsWith(".html")) && (!name.endsWith(".htm"))
+                && (!name.endsWith(".gz")) && (!name.endsWith(".br"));
+    }
+
+    private static String hash(InputStream in) throws IOException
+    {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        byte[] buf = new byte[8192];
+        int l;
+
+        while ((l = in.read(buf)) >= 0) {
+            digest.update(buf, 0, l);
+        }
+
+        StringBuilder builder = new StringBuilder(HASH_LENGTH);
+
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+
+            if (builder.length() >= HASH_LENGTH) {
+                break;
+            }
+        }
+
+        return builder.substring(0, HASH_LENGTH);
+    }
+
+    /**
+     * 生成带哈希的路径，哈希插入在最后一个扩展名之前
+     * @param path 资源路径
+     * @param hash 内容哈希
+     * @return 带哈希的路径
+     */
+    public static String fingerprint(String path, String hash)
+    {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+
+        if (dot <= slash + 1) {
+            return path + "." + hash;
+        }
+
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    /**
+     * 向清单中添加一个资源
+     * @param path 资源路径，相对于上下文路径，不以 / 开头
+     * @param hash 资源的内容哈希
+     * @param etag 计算哈希时资源的 ETag，用于判断资源在之后是否被修改
+     */
+    public void add(String path, String hash, String etag)
+    {
+        String url = fingerprint(path, hash);
+
+        urls.put(path, url);
+        paths.put(url, path);
+        etags.put(path, etag);
+
+        log.d("Asset " + path + " -> " + url);
+    }
+
+    /**
+     * 获取资源带哈希的路径，供页面及脚本引用
+     * @param path 资源路径，可以以 / 开头
+     * @return 带哈希的路径，若该资源没有指纹，则原样返回
+     */
+    public String getUrl(String path)
+    {
+        boolean absolute = path.startsWith("/");
+        String url = urls.get(absolute ? path.substring(1) : path);
+
+        if (url == null) {
+            return path;
+        }
+
+        return absolute ? "/" + url : url;
+    }
+
+    /**
+     * 将带哈希的路径还原为资源路径
+     * @param url 带哈希的路径，不以 / 开头
+     * @return 资源路径，若不是清单中带哈希的路径，则返回 null
+     */
+    public String resolve(String url)
+    {
+        return paths.get(url);
+    }
+
+    /**
+     * 判断资源在计算哈希后是否未被修改，即带哈希的路径是否仍然指向相同的内容
+     * @param path 资源路径
+     * @param etag 资源当前的 ETag
+     * @return 若未被修改，则返回 true
+     */
+    public boolean isCurrent(String path, String etag)
+    {
+        return etag.equals(etags.get(path));
+    }
+
+    /**
+     * 获取清单中所有资源路径与带哈希的路径的对应关系
+     * @return 资源路径与带哈希的路径的对应关系
+     */
+    public Map<String, String> getUrls()
+    {
+        return Collections.unmodifiableMap(urls);
+    }
+
+    /**
+     * 获取清单中的资源数量
+     * @return 资源数量
+     */
+    public int size()
+    {
+        return urls.size();
+    }
+}
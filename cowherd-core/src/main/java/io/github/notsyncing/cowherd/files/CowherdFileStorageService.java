@@ -16,6 +16,11 @@ public class CowherdFileStorageService extends CowherdService
         Path store = getFileStorage().getStoragePath(tag);
         Path p = store.resolve(path);
 
+        // 未完成的上传文件不允许访问
+        if (getFileStorage().isUploadingFile(tag, p)) {
+            return FileResponse.notFound();
+        }
+
         return new FileResponse(p);
     }
 }
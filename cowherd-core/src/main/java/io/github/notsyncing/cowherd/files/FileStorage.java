@@ -16,6 +16,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -32,7 +33,15 @@ import java.util.function.Predicate;
  */
 public class FileStorage
 {
+    /**
+     * 直接接收上传文件时，在存储目录中存放未完成的上传文件的目录名
+     */
+    public static final String UPLOADING_DIR_NAME = ".uploading";
+
     private Map<Enum, Path> storagePaths = new ConcurrentHashMap<>();
+    private Enum uploadStorageTag;
+    private Path uploadDirectory;
+    private Vertx vertx;
     private FileSystem fs;
     private CowherdLogger log = CowherdLogger.getInstance(this);
 
@@ -47,6 +56,7 @@ public class FileStorage
 
     protected void init(Vertx vertx) {
         try {
+            this.vertx = vertx;
             fs = vertx.fileSystem();
         } catch (Exception e) {
             log.e("Failed to create file storage", e);
@@ -85,6 +95,10 @@ public class FileStorage
         } else {
             log.i("Registered storage path " + path + " to tag " + tag);
         }
+
+        if (tag.equals(uploadStorageTag)) {
+            setUploadStorage(tag);
+        }
     }
 
     /**
@@ -97,8 +111,115 @@ public class FileStorage
         return storagePaths.get(tag);
     }
 
+    /**
+     * 设置直接接收上传文件的存储类别
+     * 设置后，上传的文件将直接写入该存储目录下的 {@link #UPLOADING_DIR_NAME} 目录中，而不是上传文件的临时存放路径，
+     * 之后存放至该存储类别时只需在同一文件系统内重命名，无需再复制文件内容
+     * @param tag 存储类别标识枚举，必须已注册，为 null 则恢复使用上传文件的临时存放路径
+     * @throws IOException
+     */
+    public synchronized void setUploadStorage(Enum tag) throws IOException
+    {
+        if (tag == null) {
+            uploadStorageTag = null;
+            uploadDirectory = null;
+            return;
+        }
+
+        Path store = storagePaths.get(tag);
+
+        if (store == null) {
+            throw new IOException("Storage tag " + tag + " not registered!");
+        }
+
+        Path dir = Files.createDirectories(store.resolve(UPLOADING_DIR_NAME));
+
+        uploadStorageTag = tag;
+        uploadDirectory = dir;
+
+        log.i("Uploads will be received into " + dir + " of tag " + tag);
+    }
+
+    /**
+     * 获取直接接收上传文件的存储类别
+     * @return 存储类别标识枚举，若未设置，则返回 null
+     */
+    public Enum getUploadStorage()
+    {
+        return uploadStorageTag;
+    }
+
+    /**
+     * 获取接收上传文件的目录
+     * @return 若设置了直接接收上传文件的存储类别，则返回该存储目录下的 {@link #UPLOADING_DIR_NAME} 目录，否则返回上传文件的临时存放路径
+     * @throws IOException
+     */
+    public Path getUploadDirectory() throws IOException
+    {
+        Path dir = uploadDirectory;
+        return dir != null ? dir : CowherdConfiguration.getUploadCacheDir();
+    }
+
+    /**
+     * 判断文件是否为存放在存储目录中的未完成的上传文件
+     * @param tag 存储类别标识枚举
+     * @param file 要判断的文件的完整路径
+     * @return 是否为未完成的上传文件
+     */
+    public boolean isUploadingFile(Enum tag, Path file)
+    {
+        Path store = storagePaths.get(tag);
+
+        if (store == null) {
+            return false;
+        }
+
+        return file.normalize().startsWith(store.resolve(UPLOADING_DIR_NAME).normalize());
+    }
+
+    /**
+     * 移动文件，目标文件已存在时失败而不覆盖
+     * 优先创建指向源文件的硬链接后删除源文件，硬链接的创建是原子的，目标已存在时必定失败；
+     * 文件系统不支持硬链接或源文件与目标位于不同的文件系统上时，复制文件内容后删除源文件，复制时同样以独占方式创建目标文件
+     */
+    private static void moveFileExclusively(Path from, Path to) throws IOException
+    {
+        try {
+            Files.createLink(to, from);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(from, to);
+        }
+
+        Files.delete(from);
+    }
+
+    private CompletableFuture<Void> moveFile(Path from, Path to)
+    {
+        CompletableFuture<Void> f = new CompletableFuture<>();
+
+        vertx.<Void>executeBlocking(h -> {
+            try {
+                moveFileExclusively(from, to);
+                h.complete();
+            } catch (Exception e) {
+                h.fail(e);
+            }
+        }, false, r -> {
+            if (r.succeeded()) {
+                f.complete(null);
+            } else {
+                f.completeExceptionally(r.cause());
+            }
+        });
+
+        return f;
+    }
+
     /**
      * 异步将文件存放至指定的存储类别中
+     * 若删除源文件，则优先以硬链接的方式移动文件，仅当无法创建硬链接时才复制文件内容，目标文件已存在时失败
      * @param file 要存放的文件
      * @param tag 存储类别标识枚举
      * @param newFileName 新文件名，若为 null，则按原文件名存储
@@ -136,19 +257,13 @@ public class FileStorage
 
         final Path finalTo = to;
 
+        if (!noRemoveOld) {
+            return moveFile(file, to).thenApply(r -> finalTo);
+        }
+
         fs.copy(file.toString(), to.toString(), r -> {
             if (r.succeeded()) {
-                if (noRemoveOld) {
-                    f.complete(store.relativize(finalTo));
-                } else {
-                    fs.delete(file.toString(), r2 -> {
-                        if (r2.succeeded()) {
-                            f.complete(finalTo);
-                        } else {
-                            f.completeExceptionally(r2.cause());
-                        }
-                    });
-                }
+                f.complete(store.relativize(finalTo));
             } else {
                 f.completeExceptionally(r.cause());
             }
@@ -0,0 +1,167 @@
+package io.github.notsyncing.cowherd.files;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 不可变的字符串完美哈希索引
+ * 以“哈希并位移”的方式构造：键先按一级哈希分入若干桶，再为每个桶寻找一个种子，使桶内所有键经二级哈希后落入互不冲突的槽中。
+ * 查找时只需计算两次哈希并比较一次键，没有任何探测或链表遍历。
+ */
+public class PerfectHashIndex
+{
+    private static final int MAX_SEED_ATTEMPTS = 1 << 16;
+
+    private final String[] keys;
+    private final int[] seeds;
+    private final int[] slots;
+
+    /**
+     * 为指定的键构造索引
+     * @param keys 要索引的键，不可重复，键在数组中的位置即为其索引值
+     */
+    public PerfectHashIndex(String[] keys)
+    {
+        this.keys = keys.clone();
+
+        if (new HashSet<>(Arrays.asList(keys)).size() != keys.length) {
+            throw new IllegalArgumentException("Keys of perfect hash index must be unique");
+        }
+
+        int tableSize = Math.max(1, keys.length + keys.length / 4);
+
+        while (true) {
+            int[] s = new int[tableSize];
+            int[] sd = new int[Math.max(1, keys.length / 4 + 1)];
+
+            if (tryBuild(sd, s)) {
+                this.seeds = sd;
+                this.slots = s;
+                break;
+            }
+
+            tableSize = tableSize * 2;
+        }
+    }
+
+    private boolean tryBuild(int[] seeds, int[] slots)
+    {
+        List<List<Integer>> buckets = new ArrayList<>(seeds.length);
+
+        for (int i = 0; i < seeds.length; i++) {
+            buckets.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            buckets.get(indexOf(hash(keys[i], 0), seeds.length)).add(i);
+        }
+
+        Integer[] order = new Integer[seeds.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        // 先处理较大的桶，此时空槽较多，容易找到合适的种子
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+        Arrays.fill(slots, -1);
+
+        int[] bucketSlots = new int[keys.length];
+
+        for (int b : order) {
+            List<Integer> bucket = buckets.get(b);
+
+            if (bucket.isEmpty()) {
+                break;
+            }
+
+            boolean found = false;
+
+            for (int seed = 1; seed < MAX_SEED_ATTEMPTS; seed++) {
+                int n = 0;
+
+                for (int k : bucket) {
+                    int slot = indexOf(hash(keys[k], seed), slots.length);
+
+                    if (slots[slot] >= 0) {
+                        break;
+                    }
+
+                    slots[slot] = k;
+                    bucketSlots[n++] = slot;
+                }
+
+                if (n == bucket.size()) {
+                    seeds[b] = seed;
+                    found = true;
+                    break;
+                }
+
+                for (int i = 0; i < n; i++) {
+                    slots[bucketSlots[i]] = -1;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 查找键的索引值
+     * @param key 要查找的键
+     * @return 键在构造时的数组中的位置，若不存在，则返回 -1
+     */
+    public int get(String key)
+    {
+        int seed = seeds[indexOf(hash(key, 0), seeds.length)];
+
+        if (seed == 0) {
+            return -1;
+        }
+
+        int index = slots[indexOf(hash(key, seed), slots.length)];
+
+        if ((index < 0) || (!keys[index].equals(key))) {
+            return -1;
+        }
+
+        return index;
+    }
+
+    /**
+     * 获取索引中键的数量
+     * @return 键的数量
+     */
+    public int size()
+    {
+        return keys.length;
+    }
+
+    private static int indexOf(int hash, int length)
+    {
+        return (int) ((hash & 0xffffffffL) % length);
+    }
+
+    private static int hash(String key, int seed)
+    {
+        int h = 0x811c9dc5 ^ (seed * 0x9e3779b9);
+
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+
+        return h;
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.notsyncing.cowherd.files;
+
+import io.github.notsyncing.cowherd.models.StaticFileInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 不可变的静态资源包
+ * 在启动时一次性将一个目录（通常是 jar 包中的 APP_ROOT）下的所有文件读入一块连续的堆外内存，
+ * 并以完美哈希索引其路径。每个文件的内容类型、ETag 等均已预先计算，发送文件时只需一次哈希查找和一次缓冲区切片。
+ */
+public class StaticAssetBundle
+{
+    private final Path root;
+    private final PerfectHashIndex index;
+    private final StaticFileInfo[] files;
+    private final long contentSize;
+
+    private StaticAssetBundle(Path root, PerfectHashIndex index, StaticFileInfo[] files, long contentSize)
+    {
+        this.root = root;
+        this.index = index;
+        this.files = files;
+        this.contentSize = contentSize;
+    }
+
+    /**
+     * 读取目录下的所有文件，生成资源包
+     * @param root 要读取的目录
+     * @param compress 是否为可压缩的文件生成 .gz 压缩版本，已存在 .gz 文件的不再生成
+     * @return 生成的资源包
+     */
+    public static StaticAssetBundle load(Path root, boolean compress) throws IOException
+    {
+        root = root.normalize();
+
+        List<Path> paths;
+
+        try (Stream<Path> s = Files.walk(root)) {
+            paths = s.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        Set<String> existingKeys = new HashSet<>();
+
+        for (Path p : paths) {
+            existingKeys.add(toKey(root, p));
+        }
+
+        List<String> keys = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        List<byte[]> contents = new ArrayList<>();
+        List<Long> lastModifiedTimes = new ArrayList<>();
+        long total = 0;
+
+        for (Path p : paths) {
+            String key = toKey(root, p);
+            byte[] data = Files.readAllBytes(p);
+            long lastModified = Files.getLastModifiedTime(p).toMillis();
+
+            keys.add(key);
+            files.add(p);
+            contents.add(data);
+            lastModifiedTimes.add(lastModified);
+            total += data.length;
+
+            if ((compress) && (data.length >= StaticFilePrecompressor.MIN_FILE_SIZE)
+                    && (StaticFilePrecompressor.isCompressible(p.getFileName().toString()))
+                    && (!existingKeys.contains(key + ".gz"))) {
+                byte[] compressed = StaticFilePrecompressor.gzip(data);
+
+                if (compressed.length < data.length) {
+                    keys.add(key + ".gz");
+                    files.add(p.resolveSibling(p.getFileName() + ".gz"));
+                    contents.add(compressed);
+                    lastModifiedTimes.add(lastModified);
+                    total += compressed.length;
+                }
+            }
+        }
+
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Static assets in " + root + " are too large (" + total + " bytes) to be bundled");
+        }
+
+        ByteBuffer bundle = ByteBuffer.allocateDirect((int) total);
+
+        for (byte[] data : contents) {
+            bundle.put(data);
+        }
+
+        bundle.flip();
+
+        ByteBuf bundleBuf = Unpooled.wrappedBuffer(bundle);
+        StaticFileInfo[] infos = new StaticFileInfo[keys.size()];
+        int offset = 0;
+
+        for (int i = 0; i < infos.length; i++) {
+            int length = contents.get(i).length;
+
+            infos[i] = StaticFileCache.createInfo(files.get(i), length, lastModifiedTimes.get(i),
+                    Buffer.buffer(bundleBuf.slice(offset, length)));
+
+            offset += length;
+        }
+
+        return new StaticAssetBundle(root, new PerfectHashIndex(keys.toArray(new String[0])), infos, total);
+    }
+
+    private static String toKey(Path root, Path file)
+    {
+        return root.relativize(file).toString();
+    }
+
+    /**
+     * 获取资源包中的文件
+     * @param file 文件路径，须位于资源包的根目录之下
+     * @return 文件的元数据及内容，若资源包中没有该文件，则返回 null
+     */
+    public StaticFileInfo get(Path file)
+    {
+        Path f = file.normalize();
+
+        if (!f.startsWith(root)) {
+            return null;
+        }
+
+        int i = index.get(toKey(root, f));
+
+        return i >= 0 ? files[i] : null;
+    }
+
+    /**
+     * 获取资源包的根目录
+     * @return 资源包的根目录
+     */
+    public Path getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * 获取资源包中的文件数量，包括生成的压缩版本
+     * @return 文件数量
+     */
+    public int size()
+    {
+        return files.length;
+    }
+
+    /**
+     * 获取资源包中所有文件内容的总长度
+     * @return 内容的总长度
+     */
+    public long getContentSize()
+    {
+        return contentSize;
+    }
+}
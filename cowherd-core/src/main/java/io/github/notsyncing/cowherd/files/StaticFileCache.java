@@ -0,0 +1,347 @@
+package io.github.notsyncing.cowherd.files;
+
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.models.StaticFileInfo;
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+import io.github.notsyncing.cowherd.utils.FileUtils;
+import io.github.notsyncing.cowherd.utils.StringUtils;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 静态文件缓存
+ * 按文件路径缓存静态文件的元数据，较小的文件同时将内容缓存在堆外内存中，缓存按占用的内存大小以 LRU 方式淘汰。
+ * 已缓存文件所在的目录会通过 WatchService 监视，文件被修改或删除时对应的缓存立即失效。
+ * 不存在的文件同样会被记录在一个按数量限制的 LRU 中，之后对这些路径的请求无需再访问文件系统，
+ * 其最近的已存在的上级目录会被监视，以便文件或其上级目录被创建时立即失效。
+ * 不在默认文件系统中的文件（如 jar 包中的文件）不会改变，因此无需监视。
+ */
+public class StaticFileCache
+{
+    private static CowherdLogger log = CowherdLogger.getInstance(StaticFileCache.class);
+
+    private final LinkedHashMap<Path, StaticFileInfo> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Path, Boolean> missingEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, WatchKey> watchedDirs = new HashMap<>();
+
+    private long totalWeight;
+    private long invalidations;
+    private WatchService watcher;
+
+    /**
+     * 获取文件的元数据，若缓存中没有，则从文件系统中读取并加入缓存
+     * @param file 文件路径
+     * @return 文件的元数据，若文件不存在或不是普通文件，则返回 null
+     */
+    public StaticFileInfo get(Path file) throws IOException
+    {
+        Path key = file.toAbsolutePath().normalize();
+        long maxWeight = CowherdConfiguration.getStaticFileCacheSize();
+        long generation;
+
+        synchronized (this) {
+            StaticFileInfo info = entries.get(key);
+
+            if (info != null) {
+                return info;
+            }
+
+            if (missingEntries.get(key) != null) {
+                return null;
+            }
+
+            generation = invalidations;
+        }
+
+        boolean cacheable = (maxWeight > 0) && (watch(key));
+        StaticFileInfo info = load(key, cacheable ? CowherdConfiguration.getMaxCachedStaticFileSize() : -1);
+
+        if ((info == null) && (cacheable)) {
+            addMissing(key, generation);
+        }
+
+        if ((info == null) || (!cacheable) || (info.getWeight() > maxWeight)) {
+            return info;
+        }
+
+        synchronized (this) {
+            // 读取期间文件可能已被修改，此时读取到的信息不可信，不加入缓存
+            if (generation != invalidations) {
+                return info;
+            }
+
+            StaticFileInfo old = entries.put(key, info);
+
+            if (old != null) {
+                totalWeight -= old.getWeight();
+            }
+
+            totalWeight += info.getWeight();
+
+            Iterator<StaticFileInfo> iterator = entries.values().iterator();
+
+            while ((totalWeight > maxWeight) && (iterator.hasNext())) {
+                totalWeight -= iterator.next().getWeight();
+                iterator.remove();
+            }
+        }
+
+        return info;
+    }
+
+    private synchronized void addMissing(Path key, long generation)
+    {
+        int maxCount = CowherdConfiguration.getMaxMissingStaticFileCount();
+
+        if ((maxCount <= 0) || (generation != invalidations)) {
+            return;
+        }
+
+        missingEntries.put(key, Boolean.TRUE);
+
+        Iterator<Path> iterator = missingEntries.keySet().iterator();
+
+        while ((missingEntries.size() > maxCount) && (iterator.hasNext())) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 使指定文件的缓存失效
+     * @param file 文件路径
+     */
+    public synchronized void invalidate(Path file)
+    {
+        invalidations++;
+
+        Path key = file.toAbsolutePath().normalize();
+        StaticFileInfo info = entries.remove(key);
+        missingEntries.remove(key);
+
+        if (info != null) {
+            totalWeight -= info.getWeight();
+        }
+    }
+
+    /**
+     * 使指定目录下所有文件的缓存失效
+     * @param dir 目录路径
+     */
+    public synchronized void invalidateDirectory(Path dir)
+    {
+        invalidations++;
+
+        Path key = dir.toAbsolutePath().normalize();
+        Iterator<Map.Entry<Path, StaticFileInfo>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Path, StaticFileInfo> e = iterator.next();
+
+            if (e.getKey().startsWith(key)) {
+                totalWeight -= e.getValue().getWeight();
+                iterator.remove();
+            }
+        }
+
+        missingEntries.keySet().removeIf(p -> p.startsWith(key));
+    }
+
+    /**
+     * 获取缓存中的文件数量
+     * @return 缓存中的文件数量
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * 获取缓存中已知不存在的文件数量
+     * @return 已知不存在的文件数量
+     */
+    public synchronized int getMissingCount()
+    {
+        return missingEntries.size();
+    }
+
+    /**
+     * 清空缓存，并停止监视文件
+     */
+    public void clear()
+    {
+        WatchService w;
+
+        synchronized (this) {
+            invalidations++;
+            entries.clear();
+            missingEntries.clear();
+            watchedDirs.clear();
+            totalWeight = 0;
+
+            w = watcher;
+            watcher = null;
+        }
+
+        if (w != null) {
+            try {
+                w.close();
+            } catch (IOException e) {
+                log.e("Failed to close static file watcher", e);
+            }
+        }
+    }
+
+    private static StaticFileInfo load(Path file, long maxContentSize) throws IOException
+    {
+        BasicFileAttributes attrs;
+
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        if (!attrs.isRegularFile()) {
+            return null;
+        }
+
+        long size = attrs.size();
+        Buffer content = null;
+
+        if (size <= maxContentSize) {
+            ByteBuffer data = ByteBuffer.allocateDirect((int) size);
+
+            try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+                while ((data.hasRemaining()) && (channel.read(data) >= 0)) {
+                    // 读满为止
+                }
+            }
+
+            data.flip();
+
+            if (data.remaining() == size) {
+                content = Buffer.buffer(Unpooled.wrappedBuffer(data));
+            }
+        }
+
+        return createInfo(file, size, attrs.lastModifiedTime().toMillis(), content);
+    }
+
+    static StaticFileInfo createInfo(Path file, long size, long lastModified, Buffer content) throws IOException
+    {
+        String lastModifiedString = StringUtils.dateToHttpDateString(new Date(lastModified));
+
+        return new StaticFileInfo(file, size, lastModified, FileUtils.getContentType(file), lastModifiedString,
+                createETag(size, lastModified), content);
+    }
+
+    static String createETag(long size, long lastModified)
+    {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * 监视文件所在的目录，若该目录不存在，则监视其最近的已存在的上级目录
+     * 必须在读取文件之前调用，以免遗漏读取期间发生的修改
+     * @return 若文件的修改可以被监视到，则返回 true
+     */
+    private synchronized boolean watch(Path file)
+    {
+        if (file.getFileSystem() != FileSystems.getDefault()) {
+            return true;
+        }
+
+        Path dir = file.getParent();
+
+        while (dir != null) {
+            if (watchedDirs.containsKey(dir)) {
+                return true;
+            }
+
+            try {
+                if (watcher == null) {
+                    watcher = FileSystems.getDefault().newWatchService();
+
+                    WatchService w = watcher;
+                    Thread watchThread = new Thread(() -> processEvents(w), "cowherd-static-file-watcher");
+                    watchThread.setDaemon(true);
+                    watchThread.start();
+                }
+
+                watchedDirs.put(dir, dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+                return true;
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                dir = dir.getParent();
+            } catch (IOException e) {
+                log.e("Failed to watch directory " + dir + ", files in it will not be cached", e);
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private synchronized void unwatch(Path dir)
+    {
+        Iterator<Map.Entry<Path, WatchKey>> iterator = watchedDirs.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Path, WatchKey> e = iterator.next();
+
+            if (e.getKey().startsWith(dir)) {
+                e.getValue().cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void processEvents(WatchService w)
+    {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = w.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = (Path) key.watchable();
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    invalidateDirectory(dir);
+                } else {
+                    Path child = dir.resolve((Path) event.context());
+
+                    // 被删除或移走的可能是已监视的子目录，之后在原位置新建的目录需要重新监视
+                    if (event.kind() == ENTRY_DELETE) {
+                        unwatch(child);
+                    }
+
+                    invalidateDirectory(child);
+                }
+            }
+
+            if (!key.reset()) {
+                synchronized (this) {
+                    if (watchedDirs.get(dir) == key) {
+                        watchedDirs.remove(dir);
+                    }
+                }
+
+                invalidateDirectory(dir);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.notsyncing.cowherd.files;
+
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态文件预压缩工具
+ * 为上下文路径中可压缩的文本文件预先生成 .gz 文件，以便直接发送压缩后的内容，无需在每次请求时压缩
+ */
+public class StaticFilePrecompressor
+{
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "html", "htm", "css", "js", "mjs", "json", "map", "svg", "xml", "txt", "csv", "ico", "wasm"));
+
+    static final long MIN_FILE_SIZE = 1024;
+
+    private static CowherdLogger log = CowherdLogger.getInstance(StaticFilePrecompressor.class);
+
+    /**
+     * 为指定的上下文路径中的文件生成 .gz 文件
+     * 已存在且不比原文件旧的 .gz 文件不会被重新生成，压缩后没有变小的文件不会生成 .gz 文件。
+     * 不在默认文件系统中的上下文路径（如 jar 包中的路径）将被跳过。
+     * @param contextRoots 上下文路径
+     * @return 生成的文件数量
+     */
+    public static int precompress(Path[] contextRoots)
+    {
+        int count = 0;
+
+        for (Path root : contextRoots) {
+            if ((root.getFileSystem() != FileSystems.getDefault()) || (!Files.isDirectory(root))) {
+                continue;
+            }
+
+            try {
+                count += precompress(root);
+            } catch (IOException e) {
+                log.e("Failed to precompress static files in " + root, e);
+            }
+        }
+
+        return count;
+    }
+
+    private static int precompress(Path root) throws IOException
+    {
+        int[] count = new int[1];
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                if ((attrs.isRegularFile()) && (attrs.size() >= MIN_FILE_SIZE)
+                        && (isCompressible(file.getFileName().toString()))) {
+                    try {
+                        if (compress(file, attrs)) {
+                            count[0]++;
+                        }
+                    } catch (IOException e) {
+                        log.e("Failed to precompress static file " + file, e);
+                    }
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return count[0];
+    }
+
+    static boolean isCompressible(String name)
+    {
+        int dot = name.lastIndexOf('.');
+
+        return (dot >= 0) && (COMPRESSIBLE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase()));
+    }
+
+    private static boolean compress(Path file, BasicFileAttributes attrs) throws IOException
+    {
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+
+        if ((Files.isRegularFile(target))
+                && (Files.getLastModifiedTime(target).compareTo(attrs.lastModifiedTime()) >= 0)) {
+            return false;
+        }
+
+        Path temp = file.resolveSibling("." + file.getFileName() + ".gz.tmp");
+
+        try {
+            try (OutputStream out = createGzipStream(Files.newOutputStream(temp))) {
+                Files.copy(file, out);
+            }
+
+            if (Files.size(temp) >= attrs.size()) {
+                return false;
+            }
+
+            // 以原子移动替换，避免请求读取到写了一半的文件
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.d("Precompressed static file " + file);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static OutputStream createGzipStream(OutputStream out) throws IOException
+    {
+        return new GZIPOutputStream(out)
+        {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        };
+    }
+
+    static byte[] gzip(byte[] data) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+
+        try (OutputStream gzip = createGzipStream(out)) {
+            gzip.write(data);
+        }
+
+        return out.toByteArray();
+    }
+}
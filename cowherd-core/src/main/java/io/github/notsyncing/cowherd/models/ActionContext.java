@@ -10,6 +10,7 @@ public class ActionContext
     private RouteInfo route;
     private ActionMethodInfo actionMethod;
     private ActionConfig config;
+    private RequestBody requestBody;
 
     public ActionContext()
     {
@@ -63,4 +64,18 @@ public class ActionContext
     {
         return config;
     }
+
+    /**
+     * 获取非表单请求的请求体
+     * @return 请求体，若请求没有请求体或为表单请求，则返回 null
+     */
+    public RequestBody getRequestBody()
+    {
+        return requestBody;
+    }
+
+    public void setRequestBody(RequestBody requestBody)
+    {
+        this.requestBody = requestBody;
+    }
 }
@@ -0,0 +1,139 @@
+package io.github.notsyncing.cowherd.models;
+
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 服务方法的调用器
+ * 在注册路由时将服务方法绑定为 MethodHandle，避免每次请求都经过 Method.invoke 的反射调用路径。
+ * 所有服务方法都经过同一个调用点，无论使用 MethodHandle、反射还是 LambdaMetafactory 生成的类，该调用点都是多态的，
+ * 目标无法被常量折叠或内联，因此保存在实例字段中的 MethodHandle 已足够，其开销与预热后的反射调用相当。
+ * 若方法无法被绑定，则回退为反射调用。
+ */
+public class ActionInvoker
+{
+    private static final MethodType invokerType = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final List<Class<?>> numericTypes = Arrays.asList(byte.class, short.class, int.class, long.class,
+            float.class, double.class);
+
+    private static CowherdLogger log = CowherdLogger.getInstance(ActionInvoker.class);
+
+    private final Method method;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle handle;
+
+    public ActionInvoker(Method method)
+    {
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.handle = bind(method);
+    }
+
+    private static MethodHandle bind(Method method)
+    {
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+
+            MethodHandle mh = MethodHandles.lookup().unreflect(method);
+
+            if (Modifier.isStatic(method.getModifiers())) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+
+            return mh.asSpreader(Object[].class, method.getParameterCount())
+                    .asType(invokerType);
+        } catch (Exception e) {
+            log.w("Failed to bind method handle for action " + method + ", will fall back to reflection", e);
+            return null;
+        }
+    }
+
+    public Method getMethod()
+    {
+        return method;
+    }
+
+    /**
+     * 判断值能否被 MethodHandle 转换为参数类型，基本类型允许与 Method.invoke 相同的拓宽转换
+     */
+    private static boolean isConvertible(Object value, Class<?> type)
+    {
+        if (!type.isPrimitive()) {
+            return (value == null) || (type.isInstance(value));
+        }
+
+        if (value == null) {
+            return false;
+        }
+
+        Class<?> from = MethodType.methodType(value.getClass()).unwrap().returnType();
+
+        if (from == type) {
+            return true;
+        }
+
+        if (from == char.class) {
+            return numericTypes.indexOf(type) >= numericTypes.indexOf(int.class);
+        }
+
+        int i = numericTypes.indexOf(from);
+        return (i >= 0) && (numericTypes.indexOf(type) > i);
+    }
+
+    /**
+     * 服务实例或参数的类型不符时，MethodHandle 在调用服务方法之前的类型转换中就会失败，
+     * 此时抛出与 Method.invoke 相同的异常，而不是将其作为服务方法抛出的异常包装
+     */
+    private void checkArguments(Object service, Object[] params)
+    {
+        if (!Modifier.isStatic(method.getModifiers())) {
+            if (service == null) {
+                throw new NullPointerException();
+            }
+
+            if (!method.getDeclaringClass().isInstance(service)) {
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+        }
+
+        for (int i = 0; i < params.length; i++) {
+            if (!isConvertible(params[i], parameterTypes[i])) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+    }
+
+    /**
+     * 调用服务方法
+     * @param service 服务实例，静态方法可为 null
+     * @param params 服务方法的参数
+     * @return 服务方法的返回值
+     * @throws InvocationTargetException 服务方法抛出的异常，与 Method.invoke 的行为相同
+     * @throws IllegalAccessException
+     */
+    public Object invoke(Object service, Object[] params) throws InvocationTargetException, IllegalAccessException
+    {
+        if ((handle == null) || (params == null) || (params.length != parameterTypes.length)) {
+            return method.invoke(service, params);
+        }
+
+        try {
+            return (Object)handle.invokeExact(service, params);
+        } catch (ClassCastException | NullPointerException e) {
+            checkArguments(service, params);
+            throw new InvocationTargetException(e);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
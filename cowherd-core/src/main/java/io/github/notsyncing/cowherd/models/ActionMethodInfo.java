@@ -8,6 +8,9 @@ import java.util.stream.Stream;
 public class ActionMethodInfo {
     private Method method;
     private List<ActionMethodParameterInfo> parameters;
+    private ActionPlan plan;
+    private ActionInvoker invoker;
+    private volatile ActionParameterBinder binder;
 
     public ActionMethodInfo(Method method) {
         this.method = method;
@@ -15,6 +18,9 @@ public class ActionMethodInfo {
         this.parameters = Stream.of(method.getParameters())
                 .map(ActionMethodParameterInfo::new)
                 .collect(Collectors.toList());
+
+        this.plan = new ActionPlan(method, parameters);
+        this.invoker = new ActionInvoker(method);
     }
 
     public Method getMethod() {
@@ -27,5 +33,33 @@ public class ActionMethodInfo {
 
     public void setParameters(List<ActionMethodParameterInfo> parameters) {
         this.parameters = parameters;
+        this.plan = new ActionPlan(method, parameters);
+        this.binder = null;
+    }
+
+    public ActionPlan getPlan() {
+        return plan;
+    }
+
+    public ActionInvoker getInvoker() {
+        return invoker;
+    }
+
+    public ActionParameterBinder getBinder() {
+        ActionParameterBinder b = binder;
+
+        // 服务类的所有公开方法（包括 Object 的方法）都会创建此对象，只有被调用的方法才需要创建参数绑定器
+        if (b == null) {
+            synchronized (this) {
+                b = binder;
+
+                if (b == null) {
+                    b = new ActionParameterBinder(method);
+                    binder = b;
+                }
+            }
+        }
+
+        return b;
     }
 }
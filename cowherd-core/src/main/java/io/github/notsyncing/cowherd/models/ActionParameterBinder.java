@@ -0,0 +1,433 @@
+package io.github.notsyncing.cowherd.models;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.JSONToken;
+import io.github.notsyncing.cowherd.commons.ParameterParseType;
+import io.github.notsyncing.cowherd.exceptions.ParameterProcessException;
+import io.github.notsyncing.cowherd.utils.CookieUtils;
+import io.github.notsyncing.cowherd.utils.RequestUtils;
+import io.github.notsyncing.cowherd.utils.TypeUtils;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.net.HttpCookie;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 服务方法的参数绑定器
+ * 在注册路由时根据方法参数预先计算好每个参数的名称、位置与转换方式，
+ * 处理请求时只需对请求参数进行一次遍历即可完成绑定，无需再进行反射
+ */
+public class ActionParameterBinder
+{
+    private enum SlotKind
+    {
+        Value,
+        Parameters,
+        Uploads,
+        Cookies,
+        Body,
+        JsonBody,
+        UploadFile,
+        UploadFileArray,
+        Context,
+        Request,
+        Response,
+        Cookie
+    }
+
+    private enum ConvertKind
+    {
+        Json,
+        Enum,
+        Array,
+        Scalar
+    }
+
+    private static class Slot
+    {
+        private int index;
+        private String name;
+        private Class<?> type;
+        private Type parameterizedType;
+        private SlotKind kind;
+        private ConvertKind convertKind;
+        private Function<String, Object> converter;
+        private Object[] enumConstants;
+    }
+
+    private final Method method;
+    private final Slot[] slots;
+    private final Map<String, Slot> slotsByName = new HashMap<>();
+    private final Slot[] arraySlots;
+    private final Slot jsonBodySlot;
+    private final boolean bodyRequired;
+
+    public ActionParameterBinder(Method method)
+    {
+        this.method = method;
+
+        Parameter[] pl = method.getParameters();
+        slots = new Slot[pl.length];
+
+        List<Slot> arrays = new ArrayList<>();
+        boolean needBody = false;
+        Slot jsonBody = null;
+
+        for (int i = 0; i < pl.length; i++) {
+            Parameter p = pl[i];
+            Slot slot = new Slot();
+            slot.index = i;
+            slot.name = RequestUtils.getParameterName(method, p, i);
+            slot.type = p.getType();
+            slot.parameterizedType = p.getParameterizedType();
+            slot.kind = resolveSlotKind(slot.name, slot.type);
+
+            io.github.notsyncing.cowherd.annotations.Parameter paramAnno = p.getAnnotation(io.github.notsyncing.cowherd.annotations.Parameter.class);
+
+            if ((slot.kind == SlotKind.Value) && (paramAnno != null)
+                    && (paramAnno.parseType() == ParameterParseType.JSONBody)) {
+                slot.kind = SlotKind.JsonBody;
+                jsonBody = slot;
+            }
+
+            if (slot.kind == SlotKind.Value) {
+                if ((paramAnno != null) && (paramAnno.parseType() == ParameterParseType.JSON)) {
+                    slot.convertKind = ConvertKind.Json;
+                } else if (slot.type.isEnum()) {
+                    slot.convertKind = ConvertKind.Enum;
+                    slot.enumConstants = slot.type.getEnumConstants();
+                } else if (slot.type.isArray()) {
+                    slot.convertKind = ConvertKind.Array;
+                } else {
+                    slot.convertKind = ConvertKind.Scalar;
+                    slot.converter = TypeUtils.stringConverterFor(slot.type);
+                }
+
+                slotsByName.put(slot.name, slot);
+            }
+
+            if ((slot.kind == SlotKind.Body) || (slot.kind == SlotKind.Parameters)) {
+                needBody = true;
+            }
+
+            slots[i] = slot;
+        }
+
+        bodyRequired = needBody;
+        jsonBodySlot = jsonBody;
+
+        for (Slot slot : slotsByName.values()) {
+            if (slot.convertKind == ConvertKind.Array) {
+                arrays.add(slot);
+            }
+        }
+
+        arraySlots = arrays.toArray(new Slot[0]);
+    }
+
+    /**
+     * 服务方法是否需要以字符串形式获取请求体，即是否声明了 __body__ 或 __parameters__ 参数
+     * @return 若需要，则返回 true
+     */
+    public boolean isBodyRequired()
+    {
+        return bodyRequired;
+    }
+
+    /**
+     * 服务方法是否需要从 JSON 请求体中反序列化参数
+     * @return 若需要，则返回 true
+     */
+    public boolean isJsonBodyBound()
+    {
+        return (jsonBodySlot != null) || (!slotsByName.isEmpty());
+    }
+
+    private static SlotKind resolveSlotKind(String name, Class<?> type)
+    {
+        switch (name) {
+            case "__parameters__":
+                return SlotKind.Parameters;
+            case "__uploads__":
+                return SlotKind.Uploads;
+            case "__cookies__":
+                return SlotKind.Cookies;
+            case "__body__":
+                return SlotKind.Body;
+        }
+
+        if (type == UploadFileInfo.class) {
+            return SlotKind.UploadFile;
+        } else if (type == UploadFileInfo[].class) {
+            return SlotKind.UploadFileArray;
+        } else if (type == ActionContext.class) {
+            return SlotKind.Context;
+        } else if (type == HttpServerRequest.class) {
+            return SlotKind.Request;
+        } else if (type == HttpServerResponse.class) {
+            return SlotKind.Response;
+        } else if (type == HttpCookie.class) {
+            return SlotKind.Cookie;
+        }
+
+        return SlotKind.Value;
+    }
+
+    private Object convert(Slot slot, String value)
+    {
+        switch (slot.convertKind) {
+            case Json:
+                return JSON.parseObject(value, slot.parameterizedType);
+            case Enum:
+                int e = Integer.parseInt(value);
+                return e < 0 ? null : slot.enumConstants[e];
+            default:
+                return slot.converter.apply(value);
+        }
+    }
+
+    /**
+     * 将请求参数绑定到服务方法的参数上
+     * @return 服务方法的参数，若服务方法没有参数则返回 null
+     */
+    public Object[] bind(ActionContext context, List<Pair<String, String>> params, List<HttpCookie> cookies,
+                         List<UploadFileInfo> uploads, Object... otherParameters) throws ParameterProcessException
+    {
+        if (slots.length <= 0) {
+            return null;
+        }
+
+        Object[] targetParams = new Object[slots.length];
+        JSONObject jsonParams = null;
+        String bodyParam = null;
+        List<Pair<String, String>> complexParamPairs = null;
+        List<String>[] arrayValues = null;
+
+        for (Pair<String, String> reqParam : params) {
+            String key = reqParam.getKey();
+
+            try {
+                if (key.equals("__json__")) {
+                    jsonParams = JSON.parseObject(reqParam.getValue());
+                } else if (key.equals("__body__")) {
+                    bodyParam = reqParam.getValue();
+                }
+
+                if ((key.indexOf('.') >= 0) || (key.indexOf('[') >= 0)) {
+                    if (complexParamPairs == null) {
+                        complexParamPairs = new ArrayList<>();
+                    }
+
+                    complexParamPairs.add(reqParam);
+                    continue;
+                }
+
+                Slot slot = slotsByName.get(key);
+
+                if (slot == null) {
+                    continue;
+                }
+
+                if (slot.convertKind == ConvertKind.Array) {
+                    if (arrayValues == null) {
+                        arrayValues = newArrayValues();
+                    }
+
+                    arrayValues[slot.index].add(reqParam.getValue());
+                    continue;
+                }
+
+                targetParams[slot.index] = convert(slot, reqParam.getValue());
+            } catch (Exception e) {
+                throw new ParameterProcessException("Error occured when processing parameter " + key +
+                        " (value " + reqParam.getValue() + ") of method " + method.getName(), e);
+            }
+        }
+
+        if (arrayValues != null) {
+            for (Slot slot : arraySlots) {
+                List<String> values = arrayValues[slot.index];
+
+                if (values.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    targetParams[slot.index] = TypeUtils.stringListToArrayType(slot.type.getComponentType(), values);
+                } catch (Exception e) {
+                    throw new ParameterProcessException("Error occured when processing parameter " + slot.name +
+                            " (value " + values + ") of method " + method.getName(), e);
+                }
+            }
+        }
+
+        for (Slot slot : slots) {
+            int i = slot.index;
+
+            switch (slot.kind) {
+                case Parameters:
+                    targetParams[i] = params;
+                    break;
+                case Uploads:
+                    targetParams[i] = uploads;
+                    break;
+                case Cookies:
+                    targetParams[i] = cookies;
+                    break;
+                case Body:
+                    targetParams[i] = bodyParam;
+                    break;
+                case JsonBody:
+                    break;
+                case UploadFile:
+                    targetParams[i] = findUpload(uploads, slot.name);
+                    break;
+                case UploadFileArray:
+                    targetParams[i] = uploads != null ? uploads.toArray(new UploadFileInfo[uploads.size()]) : null;
+                    break;
+                case Context:
+                    targetParams[i] = context;
+                    break;
+                case Request:
+                    targetParams[i] = context.getRequest();
+                    break;
+                case Response:
+                    targetParams[i] = context.getRequest().response();
+                    break;
+                case Cookie:
+                    targetParams[i] = CookieUtils.findCookie(cookies, slot.name);
+                    break;
+                default:
+                    if ((jsonParams != null) && (jsonParams.containsKey(slot.name))) {
+                        targetParams[i] = jsonParams.getObject(slot.name, slot.type);
+                    } else if (otherParameters != null) {
+                        for (Object op : otherParameters) {
+                            if ((op != null) && (slot.type.isAssignableFrom(op.getClass()))) {
+                                targetParams[i] = op;
+                                break;
+                            }
+                        }
+                    }
+                    break;
+            }
+        }
+
+        RequestBody body = context.getRequestBody();
+
+        if ((body != null) && (RequestUtils.isJsonRequest(context.getRequest()))) {
+            bindJsonBody(targetParams, body);
+        }
+
+        if (complexParamPairs != null) {
+            bindComplexParameters(targetParams, complexParamPairs);
+        }
+
+        return targetParams;
+    }
+
+    /**
+     * 从 JSON 请求体中直接反序列化参数，不经过中间的 JSONObject 与字符串
+     * 若有参数标记为 {@link ParameterParseType#JSONBody}，则整个请求体反序列化为该参数，
+     * 否则请求体应为一个对象，其中每个属性对应同名的参数
+     */
+    private void bindJsonBody(Object[] targetParams, RequestBody body) throws ParameterProcessException
+    {
+        if (!isJsonBodyBound()) {
+            return;
+        }
+
+        try (JSONReader reader = new JSONReader(new InputStreamReader(body.openStream(), StandardCharsets.UTF_8))) {
+            if (jsonBodySlot != null) {
+                targetParams[jsonBodySlot.index] = reader.readObject(jsonBodySlot.parameterizedType);
+                return;
+            }
+
+            if (reader.peek() != JSONToken.LBRACE) {
+                return;
+            }
+
+            reader.startObject();
+
+            while (reader.hasNext()) {
+                String key = reader.readString();
+                Slot slot = slotsByName.get(key);
+
+                if (slot == null) {
+                    reader.readObject();
+                    continue;
+                }
+
+                targetParams[slot.index] = reader.readObject(slot.parameterizedType);
+            }
+
+            reader.endObject();
+        } catch (Exception e) {
+            throw new ParameterProcessException("Error occured when processing JSON body of method " +
+                    method.getName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String>[] newArrayValues()
+    {
+        List<String>[] values = new List[slots.length];
+
+        for (Slot slot : arraySlots) {
+            values[slot.index] = new ArrayList<>();
+        }
+
+        return values;
+    }
+
+    private static UploadFileInfo findUpload(List<UploadFileInfo> uploads, String name)
+    {
+        if (uploads == null) {
+            return null;
+        }
+
+        for (UploadFileInfo u : uploads) {
+            if (u.getParameterName().equals(name)) {
+                return u;
+            }
+        }
+
+        return null;
+    }
+
+    private void bindComplexParameters(Object[] targetParams, List<Pair<String, String>> complexParamPairs)
+    {
+        JSONObject complexParams = new JSONObject();
+
+        RequestUtils.complexKeyToJsonObject(complexParams, complexParamPairs);
+
+        for (Slot slot : slots) {
+            int i = slot.index;
+
+            if (targetParams[i] != null) {
+                continue;
+            }
+
+            if (!complexParams.containsKey(slot.name)) {
+                continue;
+            }
+
+            Object o = complexParams.get(slot.name);
+
+            if ((o instanceof JSONArray) || (o instanceof JSONObject)) {
+                targetParams[i] = JSON.parseObject(o.toString(), slot.parameterizedType);
+            } else {
+                targetParams[i] = o;
+            }
+        }
+    }
+}
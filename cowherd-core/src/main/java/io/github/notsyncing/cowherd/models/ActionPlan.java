@@ -0,0 +1,267 @@
+package io.github.notsyncing.cowherd.models;
+
+import io.github.notsyncing.cowherd.annotations.Compression;
+import io.github.notsyncing.cowherd.annotations.ContentType;
+import io.github.notsyncing.cowherd.annotations.DisableCORS;
+import io.github.notsyncing.cowherd.annotations.GenerateCSRFToken;
+import io.github.notsyncing.cowherd.annotations.MaxRequestBodySize;
+import io.github.notsyncing.cowherd.annotations.ValidateCSRFToken;
+import io.github.notsyncing.cowherd.annotations.httpmethods.*;
+import io.github.notsyncing.cowherd.authentication.ActionAuthenticator;
+import io.github.notsyncing.cowherd.authentication.annotations.ServiceActionAuthenticator;
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+import io.github.notsyncing.cowherd.utils.StringUtils;
+import io.github.notsyncing.cowherd.validators.ParameterValidator;
+import io.github.notsyncing.cowherd.validators.annotations.ServiceActionParameterValidator;
+import io.vertx.core.http.HttpMethod;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务方法的执行计划
+ * 在注册路由时根据方法上的注解一次性生成，处理请求时只需读取其中的字段，无需再进行反射
+ */
+public class ActionPlan
+{
+    public static class AuthenticatorInfo
+    {
+        private final Annotation annotation;
+        private final Class<? extends ActionAuthenticator> authenticatorClass;
+
+        AuthenticatorInfo(Annotation annotation, Class<? extends ActionAuthenticator> authenticatorClass)
+        {
+            this.annotation = annotation;
+            this.authenticatorClass = authenticatorClass;
+        }
+
+        public Annotation getAnnotation()
+        {
+            return annotation;
+        }
+
+        public Class<? extends ActionAuthenticator> getAuthenticatorClass()
+        {
+            return authenticatorClass;
+        }
+    }
+
+    public static class ValidatorInfo
+    {
+        private final Annotation annotation;
+        private final ParameterValidator validator;
+
+        ValidatorInfo(Annotation annotation, ParameterValidator validator)
+        {
+            this.annotation = annotation;
+            this.validator = validator;
+        }
+
+        public Annotation getAnnotation()
+        {
+            return annotation;
+        }
+
+        public ParameterValidator getValidator()
+        {
+            return validator;
+        }
+    }
+
+    private static final int ALL_METHODS = ~0;
+
+    private static Map<Class<? extends ParameterValidator>, ParameterValidator> parameterValidators = new ConcurrentHashMap<>();
+    private static CowherdLogger log = CowherdLogger.getInstance(ActionPlan.class);
+
+    private final int allowedHttpMethods;
+    private final String contentType;
+    private final boolean validateCSRFToken;
+    private final boolean generateCSRFToken;
+    private final boolean corsEnabled;
+    private final Long maxRequestBodySize;
+    private final Integer compressionLevel;
+    private final AuthenticatorInfo[] authenticators;
+    private final ValidatorInfo[][] validators;
+    private final boolean hasValidators;
+    private final boolean[] primitiveParameters;
+
+    public ActionPlan(Method method, List<ActionMethodParameterInfo> parameters)
+    {
+        allowedHttpMethods = resolveAllowedHttpMethods(method);
+
+        ContentType contentTypeAnno = method.getAnnotation(ContentType.class);
+        contentType = ((contentTypeAnno == null) || (StringUtils.isEmpty(contentTypeAnno.value()))) ? null
+                : contentTypeAnno.value();
+
+        validateCSRFToken = method.isAnnotationPresent(ValidateCSRFToken.class);
+        generateCSRFToken = method.isAnnotationPresent(GenerateCSRFToken.class);
+        corsEnabled = !method.isAnnotationPresent(DisableCORS.class);
+
+        MaxRequestBodySize maxBodyAnno = method.getAnnotation(MaxRequestBodySize.class);
+        maxRequestBodySize = maxBodyAnno == null ? null : maxBodyAnno.value();
+
+        Compression compressionAnno = method.getAnnotation(Compression.class);
+        compressionLevel = compressionAnno == null ? null : compressionAnno.level();
+
+        List<AuthenticatorInfo> authList = new ArrayList<>();
+
+        for (Annotation a : method.getAnnotations()) {
+            ServiceActionAuthenticator authAnno = a.annotationType().getAnnotation(ServiceActionAuthenticator.class);
+
+            if (authAnno != null) {
+                authList.add(new AuthenticatorInfo(a, authAnno.value()));
+            }
+        }
+
+        authenticators = authList.toArray(new AuthenticatorInfo[0]);
+
+        int paramCount = parameters == null ? 0 : parameters.size();
+        boolean anyValidator = false;
+
+        validators = new ValidatorInfo[paramCount][];
+        primitiveParameters = new boolean[paramCount];
+
+        for (int i = 0; i < paramCount; i++) {
+            ActionMethodParameterInfo p = parameters.get(i);
+            List<ValidatorInfo> chain = new ArrayList<>();
+
+            if (p.getAnnotations() != null) {
+                for (Annotation a : p.getAnnotations()) {
+                    ServiceActionParameterValidator validatorAnno = a.annotationType()
+                            .getAnnotation(ServiceActionParameterValidator.class);
+
+                    if (validatorAnno == null) {
+                        continue;
+                    }
+
+                    chain.add(new ValidatorInfo(a, getParameterValidator(validatorAnno.value())));
+                }
+            }
+
+            validators[i] = chain.toArray(new ValidatorInfo[0]);
+            primitiveParameters[i] = (p.getParameter() != null) && (p.getParameter().getType().isPrimitive());
+            anyValidator |= (validators[i].length > 0) || (primitiveParameters[i]);
+        }
+
+        hasValidators = anyValidator;
+    }
+
+    private static ParameterValidator getParameterValidator(Class<? extends ParameterValidator> type)
+    {
+        return parameterValidators.computeIfAbsent(type, t -> {
+            try {
+                return t.newInstance();
+            } catch (Exception e) {
+                log.e("Failed to create parameter validator " + t, e);
+                return null;
+            }
+        });
+    }
+
+    private static int methodBit(HttpMethod method)
+    {
+        return 1 << method.ordinal();
+    }
+
+    private static int resolveAllowedHttpMethods(Method m)
+    {
+        if (m.isAnnotationPresent(HttpAnyMethod.class)) {
+            return ALL_METHODS;
+        }
+
+        int mask = 0;
+
+        if (m.isAnnotationPresent(HttpGet.class)) {
+            mask |= methodBit(HttpMethod.GET);
+        }
+
+        if (m.isAnnotationPresent(HttpPost.class)) {
+            mask |= methodBit(HttpMethod.POST);
+        }
+
+        if (m.isAnnotationPresent(HttpOptions.class)) {
+            mask |= methodBit(HttpMethod.OPTIONS);
+        }
+
+        if (m.isAnnotationPresent(HttpDelete.class)) {
+            mask |= methodBit(HttpMethod.DELETE);
+        }
+
+        if (m.isAnnotationPresent(HttpPut.class)) {
+            mask |= methodBit(HttpMethod.PUT);
+        }
+
+        if (m.isAnnotationPresent(HttpHead.class)) {
+            mask |= methodBit(HttpMethod.HEAD);
+        }
+
+        return mask;
+    }
+
+    public boolean isHttpMethodAllowed(HttpMethod method)
+    {
+        return (allowedHttpMethods & methodBit(method)) != 0;
+    }
+
+    public String getContentType()
+    {
+        return contentType;
+    }
+
+    public boolean isValidateCSRFToken()
+    {
+        return validateCSRFToken;
+    }
+
+    public boolean isGenerateCSRFToken()
+    {
+        return generateCSRFToken;
+    }
+
+    public boolean isCorsEnabled()
+    {
+        return corsEnabled;
+    }
+
+    /**
+     * 获取当前方法允许的请求体最大长度，若方法上未指定则返回 null，此时使用全局配置
+     * @return 请求体最大长度
+     */
+    public Long getMaxRequestBodySize()
+    {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * 获取当前方法返回值的压缩级别，若方法上未指定则返回 null，此时使用全局配置
+     * @return 压缩级别，0 表示不压缩
+     */
+    public Integer getCompressionLevel()
+    {
+        return compressionLevel;
+    }
+
+    public AuthenticatorInfo[] getAuthenticators()
+    {
+        return authenticators;
+    }
+
+    public ValidatorInfo[] getValidators(int parameterIndex)
+    {
+        return validators[parameterIndex];
+    }
+
+    public boolean isPrimitiveParameter(int parameterIndex)
+    {
+        return primitiveParameters[parameterIndex];
+    }
+
+    public boolean hasValidators()
+    {
+        return hasValidators;
+    }
+}
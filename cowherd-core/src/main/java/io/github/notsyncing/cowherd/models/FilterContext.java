@@ -11,7 +11,7 @@ public class FilterContext
     private Map<String, String> filterParameters;
     private HttpServerRequest request;
     private List<UploadFileInfo> requestUploads;
-    private List<Pair<String, String>> requestParameters;
+    private ParameterList requestParameters;
     private List<HttpCookie> requestCookies;
     private ActionResult result;
 
@@ -50,9 +50,18 @@ public class FilterContext
         return requestParameters;
     }
 
+    /**
+     * 获取按名称索引的请求参数，与 {@link #getRequestParameters()} 为同一实例
+     * @return 请求参数
+     */
+    public ParameterList getRequestParameterList()
+    {
+        return requestParameters;
+    }
+
     public void setRequestParameters(List<Pair<String, String>> requestParameters)
     {
-        this.requestParameters = requestParameters;
+        this.requestParameters = requestParameters == null ? null : ParameterList.from(requestParameters);
     }
 
     public List<HttpCookie> getRequestCookies()
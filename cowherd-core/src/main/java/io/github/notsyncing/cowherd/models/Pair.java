@@ -48,18 +48,43 @@ public class Pair<K, V>
         return getValue();
     }
 
+    private static ParameterList asParameterList(List<?> list, Object key)
+    {
+        return ((list instanceof ParameterList) && (key instanceof String)) ? (ParameterList) list : null;
+    }
+
     public static <K, V> boolean listContainsKey(List<Pair<K, V>> list, K key)
     {
+        ParameterList parameters = asParameterList(list, key);
+
+        if (parameters != null) {
+            return parameters.containsKey((String) key);
+        }
+
         return list.stream().anyMatch(p -> p.getKey().equals(key));
     }
 
+    @SuppressWarnings("unchecked")
     public static <K, V> V listGetValue(List<Pair<K, V>> list, K key)
     {
+        ParameterList parameters = asParameterList(list, key);
+
+        if (parameters != null) {
+            return (V) parameters.getFirst((String) key);
+        }
+
         return list.stream().filter(p -> p.getKey().equals(key)).map(Pair::getValue).findFirst().orElse(null);
     }
 
+    @SuppressWarnings("unchecked")
     public static <K, V> List<V> listGetValues(List<Pair<K, V>> list, K key)
     {
+        ParameterList parameters = asParameterList(list, key);
+
+        if (parameters != null) {
+            return (List<V>) parameters.getAll((String) key);
+        }
+
         return list.stream().filter(p -> p.getKey().equals(key)).map(Pair::getValue).collect(Collectors.toList());
     }
 
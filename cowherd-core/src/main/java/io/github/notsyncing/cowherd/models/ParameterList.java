@@ -0,0 +1,217 @@
+package io.github.notsyncing.cowherd.models;
+
+import java.util.*;
+
+/**
+ * 带索引的请求参数列表
+ * 按添加顺序保存参数，可以作为普通的列表使用，同时按参数名建立索引，按名称查找第一个值或所有值时无需遍历列表。
+ * 索引中保存的是参数对象本身，因此可以修改已添加参数的值，但不应修改其名称。
+ */
+public class ParameterList extends AbstractList<Pair<String, String>> implements RandomAccess
+{
+    private final ArrayList<Pair<String, String>> entries;
+    private final HashMap<String, Object> index = new HashMap<>();
+    private boolean indexValid = true;
+
+    public ParameterList()
+    {
+        entries = new ArrayList<>();
+    }
+
+    /**
+     * 实例化参数列表，并按顺序添加指定的参数
+     * @param parameters 要添加的参数
+     */
+    public ParameterList(Collection<? extends Pair<String, String>> parameters)
+    {
+        entries = new ArrayList<>(parameters.size());
+        addAll(parameters);
+    }
+
+    /**
+     * 将参数列表转换为带索引的参数列表
+     * @param parameters 参数列表
+     * @return 若参数列表本身即为带索引的参数列表，则原样返回，否则返回包含相同参数的新列表
+     */
+    public static ParameterList from(List<Pair<String, String>> parameters)
+    {
+        if (parameters instanceof ParameterList) {
+            return (ParameterList) parameters;
+        }
+
+        if (parameters == null) {
+            return new ParameterList();
+        }
+
+        return new ParameterList(parameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addToIndex(Pair<String, String> p)
+    {
+        Object o = index.get(p.getKey());
+
+        if (o == null) {
+            index.put(p.getKey(), p);
+        } else if (o instanceof Pair) {
+            List<Pair<String, String>> l = new ArrayList<>(2);
+            l.add((Pair<String, String>) o);
+            l.add(p);
+            index.put(p.getKey(), l);
+        } else {
+            ((List<Pair<String, String>>) o).add(p);
+        }
+    }
+
+    private Object lookup(String key)
+    {
+        if (!indexValid) {
+            index.clear();
+
+            for (Pair<String, String> p : entries) {
+                addToIndex(p);
+            }
+
+            indexValid = true;
+        }
+
+        return index.get(key);
+    }
+
+    @Override
+    public Pair<String, String> get(int i)
+    {
+        return entries.get(i);
+    }
+
+    @Override
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public void add(int i, Pair<String, String> p)
+    {
+        entries.add(i, p);
+        modCount++;
+
+        // 追加到末尾时只需更新索引，插入到中间时各值的顺序会改变，需要重建索引
+        if ((indexValid) && (i == entries.size() - 1)) {
+            addToIndex(p);
+        } else {
+            indexValid = false;
+        }
+    }
+
+    @Override
+    public Pair<String, String> set(int i, Pair<String, String> p)
+    {
+        Pair<String, String> old = entries.set(i, p);
+        indexValid = false;
+        return old;
+    }
+
+    @Override
+    public Pair<String, String> remove(int i)
+    {
+        Pair<String, String> old = entries.remove(i);
+        modCount++;
+        indexValid = false;
+        return old;
+    }
+
+    @Override
+    public void clear()
+    {
+        entries.clear();
+        index.clear();
+        modCount++;
+        indexValid = true;
+    }
+
+    /**
+     * 在末尾添加一个参数
+     * @param key 参数名
+     * @param value 参数值
+     */
+    public void add(String key, String value)
+    {
+        add(new Pair<>(key, value));
+    }
+
+    /**
+     * 判断是否存在指定名称的参数
+     * @param key 参数名
+     * @return 是否存在该参数
+     */
+    public boolean containsKey(String key)
+    {
+        return lookup(key) != null;
+    }
+
+    /**
+     * 获取指定名称的第一个参数值
+     * @param key 参数名
+     * @return 参数值，若不存在该参数，则返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public String getFirst(String key)
+    {
+        Object o = lookup(key);
+
+        if (o == null) {
+            return null;
+        } else if (o instanceof Pair) {
+            return ((Pair<String, String>) o).getValue();
+        } else {
+            return ((List<Pair<String, String>>) o).get(0).getValue();
+        }
+    }
+
+    /**
+     * 获取指定名称的最后一个参数值
+     * @param key 参数名
+     * @return 参数值，若不存在该参数，则返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public String getLast(String key)
+    {
+        Object o = lookup(key);
+
+        if (o == null) {
+            return null;
+        } else if (o instanceof Pair) {
+            return ((Pair<String, String>) o).getValue();
+        } else {
+            List<Pair<String, String>> l = (List<Pair<String, String>>) o;
+            return l.get(l.size() - 1).getValue();
+        }
+    }
+
+    /**
+     * 按添加顺序获取指定名称的所有参数值
+     * @param key 参数名
+     * @return 参数值列表，若不存在该参数，则返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getAll(String key)
+    {
+        Object o = lookup(key);
+
+        if (o == null) {
+            return Collections.emptyList();
+        } else if (o instanceof Pair) {
+            return Collections.singletonList(((Pair<String, String>) o).getValue());
+        } else {
+            List<Pair<String, String>> l = (List<Pair<String, String>>) o;
+            List<String> values = new ArrayList<>(l.size());
+
+            for (Pair<String, String> p : l) {
+                values.add(p.getValue());
+            }
+
+            return values;
+        }
+    }
+}
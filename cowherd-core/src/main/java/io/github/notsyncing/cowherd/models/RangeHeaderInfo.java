@@ -3,12 +3,28 @@ package io.github.notsyncing.cowherd.models;
 public class RangeHeaderInfo {
     private long start;
     private long end;
+    private boolean suffix;
 
     public RangeHeaderInfo(long start, long end) {
         this.start = start;
         this.end = end;
     }
 
+    /**
+     * 创建表示内容最后若干字节的后缀范围，如 bytes=-500
+     * @param length 后缀的长度
+     * @return 后缀范围
+     */
+    public static RangeHeaderInfo suffix(long length) {
+        RangeHeaderInfo info = new RangeHeaderInfo(-1, length);
+        info.suffix = true;
+        return info;
+    }
+
+    public boolean isSuffix() {
+        return suffix;
+    }
+
     public long getStart() {
         return start;
     }
@@ -24,4 +40,40 @@ public class RangeHeaderInfo {
     public void setEnd(long end) {
         this.end = end;
     }
+
+    /**
+     * 获取范围的长度，需先调用 {@link #resolve(long)}
+     * @return 范围的长度
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * 根据内容的总长度计算该范围实际的起止位置，超出内容末尾的结束位置会被截断
+     * @param length 内容的总长度
+     * @return 若该范围可以被满足，则返回 true
+     */
+    public boolean resolve(long length) {
+        if (suffix) {
+            if ((end <= 0) || (length <= 0)) {
+                return false;
+            }
+
+            start = Math.max(0, length - end);
+            end = length - 1;
+            suffix = false;
+            return true;
+        }
+
+        if ((start < 0) || (start >= length)) {
+            return false;
+        }
+
+        if ((end < 0) || (end >= length)) {
+            end = length - 1;
+        }
+
+        return end >= start;
+    }
 }
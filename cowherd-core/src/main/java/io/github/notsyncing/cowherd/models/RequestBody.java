@@ -0,0 +1,148 @@
+package io.github.notsyncing.cowherd.models;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 非表单请求的请求体
+ * 长度不超过内存阈值的请求体保存在内存中，否则保存在临时文件中
+ */
+public class RequestBody
+{
+    private Buffer buffer;
+    private File file;
+    private long length;
+    private String content;
+
+    public RequestBody(Buffer buffer)
+    {
+        this.buffer = buffer;
+        this.length = buffer.length();
+    }
+
+    public RequestBody(File file, long length)
+    {
+        this.file = file;
+        this.length = length;
+    }
+
+    /**
+     * 请求体是否保存在内存中
+     * @return 若保存在内存中，则返回 true，若保存在临时文件中，则返回 false
+     */
+    public boolean isInMemory()
+    {
+        return buffer != null;
+    }
+
+    /**
+     * 获取请求体的长度
+     * @return 请求体的长度
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * 获取保存在内存中的请求体
+     * @return 请求体，若请求体保存在临时文件中，则返回 null
+     */
+    public Buffer getBuffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * 获取保存请求体的临时文件
+     * @return 临时文件，若请求体保存在内存中，则返回 null
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * 打开读取请求体的输入流，不会复制请求体的内容
+     * @return 输入流，使用完毕后需要关闭
+     * @throws IOException
+     */
+    public InputStream openStream() throws IOException
+    {
+        if (buffer != null) {
+            return new ByteBufInputStream(buffer.getByteBuf());
+        } else {
+            return new FileInputStream(file);
+        }
+    }
+
+    /**
+     * 以字符串形式获取请求体，仅在第一次调用时进行转换
+     * 保存在临时文件中的请求体会被同步读取，在事件循环线程上应先调用 {@link #asStringAsync(Vertx)}
+     * @return 请求体字符串
+     * @throws IOException
+     */
+    public String asString() throws IOException
+    {
+        if (content == null) {
+            if (buffer != null) {
+                content = buffer.toString();
+            } else {
+                content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            }
+        }
+
+        return content;
+    }
+
+    /**
+     * 异步以字符串形式获取请求体，保存在临时文件中的请求体通过异步文件系统读取，不阻塞当前线程
+     * 完成后再调用 {@link #asString()} 将直接返回已转换的字符串
+     * @param vertx 用于读取临时文件的 Vertx 实例
+     * @return 包含请求体字符串的 CompletableFuture 对象
+     */
+    public CompletableFuture<String> asStringAsync(Vertx vertx)
+    {
+        if ((content != null) || (buffer != null)) {
+            try {
+                return CompletableFuture.completedFuture(asString());
+            } catch (IOException e) {
+                CompletableFuture<String> f = new CompletableFuture<>();
+                f.completeExceptionally(e);
+                return f;
+            }
+        }
+
+        CompletableFuture<String> f = new CompletableFuture<>();
+
+        vertx.fileSystem().readFile(file.getAbsolutePath(), r -> {
+            if (r.succeeded()) {
+                content = r.result().toString(StandardCharsets.UTF_8);
+                f.complete(content);
+            } else {
+                f.completeExceptionally(r.cause());
+            }
+        });
+
+        return f;
+    }
+
+    /**
+     * 删除保存请求体的临时文件
+     */
+    public void delete()
+    {
+        if (file != null) {
+            file.delete();
+        }
+    }
+}
@@ -7,16 +7,21 @@ import io.vertx.core.http.HttpServerResponse;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class RequestContext
 {
     private HttpMethod method;
     private String path;
     private MultiMap headers;
-    private List<Pair<String, String>> parameters = new ArrayList<>();
+    private ParameterList parameters = new ParameterList();
     private List<UploadFileInfo> uploads = new ArrayList<>();
     private HttpServerRequest request;
     private HttpServerResponse response;
+    private boolean bodyPaused;
+    private CompletableFuture<RequestContext> bodyFuture;
+    private RequestBody body;
+    private RequestCookies cookies;
 
     public HttpMethod getMethod()
     {
@@ -48,14 +53,18 @@ public class RequestContext
         this.headers = headers;
     }
 
-    public List<Pair<String, String>> getParameters()
+    /**
+     * 获取请求参数，包括查询字符串、表单及路由中的参数
+     * @return 带索引的请求参数列表
+     */
+    public ParameterList getParameters()
     {
         return parameters;
     }
 
     public void setParameters(List<Pair<String, String>> parameters)
     {
-        this.parameters = parameters;
+        this.parameters = ParameterList.from(parameters);
     }
 
     public List<UploadFileInfo> getUploads()
@@ -68,6 +77,19 @@ public class RequestContext
         this.uploads = uploads;
     }
 
+    /**
+     * 获取请求中的 Cookie，Cookie 头仅在第一次访问其内容时解析
+     * @return 请求 Cookie 的惰性视图
+     */
+    public RequestCookies getCookies()
+    {
+        if (cookies == null) {
+            cookies = new RequestCookies(request);
+        }
+
+        return cookies;
+    }
+
     public HttpServerRequest getRequest()
     {
         return request;
@@ -87,4 +109,34 @@ public class RequestContext
     {
         this.response = response;
     }
+
+    public boolean isBodyPaused()
+    {
+        return bodyPaused;
+    }
+
+    public void setBodyPaused(boolean bodyPaused)
+    {
+        this.bodyPaused = bodyPaused;
+    }
+
+    public CompletableFuture<RequestContext> getBodyFuture()
+    {
+        return bodyFuture;
+    }
+
+    public void setBodyFuture(CompletableFuture<RequestContext> bodyFuture)
+    {
+        this.bodyFuture = bodyFuture;
+    }
+
+    public RequestBody getBody()
+    {
+        return body;
+    }
+
+    public void setBody(RequestBody body)
+    {
+        this.body = body;
+    }
 }
@@ -0,0 +1,168 @@
+package io.github.notsyncing.cowherd.models;
+
+import io.github.notsyncing.cowherd.commons.AlternativeCookieHeaderConfig;
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.utils.CookieUtils;
+import io.github.notsyncing.cowherd.utils.StringUtils;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.net.HttpCookie;
+import java.util.*;
+
+/**
+ * 请求中 Cookie 的惰性视图
+ * 只有在第一次访问时才解析 Cookie 头（及配置的备用 Cookie 头），解析结果仅为按名称索引的名称和值，
+ * 只有在访问列表元素或按名称获取 Cookie 对象时，才会创建对应的 HttpCookie 对象。
+ * 同名的 Cookie 在列表中只保留第一个，备用 Cookie 头中的 Cookie 优先于 Cookie 头中的，
+ * 其余同名 Cookie 的值仍会保留，可以通过 {@link #getValues(String)} 获取。
+ */
+public class RequestCookies extends AbstractList<HttpCookie> implements RandomAccess
+{
+    private final HttpServerRequest request;
+
+    private List<String> names;
+    private List<String> values;
+    private Map<String, Integer> index;
+    private Map<String, List<String>> repeatedValues;
+    private HttpCookie[] cookies;
+
+    public RequestCookies(HttpServerRequest request)
+    {
+        this.request = request;
+    }
+
+    private synchronized void parse()
+    {
+        if (names != null) {
+            return;
+        }
+
+        List<String> nameList = new ArrayList<>();
+        List<String> valueList = new ArrayList<>();
+        Map<String, Integer> nameIndex = new HashMap<>();
+        Map<String, List<String>> repeated = new HashMap<>();
+
+        String cookieHeader = request.getHeader("Cookie");
+        String altCookieHeader = null;
+
+        AlternativeCookieHeaderConfig ch = CowherdConfiguration.getAlternativeCookieHeaders();
+
+        if (ch != null) {
+            if (((!StringUtils.isEmpty(ch.getOnlyOn()))
+                    || ("true".equals(request.getHeader(ch.getOnlyOn()))))
+                    && (!StringUtils.isEmpty(ch.getCookie()))) {
+                altCookieHeader = request.getHeader(ch.getCookie());
+            }
+        }
+
+        for (String header : new String[] { altCookieHeader, cookieHeader }) {
+            if (header == null) {
+                continue;
+            }
+
+            CookieUtils.parseServerCookies(header, (name, value) -> {
+                if (nameIndex.putIfAbsent(name, nameList.size()) == null) {
+                    nameList.add(name);
+                    valueList.add(value);
+                } else {
+                    repeated.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+                }
+            });
+        }
+
+        index = nameIndex;
+        repeatedValues = repeated;
+        values = valueList;
+        cookies = new HttpCookie[nameList.size()];
+        names = nameList;
+    }
+
+    private synchronized HttpCookie materialize(int i)
+    {
+        if (cookies[i] == null) {
+            cookies[i] = new HttpCookie(names.get(i), values.get(i));
+        }
+
+        return cookies[i];
+    }
+
+    @Override
+    public HttpCookie get(int i)
+    {
+        parse();
+        return materialize(i);
+    }
+
+    @Override
+    public int size()
+    {
+        parse();
+        return names.size();
+    }
+
+    /**
+     * 判断请求中是否存在指定名称的 Cookie
+     * @param name Cookie 名称
+     * @return 是否存在该 Cookie
+     */
+    public boolean containsName(String name)
+    {
+        parse();
+        return index.containsKey(name);
+    }
+
+    /**
+     * 获取指定名称的 Cookie 的值，不创建 Cookie 对象
+     * @param name Cookie 名称
+     * @return Cookie 的值，若不存在，则返回 null
+     */
+    public String getValue(String name)
+    {
+        parse();
+
+        Integer i = index.get(name);
+        return i != null ? values.get(i) : null;
+    }
+
+    /**
+     * 按出现顺序获取指定名称的所有 Cookie 的值
+     * 浏览器可能为不同的路径或域名发送多个同名 Cookie，需要逐个检查时使用此方法
+     * @param name Cookie 名称
+     * @return Cookie 的值列表，若不存在，则返回空列表
+     */
+    public List<String> getValues(String name)
+    {
+        parse();
+
+        Integer i = index.get(name);
+
+        if (i == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> repeated = repeatedValues.get(name);
+
+        if (repeated == null) {
+            return Collections.singletonList(values.get(i));
+        }
+
+        List<String> l = new ArrayList<>(repeated.size() + 1);
+        l.add(values.get(i));
+        l.addAll(repeated);
+
+        return l;
+    }
+
+    /**
+     * 获取指定名称的 Cookie
+     * @param name Cookie 名称
+     * @return Cookie 对象，若不存在，则返回 null
+     */
+    public HttpCookie getCookie(String name)
+    {
+        parse();
+
+        Integer i = index.get(name);
+        return i != null ? materialize(i) : null;
+    }
+}
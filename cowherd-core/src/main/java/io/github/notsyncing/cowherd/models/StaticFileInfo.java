@@ -0,0 +1,100 @@
+package io.github.notsyncing.cowherd.models;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.file.Path;
+
+/**
+ * 静态文件的元数据
+ * 包含发送文件时需要的所有信息，较小的文件还包含其内容，从而无需再访问文件系统
+ */
+public class StaticFileInfo
+{
+    private Path file;
+    private long size;
+    private long lastModified;
+    private String contentType;
+    private String lastModifiedString;
+    private String etag;
+    private Buffer content;
+
+    public StaticFileInfo(Path file, long size, long lastModified, String contentType, String lastModifiedString,
+                          String etag, Buffer content)
+    {
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.lastModifiedString = lastModifiedString;
+        this.etag = etag;
+        this.content = content;
+    }
+
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * 获取文件的长度
+     * @return 文件的长度
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * 获取文件的最后修改时间
+     * @return 文件的最后修改时间，单位为毫秒
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * 获取文件的内容类型
+     * @return 文件的内容类型，若无法判断，则返回 null
+     */
+    public String getContentType()
+    {
+        return contentType;
+    }
+
+    /**
+     * 获取已格式化为 HTTP 日期格式的最后修改时间，可直接用于 Last-Modified 头
+     * @return 格式化后的最后修改时间
+     */
+    public String getLastModifiedString()
+    {
+        return lastModifiedString;
+    }
+
+    /**
+     * 获取文件的强 ETag，已包含引号
+     * @return 文件的 ETag
+     */
+    public String getETag()
+    {
+        return etag;
+    }
+
+    /**
+     * 获取缓存在堆外内存中的文件内容
+     * @return 文件内容，若文件过大而未被缓存，则返回 null
+     */
+    public Buffer getContent()
+    {
+        return content;
+    }
+
+    /**
+     * 获取该信息在缓存中占用的大致内存大小
+     * @return 占用的内存大小
+     */
+    public long getWeight()
+    {
+        return 512 + (content != null ? content.length() : 0);
+    }
+}
@@ -7,4 +7,14 @@ import java.io.IOException;
 public interface ActionResponse
 {
     void writeToResponse(ActionContext context) throws IOException;
+
+    /**
+     * 在 {@link #writeToResponse(ActionContext)} 返回后，是否仍在异步发送内容
+     * 若是，则由响应对象在发送完成后自行结束响应，服务器不会再结束响应
+     * @return 若仍在异步发送内容，则返回 true
+     */
+    default boolean isStreaming()
+    {
+        return false;
+    }
 }
@@ -1,21 +1,30 @@
 package io.github.notsyncing.cowherd.responses;
 
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.models.ActionContext;
 import io.github.notsyncing.cowherd.models.RangeHeaderInfo;
+import io.github.notsyncing.cowherd.models.StaticFileInfo;
+import io.github.notsyncing.cowherd.server.CowherdLogger;
+import io.github.notsyncing.cowherd.server.ResponseCompressor;
 import io.github.notsyncing.cowherd.utils.FileUtils;
+import io.github.notsyncing.cowherd.utils.FutureUtils;
+import io.github.notsyncing.cowherd.utils.InputStreamPump;
 import io.github.notsyncing.cowherd.utils.RequestUtils;
+import io.github.notsyncing.cowherd.utils.ResponseUtils;
 import io.github.notsyncing.cowherd.utils.StringUtils;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URLConnection;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 服务方法返回的文件响应，用于向客户端发送一个文件
@@ -26,6 +35,17 @@ public class FileResponse implements ActionResponse
     private Path scope;
     private InputStream stream;
     private String contentType;
+    private boolean streaming;
+    private StaticFileInfo info;
+    private String contentEncoding;
+    private boolean notFound;
+
+    /**
+     * 合并后允许发送的最大范围数量
+     */
+    public static final int MAX_RANGES = 16;
+
+    private static CowherdLogger log = CowherdLogger.getInstance(FileResponse.class);
 
     public FileResponse()
     {
@@ -52,6 +72,30 @@ public class FileResponse implements ActionResponse
         this.scope = scope;
     }
 
+    /**
+     * 实例化文件响应对象，文件的元数据及内容直接取自静态文件缓存，不再访问文件系统
+     * @param info 要发送的文件的元数据
+     */
+    public FileResponse(StaticFileInfo info)
+    {
+        this.file = info.getFile();
+        this.info = info;
+    }
+
+    /**
+     * 实例化文件响应对象，用于发送预先压缩好的文件
+     * @param info 压缩后的文件的元数据
+     * @param contentType 原文件的内容类型
+     * @param contentEncoding 文件的内容编码，如 gzip
+     */
+    public FileResponse(StaticFileInfo info, String contentType, String contentEncoding)
+    {
+        this(info);
+
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+    }
+
     /**
      * 实例化文件响应对象
      * @param stream 要发送的输入流
@@ -63,6 +107,17 @@ public class FileResponse implements ActionResponse
         this.contentType = contentType;
     }
 
+    /**
+     * 创建一个以 404 结束响应的文件响应对象，用于请求的文件不存在或不允许访问的情况
+     * @return 文件响应对象
+     */
+    public static FileResponse notFound()
+    {
+        FileResponse resp = new FileResponse();
+        resp.notFound = true;
+        return resp;
+    }
+
     public Path getFile()
     {
         return file;
@@ -71,6 +126,108 @@ public class FileResponse implements ActionResponse
     public void setFile(Path file)
     {
         this.file = file;
+        this.info = null;
+    }
+
+    /**
+     * 根据请求的 Range 头计算要发送的范围，并将其转换为实际的起止位置
+     * 多个范围会被排序，重叠或相邻的范围会被合并，合并后超过 {@link #MAX_RANGES} 个时忽略 Range 头，发送完整内容
+     * 若没有可以满足的范围，则以 416 结束响应
+     * @return 要发送的范围，已排序且互不重叠，若需要发送完整内容或响应已结束，则返回 null
+     */
+    private List<RangeHeaderInfo> resolveRanges(HttpServerRequest req, HttpServerResponse resp, long length,
+                                                Date fileLastModified)
+    {
+        String rangeHeader = req.getHeader("Range");
+
+        if (StringUtils.isEmpty(rangeHeader)) {
+            return null;
+        }
+
+        String ifRangeHeader = req.getHeader("If-Range");
+
+        if ((!StringUtils.isEmpty(ifRangeHeader)) && (!isIfRangeMatched(ifRangeHeader, fileLastModified))) {
+            return null;
+        }
+
+        List<RangeHeaderInfo> ranges = new ArrayList<>();
+
+        for (RangeHeaderInfo range : RequestUtils.parseRangeHeader(rangeHeader)) {
+            if (range.resolve(length)) {
+                ranges.add(range);
+            }
+        }
+
+        if (ranges.isEmpty()) {
+            resp.putHeader("Content-Range", "bytes */" + length);
+            resp.setStatusCode(416).end();
+            return null;
+        }
+
+        if (ranges.size() > 1) {
+            ranges = coalesceRanges(ranges);
+        }
+
+        // 大量的小范围会使响应远大于文件本身，此时直接发送完整内容
+        if (ranges.size() > MAX_RANGES) {
+            return null;
+        }
+
+        return ranges;
+    }
+
+    /**
+     * 判断 If-Range 头中的条件是否与要发送的文件相符，不相符时应发送完整内容
+     * If-Range 头可以是实体标签或日期，实体标签只做强比较，弱标签永远不相符；无法解析的日期也视为不相符
+     */
+    private boolean isIfRangeMatched(String ifRangeHeader, Date fileLastModified)
+    {
+        if ((ifRangeHeader.startsWith("\"")) || (ifRangeHeader.startsWith("W/"))) {
+            return (info != null) && (ifRangeHeader.equals(info.getETag()));
+        }
+
+        if (fileLastModified == null) {
+            return true;
+        }
+
+        try {
+            Date ifRange = StringUtils.parseHttpDateString(ifRangeHeader);
+            return !fileLastModified.after(ifRange);
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 将范围按起始位置排序，并合并重叠或相邻的范围，使各部分可以从同一输入流中顺序读取
+     */
+    private static List<RangeHeaderInfo> coalesceRanges(List<RangeHeaderInfo> ranges)
+    {
+        List<RangeHeaderInfo> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(RangeHeaderInfo::getStart));
+
+        List<RangeHeaderInfo> result = new ArrayList<>();
+        RangeHeaderInfo last = null;
+
+        for (RangeHeaderInfo r : sorted) {
+            if ((last != null) && (r.getStart() <= last.getEnd() + 1)) {
+                last.setEnd(Math.max(last.getEnd(), r.getEnd()));
+            } else {
+                last = new RangeHeaderInfo(r.getStart(), r.getEnd());
+                result.add(last);
+            }
+        }
+
+        return result;
+    }
+
+    private static void setSingleRange(HttpServerRequest req, HttpServerResponse resp, RangeHeaderInfo range,
+                                       long length)
+    {
+        ResponseCompressor.disableHttpCompression(req);
+        resp.setStatusCode(206);
+        resp.putHeader("Content-Range", "bytes " + range.getStart() + "-" +
+                range.getEnd() + "/" + length);
     }
 
     @SuppressWarnings("unchecked")
@@ -80,37 +237,62 @@ public class FileResponse implements ActionResponse
         HttpServerResponse resp = req.response();
         Date fileLastModified = null;
 
+        if (notFound) {
+            resp.setStatusCode(404).end();
+            return;
+        }
+
         if (file != null) {
-            if (scope != null) {
-                String s = scope.relativize(file).toString();
+            if (info != null) {
+                if ((contentType == null) && (contentEncoding == null)) {
+                    contentType = info.getContentType();
+                }
+
+                fileLastModified = new Date(info.getLastModified());
+
+                resp.putHeader("Last-Modified", info.getLastModifiedString());
+                resp.putHeader("ETag", info.getETag());
+
+                // 已设置 Content-Encoding 的响应不会再被压缩
+                if (contentEncoding != null) {
+                    resp.putHeader("Content-Encoding", contentEncoding);
+                }
+            } else {
+                if (scope != null) {
+                    String s = scope.relativize(file).toString();
+
+                    if (s.contains("..")) {
+                        resp.setStatusCode(404).end();
+                        return;
+                    }
+                }
 
-                if (s.contains("..")) {
+                if (!Files.isRegularFile(file)) {
                     resp.setStatusCode(404).end();
                     return;
                 }
-            }
 
-            if (!Files.isRegularFile(file)) {
-                resp.setStatusCode(404).end();
-                return;
-            }
+                contentType = FileUtils.getContentType(file);
+                fileLastModified = new Date(Files.getLastModifiedTime(file).toMillis());
 
-            stream = Files.newInputStream(file);
-            contentType = Files.probeContentType(file);
+                resp.putHeader("Last-Modified",
+                        StringUtils.dateToHttpDateString(fileLastModified));
+            }
 
-            if (contentType == null) {
-                contentType = URLConnection.guessContentTypeFromName(file.getFileName().toString());
+            resp.putHeader("Accept-Range", "bytes");
 
-                if (contentType == null) {
-                    contentType = FileUtils.guessContentType(file.getFileName().toString());
-                }
+            if ((info != null) && (info.getContent() != null)) {
+                sendContent(req, resp, info.getContent(), fileLastModified);
+                return;
             }
 
-            fileLastModified = new Date(Files.getLastModifiedTime(file).toMillis());
+            // 位于默认文件系统中的文件直接交给内核发送，无需读入内存
+            if (file.getFileSystem() == FileSystems.getDefault()) {
+                sendFile(context, req, resp, fileLastModified);
+                return;
+            }
 
-            resp.putHeader("Last-Modified",
-                    StringUtils.dateToHttpDateString(fileLastModified));
-            resp.putHeader("Accept-Range", "bytes");
+            stream = Files.newInputStream(file);
         }
 
         if (stream != null) {
@@ -123,72 +305,258 @@ public class FileResponse implements ActionResponse
             try {
                 long length = stream.available();
                 long start = 0;
-                boolean shouldSendPartial = true;
-                List<RangeHeaderInfo> ranges = Collections.emptyList();
-
-                String rangeHeader = req.getHeader("Range");
 
-                if (!StringUtils.isEmpty(rangeHeader)) {
-                    ranges = RequestUtils.parseRangeHeader(rangeHeader);
+                ResponseCompressor.applyPolicy(req, contentType, length);
 
-                    if (fileLastModified != null) {
-                        String ifRangeHeader = req.getHeader("If-Range");
+                List<RangeHeaderInfo> ranges = resolveRanges(req, resp, length, fileLastModified);
 
-                        if (!StringUtils.isEmpty(ifRangeHeader)) {
-                            Date ifRange = StringUtils.parseHttpDateString(ifRangeHeader);
-
-                            if (fileLastModified.after(ifRange)) {
-                                shouldSendPartial = false;
-                            }
-                        }
-                    }
-                } else {
-                    shouldSendPartial = false;
+                if (resp.ended()) {
+                    return;
                 }
 
-                if (shouldSendPartial) {
-                    if (ranges.size() <= 0) {
-                        resp.setStatusCode(416).end();
-                        return;
-                    }
-
-                    // TODO: Support multiple ranges!
-                    if (ranges.size() > 1) {
-                        resp.setStatusCode(416).end();
-                        return;
-                    }
+                if ((ranges != null) && (ranges.size() > 1) && (context.getServer() != null)) {
+                    sendMultipartRanges(context.getServer().getVertx(), req, resp, ranges, length);
+                    return;
+                }
 
+                if ((ranges != null) && (ranges.size() == 1)) {
                     RangeHeaderInfo range = ranges.get(0);
-
-                    if (range.getStart() < 0) {
-                        resp.setStatusCode(416).end();
-                        return;
-                    }
-
-                    if (range.getEnd() < 0) {
-                        range.setEnd(length - 1);
-                    } else if (range.getEnd() > length) {
-                        resp.setStatusCode(416).end();
-                        return;
-                    }
-
-                    resp.setStatusCode(206);
-                    resp.putHeader("Content-Range", "bytes " + range.getStart() + "-" +
-                            range.getEnd() + "/" + length);
+                    setSingleRange(req, resp, range, length);
 
                     start = range.getStart();
-                    length = range.getEnd() - range.getStart() + 1;
+                    length = range.getLength();
                 }
 
                 resp.putHeader("Content-Length", String.valueOf(length));
+
+                if (context.getServer() != null) {
+                    pumpStream(context.getServer().getVertx(), resp, start, length);
+                    return;
+                }
+
                 FileUtils.pumpInputStreamToWriteStream(stream, start, length, resp);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             } finally {
-                stream.close();
+                if (!streaming) {
+                    stream.close();
+                }
             }
         } else {
             throw new IOException("Invalid file response!");
         }
     }
-}
\ No newline at end of file
+
+    private static void closeStream(Vertx vertx, InputStream input)
+    {
+        vertx.executeBlocking(f -> {
+            try {
+                input.close();
+            } catch (IOException e) {
+                log.e("Failed to close stream of file response", e);
+            }
+
+            f.complete();
+        }, false, null);
+    }
+
+    private void finishStreaming(HttpServerResponse resp, Throwable ex, Buffer trailer)
+    {
+        if (ex != null) {
+            log.e("An exception was thrown when sending stream to client: ", ex);
+
+            if (!resp.closed()) {
+                resp.close();
+            }
+        } else if (!resp.ended()) {
+            if (trailer != null) {
+                resp.end(trailer);
+            } else {
+                resp.end();
+            }
+        }
+    }
+
+    private void pumpStream(Vertx vertx, HttpServerResponse resp, long start, long length)
+    {
+        InputStream input = stream;
+        InputStreamPump pump = new InputStreamPump(vertx, input, start, length, resp,
+                CowherdConfiguration.getMaxStreamBufferSize());
+
+        resp.closeHandler(v -> pump.cancel());
+        streaming = true;
+
+        pump.start().whenComplete((l, ex) -> {
+            closeStream(vertx, input);
+            finishStreaming(resp, ex, null);
+        });
+    }
+
+    private List<Buffer> createPartHeaders(String boundary, List<RangeHeaderInfo> ranges, long length)
+    {
+        List<Buffer> partHeaders = new ArrayList<>(ranges.size());
+
+        for (RangeHeaderInfo r : ranges) {
+            partHeaders.add(Buffer.buffer("\r\n--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: bytes " + r.getStart() + "-" + r.getEnd() + "/" + length + "\r\n\r\n"));
+        }
+
+        return partHeaders;
+    }
+
+    /**
+     * 发送已缓存在内存中的文件内容，各范围直接引用缓存的内容，不再复制
+     */
+    private void sendContent(HttpServerRequest req, HttpServerResponse resp, Buffer content, Date fileLastModified)
+    {
+        if (contentType == null) {
+            contentType = "text/plain";
+        }
+
+        resp.putHeader("Content-Type", contentType);
+        ResponseCompressor.applyPolicy(req, contentType, content.length());
+
+        List<RangeHeaderInfo> ranges = resolveRanges(req, resp, content.length(), fileLastModified);
+
+        if (resp.ended()) {
+            return;
+        }
+
+        if (ranges == null) {
+            ResponseUtils.endWithBuffer(resp, content);
+        } else if (ranges.size() == 1) {
+            RangeHeaderInfo range = ranges.get(0);
+            setSingleRange(req, resp, range, content.length());
+
+            ResponseUtils.endWithBuffer(resp, content.slice((int) range.getStart(), (int) range.getEnd() + 1));
+        } else {
+            String boundary = UUID.randomUUID().toString().replace("-", "");
+            List<Buffer> partHeaders = createPartHeaders(boundary, ranges, content.length());
+            Buffer trailer = Buffer.buffer("\r\n--" + boundary + "--\r\n");
+            long contentLength = trailer.length();
+
+            for (int i = 0; i < ranges.size(); i++) {
+                contentLength += partHeaders.get(i).length() + ranges.get(i).getLength();
+            }
+
+            resp.setStatusCode(206);
+            resp.putHeader("Content-Type", "multipart/byteranges; boundary=" + boundary);
+            resp.putHeader("Content-Length", String.valueOf(contentLength));
+            ResponseCompressor.disableHttpCompression(req);
+
+            // 各部分依次写出缓存内容的切片，不再拼接到一个新的缓冲区中
+            for (int i = 0; i < ranges.size(); i++) {
+                RangeHeaderInfo r = ranges.get(i);
+
+                resp.write(partHeaders.get(i));
+                resp.write(content.slice((int) r.getStart(), (int) r.getEnd() + 1));
+            }
+
+            resp.end(trailer);
+        }
+    }
+
+    /**
+     * 以 multipart/byteranges 格式发送多个范围，各部分从输入流中顺序读取，范围须已排序且互不重叠
+     */
+    private void sendMultipartRanges(Vertx vertx, HttpServerRequest req, HttpServerResponse resp,
+                                     List<RangeHeaderInfo> ranges, long length)
+    {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<Buffer> partHeaders = createPartHeaders(boundary, ranges, length);
+        Buffer trailer = Buffer.buffer("\r\n--" + boundary + "--\r\n");
+        long contentLength = trailer.length();
+
+        for (int i = 0; i < ranges.size(); i++) {
+            contentLength += partHeaders.get(i).length() + ranges.get(i).getLength();
+        }
+
+        resp.setStatusCode(206);
+        resp.putHeader("Content-Type", "multipart/byteranges; boundary=" + boundary);
+        resp.putHeader("Content-Length", String.valueOf(contentLength));
+        ResponseCompressor.disableHttpCompression(req);
+
+        InputStreamPump[] currentPump = new InputStreamPump[1];
+        boolean[] cancelled = new boolean[1];
+
+        resp.closeHandler(v -> {
+            cancelled[0] = true;
+
+            if (currentPump[0] != null) {
+                currentPump[0].cancel();
+            }
+        });
+
+        streaming = true;
+
+        CompletableFuture<Long> chain = CompletableFuture.completedFuture(0L);
+
+        for (int i = 0; i < ranges.size(); i++) {
+            RangeHeaderInfo r = ranges.get(i);
+            Buffer header = partHeaders.get(i);
+
+            chain = chain.thenCompose(position -> {
+                if (cancelled[0]) {
+                    return FutureUtils.failed(new IOException("Stream transfer was cancelled"));
+                }
+
+                resp.write(header);
+
+                currentPump[0] = new InputStreamPump(vertx, stream, r.getStart() - position, r.getLength(), resp,
+                        CowherdConfiguration.getMaxStreamBufferSize());
+
+                return currentPump[0].start().thenApply(l -> r.getEnd() + 1);
+            });
+        }
+
+        chain.whenComplete((l, ex) -> {
+            closeStream(vertx, stream);
+            finishStreaming(resp, ex, trailer);
+        });
+    }
+
+    @Override
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    private void sendFile(ActionContext context, HttpServerRequest req, HttpServerResponse resp,
+                          Date fileLastModified) throws IOException
+    {
+        if (contentType == null) {
+            contentType = "text/plain";
+        }
+
+        resp.putHeader("Content-Type", contentType);
+
+        long length = info != null ? info.getSize() : Files.size(file);
+
+        ResponseCompressor.applyPolicy(req, contentType, length);
+
+        List<RangeHeaderInfo> ranges = resolveRanges(req, resp, length, fileLastModified);
+
+        if (resp.ended()) {
+            return;
+        }
+
+        if ((ranges != null) && (ranges.size() > 1) && (context.getServer() != null)) {
+            // sendFile 会结束响应，因此多个范围只能逐段读取文件发送，各范围已排序，只需打开一次文件顺序读取
+            stream = Files.newInputStream(file);
+            sendMultipartRanges(context.getServer().getVertx(), req, resp, ranges, length);
+            return;
+        }
+
+        String filename = file.toAbsolutePath().toString();
+
+        if ((ranges != null) && (ranges.size() == 1)) {
+            RangeHeaderInfo range = ranges.get(0);
+            setSingleRange(req, resp, range, length);
+
+            resp.sendFile(filename, range.getStart(), range.getLength());
+        } else {
+            resp.sendFile(filename, 0, length);
+        }
+    }
+}
@@ -18,12 +18,38 @@ public class FastRouteMatcher extends RouteMatcher
     {
         super(uri);
 
-        String[] uriParts = uri.getPath().split("/");
-        currUriParts = Stream.of(uriParts)
+        currUriParts = dissolvePath(uri.getPath());
+    }
+
+    static String[] dissolvePath(String path)
+    {
+        String[] uriParts = path.split("/");
+
+        return Stream.of(uriParts)
                 .filter(s -> !s.isEmpty())
                 .toArray(String[]::new);
     }
 
+    static List<Pair<String, String>> extractParameters(String[] routeParts, String[] uriParts)
+    {
+        List<Pair<String, String>> params = new ArrayList<>();
+
+        for (int i = 0; i < routeParts.length; i++) {
+            if (routeParts[i].startsWith("**:")) {
+                String param = routeParts[i].substring(3);
+                params.add(new Pair<>(param, Arrays.stream(uriParts)
+                        .skip(i)
+                        .collect(Collectors.joining("/"))));
+                break;
+            } else if (routeParts[i].startsWith(":")) {
+                String param = routeParts[i].substring(1);
+                params.add(new Pair<>(param, uriParts[i]));
+            }
+        }
+
+        return params;
+    }
+
     @Override
     protected MatchedRoute match(RouteInfo route, boolean matchOnly)
     {
@@ -41,29 +67,18 @@ public class FastRouteMatcher extends RouteMatcher
 
         int i = 0;
 
-        List<Pair<String, String>> params = new ArrayList<>();
-
         while (i < currRouteParts.length) {
             if (currRouteParts[i].startsWith("**:")) {
-                String param = currRouteParts[i].substring(3);
-                params.add(new Pair<>(param, Arrays.stream(currUriParts)
-                        .skip(i)
-                        .collect(Collectors.joining("/"))));
                 break;
-            } else if (currRouteParts[i].startsWith("*")) {
-                i++;
-                continue;
-            } else if (currRouteParts[i].startsWith(":")) {
-                String param = currRouteParts[i].substring(1);
-                params.add(new Pair<>(param, currUriParts[i]));
-            } else if (!currRouteParts[i].equals(currUriParts[i])) {
+            } else if ((!currRouteParts[i].startsWith("*")) && (!currRouteParts[i].startsWith(":"))
+                    && (!currRouteParts[i].equals(currUriParts[i]))) {
                 return null;
             }
 
             i++;
         }
 
-        MatchedRoute mr = new MatchedRoute(params);
+        MatchedRoute mr = new MatchedRoute(extractParameters(currRouteParts, currUriParts));
         mr.setRoute(route);
 
         return mr;
@@ -0,0 +1,146 @@
+package io.github.notsyncing.cowherd.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由简单路由编译而成的路径段前缀树，匹配语义与 {@link FastRouteMatcher} 一致
+ */
+public class FastRouteTrie
+{
+    private static class Node
+    {
+        private Map<String, Node> literalChildren;
+        private Node paramChild;
+        private Node wildcardChild;
+        private RouteEntry terminal;
+        private List<RouteEntry> restEntries;
+        private int minOrder = Integer.MAX_VALUE;
+
+        private Node child(String part)
+        {
+            if (part.startsWith("*")) {
+                if (wildcardChild == null) {
+                    wildcardChild = new Node();
+                }
+
+                return wildcardChild;
+            } else if (part.startsWith(":")) {
+                if (paramChild == null) {
+                    paramChild = new Node();
+                }
+
+                return paramChild;
+            }
+
+            if (literalChildren == null) {
+                literalChildren = new HashMap<>();
+            }
+
+            return literalChildren.computeIfAbsent(part, k -> new Node());
+        }
+    }
+
+    private final Node root = new Node();
+    private int size = 0;
+
+    /**
+     * 向前缀树中添加一条简单路由，须按路由优先级（order 递增）依次添加
+     * @param entry 要添加的路由
+     */
+    public void add(RouteEntry entry)
+    {
+        Node node = root;
+        node.minOrder = Math.min(node.minOrder, entry.getOrder());
+
+        for (String part : entry.getParts()) {
+            if (part.startsWith("**:")) {
+                if (node.restEntries == null) {
+                    node.restEntries = new ArrayList<>();
+                }
+
+                node.restEntries.add(entry);
+                size++;
+                return;
+            }
+
+            node = node.child(part);
+            node.minOrder = Math.min(node.minOrder, entry.getOrder());
+        }
+
+        if ((node.terminal == null) || (node.terminal.getOrder() > entry.getOrder())) {
+            node.terminal = entry;
+        }
+
+        size++;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * 查找与给定路径段匹配、且优先级高于 bound 的路由中优先级最高的一条
+     * @param uriParts 请求路径的各段
+     * @param bound 优先级上界，只有 order 小于该值的路由才会被返回
+     * @return 匹配的路由，若无则返回 null
+     */
+    public RouteEntry match(String[] uriParts, int bound)
+    {
+        RouteEntry[] best = new RouteEntry[1];
+        search(root, uriParts, 0, bound, best);
+        return best[0];
+    }
+
+    private static int currentBound(RouteEntry[] best, int bound)
+    {
+        return best[0] == null ? bound : best[0].getOrder();
+    }
+
+    private static void search(Node node, String[] uriParts, int depth, int bound, RouteEntry[] best)
+    {
+        if (node.minOrder >= currentBound(best, bound)) {
+            return;
+        }
+
+        if ((node.terminal != null) && (node.terminal.getOrder() < currentBound(best, bound))) {
+            best[0] = node.terminal;
+        }
+
+        if (depth >= uriParts.length) {
+            return;
+        }
+
+        if (node.restEntries != null) {
+            for (RouteEntry e : node.restEntries) {
+                if (e.getOrder() >= currentBound(best, bound)) {
+                    break;
+                }
+
+                if (e.getParts().length <= uriParts.length) {
+                    best[0] = e;
+                    break;
+                }
+            }
+        }
+
+        if (node.literalChildren != null) {
+            Node child = node.literalChildren.get(uriParts[depth]);
+
+            if (child != null) {
+                search(child, uriParts, depth + 1, bound, best);
+            }
+        }
+
+        if (node.paramChild != null) {
+            search(node.paramChild, uriParts, depth + 1, bound, best);
+        }
+
+        if (node.wildcardChild != null) {
+            search(node.wildcardChild, uriParts, depth + 1, bound, best);
+        }
+    }
+}
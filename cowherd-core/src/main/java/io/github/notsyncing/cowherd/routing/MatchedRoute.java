@@ -12,6 +12,7 @@ public class MatchedRoute
     private RouteInfo route;
     private ActionMethodInfo actionMethod;
     private List<Pair<String, String>> routeParameters;
+    private RouteEntry entry;
 
     public MatchedRoute()
     {
@@ -52,4 +53,14 @@ public class MatchedRoute
     {
         this.routeParameters = routeParameters;
     }
+
+    RouteEntry getEntry()
+    {
+        return entry;
+    }
+
+    void setEntry(RouteEntry entry)
+    {
+        this.entry = entry;
+    }
 }
@@ -0,0 +1,331 @@
+package io.github.notsyncing.cowherd.routing;
+
+import io.github.notsyncing.cowherd.models.RouteInfo;
+
+import java.util.*;
+
+/**
+ * 以字面量多模式自动机预筛选的正则路由集合
+ * 大多数路由的正则表达式以一段必须逐字匹配的字面量开头，如默认服务路由 ClassName/method 或 ^/files/，
+ * 请求路径中不含该字面量时该路由不可能匹配。这些字面量被编译为一个 Aho-Corasick 自动机，
+ * 匹配时只需扫描一遍请求路径，即可得到所有字面量出现在路径中的路由（以 ^ 开头的路由要求字面量出现在路径开头），
+ * 只有这些路由及无法提取字面量的路由才会执行正则表达式，并按优先级逐条匹配，结果与按优先级逐条匹配所有正则路由相同。
+ * 字面量通过解析正则表达式得到，会正确处理转义字符、\Q...\E、量词及顶层的 | 分支；
+ * 无法提取字面量的路由（以分组或字符类开头、带有编译标志、含有顶层分支、入口路由等）总是会执行正则表达式。
+ */
+public class RegexRouteAutomaton
+{
+    private static final String META_CHARS = "[](){}.*+?^$|";
+    private static final String QUANTIFIER_CHARS = "?*+{";
+
+    private static class Node
+    {
+        private final Map<Character, Node> children = new HashMap<>();
+        private Node fail;
+        private int[] outputs = new int[0];
+    }
+
+    private final RouteEntry[] entries;
+    private final BitSet unfilteredEntries = new BitSet();
+    private final Node root = new Node();
+    private final int[] literalLengths;
+    private final boolean[] anchored;
+
+    /**
+     * 编译正则路由
+     * @param entries 按优先级（order 递增）排列的正则路由
+     */
+    public RegexRouteAutomaton(List<RouteEntry> entries)
+    {
+        this.entries = entries.toArray(new RouteEntry[0]);
+        this.literalLengths = new int[this.entries.length];
+        this.anchored = new boolean[this.entries.length];
+
+        for (int i = 0; i < this.entries.length; i++) {
+            String literal = getRequiredLiteral(this.entries[i].getRoute());
+
+            if ((literal == null) || (literal.isEmpty())) {
+                unfilteredEntries.set(i);
+                continue;
+            }
+
+            literalLengths[i] = literal.length();
+            anchored[i] = this.entries[i].getRoute().getPathPattern().pattern().startsWith("^");
+
+            Node node = root;
+
+            for (int j = 0; j < literal.length(); j++) {
+                node = node.children.computeIfAbsent(literal.charAt(j), k -> new Node());
+            }
+
+            node.outputs = appendOutputs(node.outputs, new int[] { i });
+        }
+
+        buildFailLinks();
+    }
+
+    private static int[] appendOutputs(int[] outputs, int[] more)
+    {
+        int[] result = Arrays.copyOf(outputs, outputs.length + more.length);
+        System.arraycopy(more, 0, result, outputs.length, more.length);
+        return result;
+    }
+
+    /**
+     * 按广度优先顺序计算各节点的失配转移，并将失配节点的输出并入本节点，匹配时无需再沿失配链收集输出
+     */
+    private void buildFailLinks()
+    {
+        Deque<Node> queue = new ArrayDeque<>();
+
+        for (Node child : root.children.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+
+            for (Map.Entry<Character, Node> c : node.children.entrySet()) {
+                Node child = c.getValue();
+                Node f = node.fail;
+
+                while ((f != root) && (!f.children.containsKey(c.getKey()))) {
+                    f = f.fail;
+                }
+
+                Node next = f.children.get(c.getKey());
+                child.fail = next != null ? next : root;
+                child.outputs = appendOutputs(child.outputs, child.fail.outputs);
+
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 获取路由的正则表达式匹配时必须逐字匹配的开头部分
+     * @return 字面量，若无法确定，则返回 null
+     */
+    private static String getRequiredLiteral(RouteInfo route)
+    {
+        if ((route.isEntry()) || (route.getPathPattern() == null) || (route.getPathPattern().flags() != 0)) {
+            return null;
+        }
+
+        String pattern = route.getPathPattern().pattern();
+
+        if (hasTopLevelAlternation(pattern)) {
+            return null;
+        }
+
+        return getLiteralPrefix(pattern);
+    }
+
+    /**
+     * 获取正则表达式开头（开头的 ^ 之后）必须逐字匹配的部分
+     * @return 字面量前缀，可能为空字符串
+     */
+    static String getLiteralPrefix(String pattern)
+    {
+        StringBuilder prefix = new StringBuilder();
+        int n = pattern.length();
+        int i = pattern.startsWith("^") ? 1 : 0;
+
+        while (i < n) {
+            char c = pattern.charAt(i);
+            String literal;
+
+            if (c == '\\') {
+                if (i + 1 >= n) {
+                    break;
+                }
+
+                char d = pattern.charAt(i + 1);
+
+                if (d == 'Q') {
+                    int end = pattern.indexOf("\\E", i + 2);
+
+                    if (end < 0) {
+                        literal = pattern.substring(i + 2);
+                        i = n;
+                    } else {
+                        literal = pattern.substring(i + 2, end);
+                        i = end + 2;
+                    }
+                } else if (Character.isLetterOrDigit(d)) {
+                    // \d、\w、\b、反向引用等都不是字面量
+                    break;
+                } else {
+                    literal = String.valueOf(d);
+                    i += 2;
+                }
+            } else if (META_CHARS.indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = String.valueOf(c);
+                i++;
+            }
+
+            // 量词只作用于字面量的最后一个字符，该字符不再是必须匹配的
+            if ((i < n) && (QUANTIFIER_CHARS.indexOf(pattern.charAt(i)) >= 0)) {
+                if (!literal.isEmpty()) {
+                    prefix.append(literal, 0, literal.length() - 1);
+                } else if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+
+                break;
+            }
+
+            prefix.append(literal);
+        }
+
+        return prefix.toString();
+    }
+
+    /**
+     * 判断正则表达式是否含有不在任何分组内的 | 分支，此时 ^ 只作用于第一个分支
+     */
+    static boolean hasTopLevelAlternation(String pattern)
+    {
+        int depth = 0;
+        int n = pattern.length();
+        int i = 0;
+
+        while (i < n) {
+            char c = pattern.charAt(i);
+
+            if (c == '\\') {
+                if ((i + 1 < n) && (pattern.charAt(i + 1) == 'Q')) {
+                    int end = pattern.indexOf("\\E", i + 2);
+
+                    if (end < 0) {
+                        return false;
+                    }
+
+                    i = end + 2;
+                } else {
+                    i += 2;
+                }
+            } else if (c == '[') {
+                i = skipCharacterClass(pattern, i);
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if ((c == '|') && (depth <= 0)) {
+                return true;
+            } else {
+                i++;
+            }
+        }
+
+        return false;
+    }
+
+    private static int skipCharacterClass(String pattern, int start)
+    {
+        int n = pattern.length();
+        int depth = 0;
+        int i = start;
+
+        while (i < n) {
+            char c = pattern.charAt(i);
+
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+
+            if (c == '[') {
+                depth++;
+
+                // 紧跟在 [ 或 [^ 之后的 ] 是字面量
+                if ((i + 1 < n) && (pattern.charAt(i + 1) == '^')) {
+                    i++;
+                }
+
+                if ((i + 1 < n) && (pattern.charAt(i + 1) == ']')) {
+                    i++;
+                }
+            } else if (c == ']') {
+                depth--;
+
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+
+            i++;
+        }
+
+        return n;
+    }
+
+    public int size()
+    {
+        return entries.length;
+    }
+
+    /**
+     * 扫描一遍路径，标记字面量出现在路径中的路由
+     */
+    private void collectCandidates(String path, BitSet candidates)
+    {
+        Node node = root;
+
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            Node next = node.children.get(c);
+
+            while ((next == null) && (node != root)) {
+                node = node.fail;
+                next = node.children.get(c);
+            }
+
+            node = next != null ? next : root;
+
+            for (int r : node.outputs) {
+                if ((anchored[r]) && (i + 1 != literalLengths[r])) {
+                    continue;
+                }
+
+                candidates.set(r);
+            }
+        }
+    }
+
+    /**
+     * 查找优先级高于 bound 的正则路由中优先级最高的匹配路由
+     * @param matcher 当前请求的正则路由匹配器
+     * @param bound 优先级上界，只有 order 小于该值的路由才会被返回
+     * @return 匹配的路由，若无则返回 null
+     */
+    public MatchedRoute match(RegexRouteMatcher matcher, int bound)
+    {
+        BitSet candidates = (BitSet) unfilteredEntries.clone();
+        collectCandidates(matcher.getStrippedPath(), candidates);
+
+        // 路由已按优先级排列，按下标顺序逐条匹配候选路由即可
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            RouteEntry e = entries[i];
+
+            if (e.getOrder() >= bound) {
+                break;
+            }
+
+            MatchedRoute mr = matcher.match(e.getRoute());
+
+            if (mr != null) {
+                mr.setActionMethod(e.getActionMethod());
+                mr.setEntry(e);
+                return mr;
+            }
+        }
+
+        return null;
+    }
+}
@@ -8,12 +8,22 @@ import io.github.notsyncing.cowherd.utils.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
 
 public class RegexRouteMatcher extends RouteMatcher
 {
+    private String path;
+
     public RegexRouteMatcher(SimpleURI uri)
     {
         super(uri);
+
+        this.path = StringUtils.stripSameCharAtStringHeader(uri.getPath(), '/');
+    }
+
+    String getStrippedPath()
+    {
+        return path;
     }
 
     private MatchedRoute matchRoute(SimpleURI uri, RouteInfo info, boolean matchOnly)
@@ -32,12 +42,14 @@ public class RegexRouteMatcher extends RouteMatcher
             return null;
         }
 
-        if (info.getPathPattern().matcher(StringUtils.stripSameCharAtStringHeader(uri.getPath(), '/')).find()) {
+        Matcher pathMatcher = info.getPathPattern().matcher(path);
+
+        if (pathMatcher.find()) {
             if (matchOnly) {
                 return new MatchedRoute();
             }
 
-            MatchedRoute route = new MatchedRoute(extractRouteParameters(uri, info));
+            MatchedRoute route = new MatchedRoute(extractRouteParameters(uri, info, pathMatcher));
             route.setRoute(info);
 
             return route;
@@ -46,7 +58,7 @@ public class RegexRouteMatcher extends RouteMatcher
         return null;
     }
 
-    private List<Pair<String, String>> extractRouteParameters(SimpleURI uri, RouteInfo route)
+    private List<Pair<String, String>> extractRouteParameters(SimpleURI uri, RouteInfo route, Matcher pathMatcher)
     {
         List<Pair<String, String>> params = new ArrayList<>();
 
@@ -54,9 +66,8 @@ public class RegexRouteMatcher extends RouteMatcher
             RegexUtils.addMatchedGroupsToPairList(uri.getHost(), route.getDomainPattern(), params);
         }
 
-        if (route.getPathPattern() != null) {
-            RegexUtils.addMatchedGroupsToPairList(StringUtils.stripSameCharAtStringHeader(uri.getPath(), '/'),
-                    route.getPathPattern(), params);
+        for (String n : RegexUtils.getGroupNames(route.getPathPattern())) {
+            params.add(new Pair<>(n, pathMatcher.group(n)));
         }
 
         return params;
@@ -0,0 +1,61 @@
+package io.github.notsyncing.cowherd.routing;
+
+import io.github.notsyncing.cowherd.models.ActionMethodInfo;
+import io.github.notsyncing.cowherd.models.RouteInfo;
+import io.github.notsyncing.cowherd.server.FilterManager;
+
+/**
+ * 路由表中的一条路由及其在路由表中的优先级顺序
+ */
+public class RouteEntry
+{
+    private final RouteInfo route;
+    private final ActionMethodInfo actionMethod;
+    private final String[] parts;
+    private final int order;
+    private volatile RouteFilterChain filterChain;
+
+    public RouteEntry(RouteInfo route, ActionMethodInfo actionMethod, int order)
+    {
+        this.route = route;
+        this.actionMethod = actionMethod;
+        this.parts = route.isFastRoute() ? route.getDissolvedPath() : null;
+        this.order = order;
+    }
+
+    public RouteInfo getRoute()
+    {
+        return route;
+    }
+
+    public ActionMethodInfo getActionMethod()
+    {
+        return actionMethod;
+    }
+
+    public String[] getParts()
+    {
+        return parts;
+    }
+
+    public int getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * 获取该路由的过滤器链，过滤器注册表发生变化后会重新生成
+     * @return 过滤器链
+     */
+    public RouteFilterChain getFilterChain()
+    {
+        RouteFilterChain chain = filterChain;
+
+        if ((chain == null) || (chain.getFilterVersion() != FilterManager.getVersion())) {
+            chain = RouteFilterChain.build(route, actionMethod.getMethod());
+            filterChain = chain;
+        }
+
+        return chain;
+    }
+}
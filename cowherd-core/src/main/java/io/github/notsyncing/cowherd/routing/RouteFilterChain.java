@@ -0,0 +1,201 @@
+package io.github.notsyncing.cowherd.routing;
+
+import io.github.notsyncing.cowherd.annotations.Filter;
+import io.github.notsyncing.cowherd.annotations.FilterParameter;
+import io.github.notsyncing.cowherd.annotations.Filters;
+import io.github.notsyncing.cowherd.models.FilterExecutionInfo;
+import io.github.notsyncing.cowherd.models.FilterInfo;
+import io.github.notsyncing.cowherd.models.RouteInfo;
+import io.github.notsyncing.cowherd.models.SimpleURI;
+import io.github.notsyncing.cowherd.server.FilterManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一条路由预先计算好的有序过滤器链
+ * 方法上声明的过滤器、全局过滤器，以及根据路由规则可以确定必然匹配的路由过滤器会被直接放入链中，
+ * 只有无法在注册时确定是否匹配（如含域名、正则或路径参数）的路由过滤器才需要在每次请求时进行匹配
+ */
+public class RouteFilterChain
+{
+    private enum RouteMatch
+    {
+        Always,
+        Never,
+        Dynamic
+    }
+
+    private static class Link
+    {
+        private final FilterInfo filter;
+        private final Map<String, String> parameters;
+        private final RouteInfo route;
+
+        Link(FilterInfo filter, Map<String, String> parameters, RouteInfo route)
+        {
+            this.filter = filter;
+            this.parameters = parameters;
+            this.route = route;
+        }
+    }
+
+    private final Link[] links;
+    private final int filterVersion;
+
+    private RouteFilterChain(List<Link> links, int filterVersion)
+    {
+        this.links = links.toArray(new Link[0]);
+        this.filterVersion = filterVersion;
+    }
+
+    /**
+     * 为一条路由生成过滤器链
+     * @param route 路由
+     * @param method 路由对应的服务方法
+     * @return 过滤器链
+     */
+    public static RouteFilterChain build(RouteInfo route, Method method)
+    {
+        int version = FilterManager.getVersion();
+        List<Link> links = new ArrayList<>();
+
+        if ((method.isAnnotationPresent(Filter.class)) || (method.isAnnotationPresent(Filters.class))) {
+            for (Filter f : method.getAnnotationsByType(Filter.class)) {
+                FilterInfo filter = FilterManager.getNormalFilters().get(f.value());
+
+                if (filter == null) {
+                    continue;
+                }
+
+                Map<String, String> parameters = Collections.emptyMap();
+
+                if (f.parameters().length > 0) {
+                    parameters = new HashMap<>();
+
+                    for (FilterParameter p : f.parameters()) {
+                        parameters.put(p.name(), p.value());
+                    }
+                }
+
+                links.add(new Link(filter, parameters, null));
+            }
+        }
+
+        for (FilterInfo filter : FilterManager.getGlobalFilters()) {
+            links.add(new Link(filter, Collections.emptyMap(), null));
+        }
+
+        for (Map.Entry<RouteInfo, FilterInfo> e : FilterManager.getRoutedFilters().entrySet()) {
+            RouteMatch match = matchStatically(route, e.getKey());
+
+            if (match == RouteMatch.Always) {
+                links.add(new Link(e.getValue(), Collections.emptyMap(), null));
+            } else if (match == RouteMatch.Dynamic) {
+                links.add(new Link(e.getValue(), Collections.emptyMap(), e.getKey()));
+            }
+        }
+
+        return new RouteFilterChain(links, version);
+    }
+
+    private static int restPartIndex(String[] parts)
+    {
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].startsWith("**:")) {
+                return i;
+            }
+        }
+
+        return parts.length;
+    }
+
+    private static boolean isLiteralPart(String part)
+    {
+        return (!part.startsWith("*")) && (!part.startsWith(":"));
+    }
+
+    private static RouteMatch matchStatically(RouteInfo route, RouteInfo filterRoute)
+    {
+        if ((route == null) || (route.isEntry()) || (!route.isFastRoute()) || (!filterRoute.isFastRoute())) {
+            return RouteMatch.Dynamic;
+        }
+
+        String[] routeParts = route.getDissolvedPath();
+        String[] filterParts = filterRoute.getDissolvedPath();
+        int routeRest = restPartIndex(routeParts);
+        int filterRest = restPartIndex(filterParts);
+        boolean always = filterParts.length <= routeParts.length;
+
+        for (int i = 0; i < filterRest; i++) {
+            if (!isLiteralPart(filterParts[i])) {
+                continue;
+            }
+
+            if ((i < routeRest) && (isLiteralPart(routeParts[i]))) {
+                if (!routeParts[i].equals(filterParts[i])) {
+                    return RouteMatch.Never;
+                }
+            } else {
+                always = false;
+            }
+        }
+
+        return always ? RouteMatch.Always : RouteMatch.Dynamic;
+    }
+
+    public int getFilterVersion()
+    {
+        return filterVersion;
+    }
+
+    /**
+     * 为当前请求生成要执行的过滤器列表
+     * @param uri 当前请求的地址
+     * @return 要执行的过滤器列表
+     */
+    public List<FilterExecutionInfo> instantiate(SimpleURI uri)
+    {
+        List<FilterExecutionInfo> filters = new ArrayList<>(links.length);
+        RouteMatcher fastRouteMatcher = null;
+        RouteMatcher regexRouteMatcher = null;
+
+        for (Link l : links) {
+            if (l.route != null) {
+                RouteMatcher matcher;
+
+                if (l.route.isFastRoute()) {
+                    if (fastRouteMatcher == null) {
+                        fastRouteMatcher = new FastRouteMatcher(uri);
+                    }
+
+                    matcher = fastRouteMatcher;
+                } else {
+                    if (regexRouteMatcher == null) {
+                        regexRouteMatcher = new RegexRouteMatcher(uri);
+                    }
+
+                    matcher = regexRouteMatcher;
+                }
+
+                if (!matcher.matchOnly(l.route)) {
+                    continue;
+                }
+            }
+
+            FilterExecutionInfo info = new FilterExecutionInfo(l.filter);
+
+            if (!l.parameters.isEmpty()) {
+                info.getParameters().putAll(l.parameters);
+            }
+
+            filters.add(info);
+        }
+
+        return filters;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.notsyncing.cowherd.routing;
+
+import io.github.notsyncing.cowherd.models.ActionMethodInfo;
+import io.github.notsyncing.cowherd.models.RouteInfo;
+import io.github.notsyncing.cowherd.models.SimpleURI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由表的不可变编译快照
+ * 简单路由被编译为路径段前缀树，正则路由由字面量自动机预筛选，匹配结果与按路由表顺序逐条匹配相同
+ */
+public class RouteIndex
+{
+    private final FastRouteTrie fastRoutes = new FastRouteTrie();
+    private RegexRouteAutomaton regexRoutes;
+    private RouteEntry entryRoute;
+
+    private RouteIndex()
+    {
+    }
+
+    public static RouteIndex build(Map<RouteInfo, ActionMethodInfo> routes)
+    {
+        RouteIndex index = new RouteIndex();
+        List<RouteEntry> regexRoutes = new ArrayList<>();
+        int order = 0;
+
+        for (Map.Entry<RouteInfo, ActionMethodInfo> r : routes.entrySet()) {
+            RouteEntry entry = new RouteEntry(r.getKey(), r.getValue(), order);
+
+            if ((r.getKey().isEntry()) && (index.entryRoute == null)) {
+                index.entryRoute = entry;
+            }
+
+            if (r.getKey().isFastRoute()) {
+                index.fastRoutes.add(entry);
+            } else {
+                regexRoutes.add(entry);
+            }
+
+            order++;
+        }
+
+        index.regexRoutes = new RegexRouteAutomaton(regexRoutes);
+
+        return index;
+    }
+
+    public MatchedRoute match(SimpleURI uri)
+    {
+        RouteEntry best = null;
+
+        if (("/".equals(uri.getPath())) && (entryRoute != null)) {
+            best = entryRoute;
+        }
+
+        int bound = best == null ? Integer.MAX_VALUE : best.getOrder();
+        String[] uriParts = null;
+
+        if (fastRoutes.size() > 0) {
+            uriParts = FastRouteMatcher.dissolvePath(uri.getPath());
+            RouteEntry fast = fastRoutes.match(uriParts, bound);
+
+            if (fast != null) {
+                best = fast;
+                bound = fast.getOrder();
+            }
+        }
+
+        if (regexRoutes.size() > 0) {
+            MatchedRoute mr = regexRoutes.match(new RegexRouteMatcher(uri), bound);
+
+            if (mr != null) {
+                return mr;
+            }
+        }
+
+        if (best == null) {
+            return null;
+        }
+
+        MatchedRoute mr;
+
+        if ((best == entryRoute) && ("/".equals(uri.getPath()))) {
+            mr = new MatchedRoute();
+        } else {
+            mr = new MatchedRoute(FastRouteMatcher.extractParameters(best.getParts(), uriParts));
+        }
+
+        mr.setRoute(best.getRoute());
+        mr.setActionMethod(best.getActionMethod());
+        mr.setEntry(best);
+
+        return mr;
+    }
+}
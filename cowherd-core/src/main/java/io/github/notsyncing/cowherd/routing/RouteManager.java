@@ -3,6 +3,9 @@ package io.github.notsyncing.cowherd.routing;
 import io.github.notsyncing.cowherd.annotations.*;
 import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.commons.RouteType;
+import io.github.notsyncing.cowherd.files.AssetManifest;
+import io.github.notsyncing.cowherd.files.StaticAssetBundle;
+import io.github.notsyncing.cowherd.files.StaticFileCache;
 import io.github.notsyncing.cowherd.models.*;
 import io.github.notsyncing.cowherd.responses.ActionResponse;
 import io.github.notsyncing.cowherd.responses.FileResponse;
@@ -40,6 +43,15 @@ public class RouteManager
 
     private static CowherdLogger log = CowherdLogger.getInstance(RouteManager.class);
     private static Path classpathContextRoot;
+    private static volatile RouteIndex routeIndex;
+    private static StaticFileCache staticFileCache = new StaticFileCache();
+    private static volatile StaticAssetBundle classpathAssetBundle;
+    private static volatile AssetManifest assetManifest = new AssetManifest();
+
+    /**
+     * 预先压缩的文件的内容编码及其扩展名，按优先顺序排列
+     */
+    private static final String[][] PRECOMPRESSED_ENCODINGS = { { "br", ".br" }, { "gzip", ".gz" } };
 
     public static Map<RouteInfo, ActionMethodInfo> getRoutes()
     {
@@ -49,10 +61,55 @@ public class RouteManager
     public static void reset()
     {
         routes.clear();
+        invalidateRouteIndex();
+        staticFileCache.clear();
+        classpathAssetBundle = null;
+        assetManifest = new AssetManifest();
+    }
+
+    public static StaticFileCache getStaticFileCache()
+    {
+        return staticFileCache;
+    }
+
+    /**
+     * 获取静态资源指纹清单，用于在页面及脚本中引用带哈希的资源路径
+     * @return 静态资源指纹清单，若未启用指纹，则清单为空
+     */
+    public static AssetManifest getAssetManifest()
+    {
+        return assetManifest;
     }
 
     public static void removeRouteIf(BiPredicate<RouteInfo, ActionMethodInfo> predicate) {
-        routes.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue()));
+        if (routes.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue()))) {
+            invalidateRouteIndex();
+        }
+    }
+
+    private static void invalidateRouteIndex()
+    {
+        synchronized (RouteManager.class) {
+            routeIndex = null;
+        }
+    }
+
+    private static RouteIndex getRouteIndex()
+    {
+        RouteIndex index = routeIndex;
+
+        if (index == null) {
+            synchronized (RouteManager.class) {
+                index = routeIndex;
+
+                if (index == null) {
+                    index = RouteIndex.build(routes);
+                    routeIndex = index;
+                }
+            }
+        }
+
+        return index;
     }
 
     public static boolean containsRoute(RouteInfo route) {
@@ -67,6 +124,7 @@ public class RouteManager
         }
 
         routes.put(route, target);
+        invalidateRouteIndex();
 
         log.d("Add route " + route + " to action " + target.getMethod());
     }
@@ -134,181 +192,253 @@ public class RouteManager
 
     public static MatchedRoute findMatchedAction(SimpleURI uri)
     {
-        RouteMatcher fastRouteMatcher = new FastRouteMatcher(uri);
-        RouteMatcher regexRouteMatcher = new RegexRouteMatcher(uri);
+        return getRouteIndex().match(uri);
+    }
 
-        for (Map.Entry<RouteInfo, ActionMethodInfo> r : routes.entrySet()) {
-            RouteMatcher matcher;
+    private static List<FilterExecutionInfo> findMatchedFilters(SimpleURI uri, MatchedRoute route)
+    {
+        RouteFilterChain chain;
 
-            if (r.getKey().isFastRoute()) {
-                matcher = fastRouteMatcher;
-            } else {
-                matcher = regexRouteMatcher;
-            }
+        if (route.getEntry() != null) {
+            chain = route.getEntry().getFilterChain();
+        } else {
+            chain = RouteFilterChain.build(route.getRoute(), route.getActionMethod().getMethod());
+        }
+
+        return chain.instantiate(uri);
+    }
 
-            MatchedRoute mr = matcher.match(r.getKey());
+    public static CompletableFuture<ActionResult> handleRequest(ActionContext context)
+    {
+        HttpServerRequest request = context.getRequest();
 
-            if (mr != null) {
-                mr.setActionMethod(r.getValue());
-                return mr;
-            }
+        log.d("Request: " + request.path());
+
+        RequestContext req = RequestUtils.createRequestContext(request);
+        CompletableFuture<ActionResult> future;
+
+        try {
+            future = routeRequest(context, req);
+        } catch (Exception e) {
+            future = FutureUtils.failed(e);
         }
 
-        return null;
+        return future.whenComplete((r, ex) -> {
+            RequestUtils.discardRequestBody(req);
+            RequestUtils.releaseRequestBody(req);
+        });
     }
 
-    private static List<FilterExecutionInfo> findMatchedFilters(SimpleURI uri, Method m)
+    private static CompletableFuture<ActionResult> routeRequest(ActionContext context, RequestContext req)
     {
-        List<FilterExecutionInfo> filters = new ArrayList<>();
+        HttpServerRequest request = context.getRequest();
 
-        if ((m.isAnnotationPresent(Filter.class)) || (m.isAnnotationPresent(Filters.class))) {
-            Filter[] list = m.getAnnotationsByType(Filter.class);
+        SimpleURI uri = RouteUtils.resolveUriFromRequest(request);
+        MatchedRoute p = findMatchedAction(uri);
 
-            for (Filter f : list) {
-                FilterInfo filter = FilterManager.getNormalFilters().get(f.value());
+        if (p == null) {
+            ActionResponse resp = null;
 
-                if (filter == null) {
-                    continue;
+            if (req.getMethod() == HttpMethod.GET) {
+                try {
+                    resp = handleFileRequest(req);
+                } catch (Exception e) {
+                    log.e("An exception was thrown when processing file request " + uri, e);
+
+                    CompletableFuture<ActionResult> f = new CompletableFuture<>();
+                    f.completeExceptionally(e);
+                    return f;
+                }
+            }
+
+            if ((resp == null) && (!req.getResponse().ended())) {
+                log.d(" ... no route");
+                req.getResponse().setStatusCode(404).end();
+                return CompletableFuture.completedFuture(new ActionResult());
+            } else {
+                return CompletableFuture.completedFuture(new ActionResult(null, resp));
+            }
+        }
+
+        RouteInfo r = p.getRoute();
+        ActionMethodInfo m = p.getActionMethod();
+        log.d(" ... action " + m.getMethod());
+
+        context.setRoute(r);
+
+        if (m.getPlan().isCorsEnabled()) {
+            if (req.getHeaders().contains("Origin")) {
+                String origin = req.getHeaders().get("Origin");
+                String remoteAddr = request.remoteAddress().host();
+                boolean allow = true;
+
+                if ((!remoteAddr.equals("127.0.0.1")) && (!remoteAddr.equals("localhost"))
+                        && (!remoteAddr.equals("0:0:0:0:0:0:0:1"))
+                        && (!origin.equals("file://"))) {
+                    if (!CowherdConfiguration.getAllowOrigins().contains(origin)) {
+                        origin = "NOT_ALLOWED";
+                        allow = false;
+                    }
                 }
 
-                FilterExecutionInfo info = new FilterExecutionInfo(filter);
+                if (allow) {
+                    if (req.getHeaders().contains("Access-Control-Request-Headers")) {
+                        req.getResponse().putHeader("Access-Control-Allow-Headers",
+                                req.getHeaders().get("Access-Control-Request-Headers"));
+                    }
 
-                if (f.parameters().length > 0) {
-                    for (FilterParameter p : f.parameters()) {
-                        info.addParameter(p.name(), p.value());
+                    if (req.getHeaders().contains("Access-Control-Request-Method")) {
+                        req.getResponse().putHeader("Access-Control-Allow-Methods",
+                                req.getHeaders().get("Access-Control-Request-Method"));
                     }
+
+                    req.getResponse().putHeader("Access-Control-Allow-Credentials", "true");
                 }
 
-                filters.add(info);
+                req.getResponse().putHeader("Access-Control-Allow-Origin", origin);
+
+                if (req.getMethod() == HttpMethod.OPTIONS) {
+                    req.getResponse().end();
+                    return CompletableFuture.completedFuture(new ActionResult());
+                }
+
+                if (!allow) {
+                    req.getResponse().setStatusCode(403).end();
+                    return CompletableFuture.completedFuture(new ActionResult());
+                }
             }
         }
 
-        filters.addAll(FilterManager.getGlobalFilters().stream()
-                .map(FilterExecutionInfo::new)
-                .collect(Collectors.toList()));
+        context.setActionMethod(m);
 
-        RouteMatcher fastRouteMatcher = new FastRouteMatcher(uri);
-        RouteMatcher regexRouteMatcher = new RegexRouteMatcher(uri);
+        if (r.getType() == RouteType.Http) {
+            return RequestExecutor.handleRequestedAction(context, findMatchedFilters(uri, p),
+                    p.getRouteParameters(), req, r.getOtherParameters());
+        } else if (r.getType() == RouteType.WebSocket) {
+            return RequestExecutor.handleRequestedWebSocketAction(context, findMatchedFilters(uri, p),
+                    p.getRouteParameters(), req, r.getOtherParameters());
+        }
 
-        List<FilterExecutionInfo> routedFilters = FilterManager.getRoutedFilters().entrySet().stream()
-                .filter(e -> {
-                    if (e.getKey().isFastRoute()) {
-                        return fastRouteMatcher.matchOnly(e.getKey());
-                    } else {
-                        return regexRouteMatcher.matchOnly(e.getKey());
-                    }
-                })
-                .map(Map.Entry::getValue)
-                .map(FilterExecutionInfo::new)
-                .collect(Collectors.toList());
+        return FutureUtils.failed(new UnsupportedOperationException("Unknown route type " + r.getType() +
+                " in route " + r));
+    }
 
-        filters.addAll(routedFilters);
+    private static boolean isNotModified(RequestContext request, StaticFileInfo info) throws ParseException
+    {
+        String ifNoneMatch = request.getHeaders().get("If-None-Match");
+
+        if (!StringUtils.isEmpty(ifNoneMatch)) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+
+                if ((tag.equals("*")) || (tag.equals(info.getETag()))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
 
-        return filters;
+        String ifModifiedSince = request.getHeaders().get("If-Modified-Since");
+
+        if (StringUtils.isEmpty(ifModifiedSince)) {
+            return false;
+        }
+
+        if (ifModifiedSince.equals(info.getLastModifiedString())) {
+            return true;
+        }
+
+        long fileModifyTime = info.getLastModified() / 1000;
+        long reqQueryTime = StringUtils.parseHttpDateString(ifModifiedSince).getTime() / 1000;
+
+        return fileModifyTime <= reqQueryTime;
     }
 
-    public static CompletableFuture<ActionResult> handleRequest(ActionContext context)
+    private static Path getClasspathContextRoot() throws URISyntaxException, IOException
     {
-        HttpServerRequest request = context.getRequest();
+        if (classpathContextRoot == null) {
+            URL url = CowherdConfiguration.class.getResource("/APP_ROOT");
 
-        log.d("Request: " + request.path());
+            if (url == null) {
+                return null;
+            }
 
-        return RequestUtils.toRequestContext(request).thenCompose(req -> {
-            SimpleURI uri = RouteUtils.resolveUriFromRequest(request);
-            MatchedRoute p = findMatchedAction(uri);
+            URI uri = url.toURI();
 
-            if (p == null) {
-                ActionResponse resp = null;
+            if (uri.getScheme().equals("jar")) {
+                String[] parts = uri.toString().split("!");
+                classpathContextRoot = FileSystems.newFileSystem(URI.create(parts[0]), new HashMap<>())
+                        .getPath(parts[1]);
+            } else {
+                classpathContextRoot = Paths.get(uri);
+            }
+        }
 
-                if (req.getMethod() == HttpMethod.GET) {
-                    try {
-                        resp = handleFileRequest(req);
-                    } catch (Exception e) {
-                        log.e("An exception was thrown when processing file request " + uri, e);
+        return classpathContextRoot;
+    }
 
-                        CompletableFuture<ActionResult> f = new CompletableFuture<>();
-                        f.completeExceptionally(e);
-                        return f;
-                    }
-                }
+    /**
+     * 将类路径上下文路径（$）中的所有文件读入内存中的资源包，之后该路径下的文件均直接从资源包中发送
+     */
+    public static void loadClasspathAssetBundle() throws IOException, URISyntaxException
+    {
+        boolean hasClasspathRoot = false;
 
-                if ((resp == null) && (!req.getResponse().ended())) {
-                    log.d(" ... no route");
-                    req.getResponse().setStatusCode(404).end();
-                    return CompletableFuture.completedFuture(new ActionResult());
-                } else {
-                    return CompletableFuture.completedFuture(new ActionResult(null, resp));
-                }
+        for (Path contextRoot : CowherdConfiguration.getContextRoots()) {
+            if (contextRoot.getName(contextRoot.getNameCount() - 1).toString().equals("$")) {
+                hasClasspathRoot = true;
+                break;
             }
+        }
 
-            RouteInfo r = p.getRoute();
-            ActionMethodInfo m = p.getActionMethod();
-            log.d(" ... action " + m.getMethod());
-
-            context.setRoute(r);
-
-            if (!m.getMethod().isAnnotationPresent(DisableCORS.class)) {
-                if (req.getHeaders().contains("Origin")) {
-                    String origin = req.getHeaders().get("Origin");
-                    String remoteAddr = request.remoteAddress().host();
-                    boolean allow = true;
-
-                    if ((!remoteAddr.equals("127.0.0.1")) && (!remoteAddr.equals("localhost"))
-                            && (!remoteAddr.equals("0:0:0:0:0:0:0:1"))
-                            && (!origin.equals("file://"))) {
-                        if (!CowherdConfiguration.getAllowOrigins().contains(origin)) {
-                            origin = "NOT_ALLOWED";
-                            allow = false;
-                        }
-                    }
+        Path root = hasClasspathRoot ? getClasspathContextRoot() : null;
 
-                    if (allow) {
-                        if (req.getHeaders().contains("Access-Control-Request-Headers")) {
-                            req.getResponse().putHeader("Access-Control-Allow-Headers",
-                                    req.getHeaders().get("Access-Control-Request-Headers"));
-                        }
+        if (root == null) {
+            return;
+        }
 
-                        if (req.getHeaders().contains("Access-Control-Request-Method")) {
-                            req.getResponse().putHeader("Access-Control-Allow-Methods",
-                                    req.getHeaders().get("Access-Control-Request-Method"));
-                        }
+        StaticAssetBundle bundle = StaticAssetBundle.load(root, CowherdConfiguration.isPrecompressStaticFiles());
+        classpathAssetBundle = bundle;
 
-                        req.getResponse().putHeader("Access-Control-Allow-Credentials", "true");
-                    }
+        log.i("Loaded " + bundle.size() + " classpath static files (" + bundle.getContentSize() + " bytes) into memory.");
+    }
 
-                    req.getResponse().putHeader("Access-Control-Allow-Origin", origin);
+    /**
+     * 计算所有上下文路径中静态资源的指纹，生成新的指纹清单
+     */
+    public static void loadAssetManifest() throws IOException, URISyntaxException
+    {
+        AssetManifest manifest = new AssetManifest();
 
-                    if (req.getMethod() == HttpMethod.OPTIONS) {
-                        req.getResponse().end();
-                        return CompletableFuture.completedFuture(new ActionResult());
-                    }
+        for (Path contextRoot : CowherdConfiguration.getContextRoots()) {
+            if (contextRoot.getName(contextRoot.getNameCount() - 1).toString().equals("$")) {
+                contextRoot = getClasspathContextRoot();
+            }
 
-                    if (!allow) {
-                        req.getResponse().setStatusCode(403).end();
-                        return CompletableFuture.completedFuture(new ActionResult());
-                    }
-                }
+            if ((contextRoot == null) || (!Files.isDirectory(contextRoot))) {
+                continue;
             }
 
-            context.setActionMethod(m);
+            manifest.addDirectory(contextRoot);
+        }
 
-            if (r.getType() == RouteType.Http) {
-                return RequestExecutor.handleRequestedAction(context, findMatchedFilters(uri, m.getMethod()),
-                        p.getRouteParameters(), req, r.getOtherParameters());
-            } else if (r.getType() == RouteType.WebSocket) {
-                return RequestExecutor.handleRequestedWebSocketAction(context, findMatchedFilters(uri, m.getMethod()),
-                        p.getRouteParameters(), req, r.getOtherParameters());
-            }
+        assetManifest = manifest;
 
-            return FutureUtils.failed(new UnsupportedOperationException("Unknown route type " + r.getType() +
-                    " in route " + r));
-        });
+        log.i("Fingerprinted " + manifest.size() + " static files.");
     }
 
-    private static ActionResponse handleFileRequest(RequestContext request) throws IOException, ParseException, URISyntaxException
+    private static StaticFileInfo findStaticFile(StaticAssetBundle bundle, Path file) throws IOException
     {
-        boolean needSend = true;
+        return bundle != null ? bundle.get(file) : staticFileCache.get(file);
+    }
 
+    private static ActionResponse handleFileRequest(RequestContext request) throws IOException, ParseException, URISyntaxException
+    {
         String reqPath = StringUtils.stripSameCharAtStringHeader(request.getPath(), '/');
 
         if ("/".equals(reqPath)) {
@@ -317,27 +447,23 @@ public class RouteManager
             reqPath = reqPath.substring(1);
         }
 
-        for (Path contextRoot : CowherdConfiguration.getContextRoots()) {
-            if (contextRoot.getName(contextRoot.getNameCount() - 1).toString().equals("$")) {
-                if (classpathContextRoot == null) {
-                    URL url = CowherdConfiguration.class.getResource("/APP_ROOT");
+        String fingerprintedPath = assetManifest.resolve(reqPath);
 
-                    if (url == null) {
-                        continue;
-                    }
+        if (fingerprintedPath != null) {
+            reqPath = fingerprintedPath;
+        }
 
-                    URI uri = url.toURI();
+        for (Path contextRoot : CowherdConfiguration.getContextRoots()) {
+            StaticAssetBundle bundle = null;
 
-                    if (uri.getScheme().equals("jar")) {
-                        String[] parts = uri.toString().split("!");
-                        classpathContextRoot = FileSystems.newFileSystem(URI.create(parts[0]), new HashMap<>())
-                                .getPath(parts[1]);
-                    } else {
-                        classpathContextRoot = Paths.get(uri);
-                    }
+            if (contextRoot.getName(contextRoot.getNameCount() - 1).toString().equals("$")) {
+                contextRoot = getClasspathContextRoot();
+
+                if (contextRoot == null) {
+                    continue;
                 }
 
-                contextRoot = classpathContextRoot;
+                bundle = classpathAssetBundle;
             }
 
             Path file = contextRoot.resolve(reqPath);
@@ -346,28 +472,62 @@ public class RouteManager
                 continue;
             }
 
-            if (Files.isRegularFile(file)) {
-                String ifModifiedSince = request.getHeaders().get("If-Modified-Since");
+            StaticFileInfo info = findStaticFile(bundle, file);
 
-                if (!StringUtils.isEmpty(ifModifiedSince)) {
-                    long fileModifyTime = Files.getLastModifiedTime(file).toMillis() / 1000;
-                    long reqQueryTime = StringUtils.parseHttpDateString(ifModifiedSince).getTime() / 1000;
+            if (info == null) {
+                continue;
+            }
 
-                    if (fileModifyTime <= reqQueryTime) {
-                        request.getResponse().putHeader("Last-Modified", StringUtils.dateToHttpDateString(new Date(fileModifyTime)));
-                        request.getResponse().setStatusCode(304).end();
-                        needSend = false;
-                    }
+            // 带哈希的路径的内容不会改变，但若文件在计算哈希后被修改，则不再能保证这一点
+            if ((fingerprintedPath != null) && (assetManifest.isCurrent(fingerprintedPath, info.getETag()))) {
+                request.getResponse().putHeader("Cache-Control", "public, max-age=31536000, immutable");
+            }
+
+            StaticFileInfo sendInfo = info;
+            String contentEncoding = null;
+            double bestQuality = 0;
+            boolean hasVariants = false;
+            String acceptEncoding = request.getHeaders().get("Accept-Encoding");
+
+            for (String[] encoding : PRECOMPRESSED_ENCODINGS) {
+                StaticFileInfo variant = findStaticFile(bundle, file.resolveSibling(file.getFileName() + encoding[1]));
+
+                // 比原文件旧的压缩文件已过期，不再使用
+                if ((variant == null) || (variant.getLastModified() < info.getLastModified())) {
+                    continue;
                 }
 
-                if (needSend) {
-                    log.d(" ... local file: " + file);
-                    return new FileResponse(file);
-                } else {
-                    log.d(" ... local file: " + file + " (not modified)");
-                    return null;
+                hasVariants = true;
+
+                double quality = RequestUtils.getAcceptedEncodingQuality(acceptEncoding, encoding[0]);
+
+                if (quality > bestQuality) {
+                    bestQuality = quality;
+                    sendInfo = variant;
+                    contentEncoding = encoding[0];
                 }
             }
+
+            if (hasVariants) {
+                request.getResponse().putHeader("Vary", "Accept-Encoding");
+            }
+
+            if (isNotModified(request, sendInfo)) {
+                log.d(" ... local file: " + file + " (not modified)");
+
+                request.getResponse().putHeader("ETag", sendInfo.getETag());
+                request.getResponse().putHeader("Last-Modified", sendInfo.getLastModifiedString());
+                request.getResponse().setStatusCode(304).end();
+                return null;
+            }
+
+            if (contentEncoding != null) {
+                log.d(" ... local file: " + sendInfo.getFile() + " (" + contentEncoding + ")");
+                return new FileResponse(sendInfo, info.getContentType(), contentEncoding);
+            }
+
+            log.d(" ... local file: " + file);
+            return new FileResponse(info);
         }
 
         return null;
@@ -0,0 +1,188 @@
+package io.github.notsyncing.cowherd.server;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 无状态 CSRF 令牌的生成及验证
+ * 令牌的格式为 base64url(过期时间 + 随机数).base64url(HMAC-SHA256 签名)，验证时只需重新计算签名并检查过期时间，
+ * 无需在服务器上保存已生成的令牌。一次性使用由 {@link ReplayFilter} 记录已使用的令牌实现。
+ */
+public class CSRFTokenSigner
+{
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int NONCE_LENGTH = 16;
+    private static final int PAYLOAD_LENGTH = 8 + NONCE_LENGTH;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final SecretKeySpec key;
+    private final long ttl;
+    private final ReplayFilter replayFilter;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * 实例化令牌签名器
+     * @param secret 签名密钥，为 null 或空时随机生成
+     * @param ttl 令牌的有效期，单位为毫秒
+     * @param replayBucketSize 记录已使用令牌的时间段长度，单位为毫秒
+     */
+    public CSRFTokenSigner(byte[] secret, long ttl, long replayBucketSize)
+    {
+        if ((secret == null) || (secret.length <= 0)) {
+            secret = new byte[32];
+            random.nextBytes(secret);
+        }
+
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.ttl = ttl;
+        this.replayFilter = new ReplayFilter(replayBucketSize);
+
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    private byte[] sign(byte[] payload)
+    {
+        return macs.get().doFinal(payload);
+    }
+
+    /**
+     * 生成一个新令牌
+     * @return 令牌
+     */
+    public String generate()
+    {
+        long expireTime = System.currentTimeMillis() + ttl;
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putLong(expireTime)
+                .put(nonce)
+                .array();
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    private byte[] decode(String token)
+    {
+        if (token == null) {
+            return null;
+        }
+
+        int i = token.indexOf('.');
+
+        if ((i <= 0) || (i != token.lastIndexOf('.'))) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(token.substring(0, i));
+            signature = decoder.decode(token.substring(i + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (payload.length != PAYLOAD_LENGTH) {
+            return null;
+        }
+
+        // 解码时会接受末尾的 = 并忽略最后一个字符中未使用的位，同一令牌可能有多种写法，只接受生成时的写法
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        if ((!encoder.encodeToString(payload).equals(token.substring(0, i)))
+                || (!encoder.encodeToString(signature).equals(token.substring(i + 1)))) {
+            return null;
+        }
+
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        return payload;
+    }
+
+    private static long getExpireTime(byte[] payload)
+    {
+        return ByteBuffer.wrap(payload).getLong();
+    }
+
+    private static String getReplayKey(byte[] payload)
+    {
+        // 以解码后的过期时间及随机数作为已使用令牌的标识，与令牌的字符串写法无关
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    /**
+     * 验证令牌的签名及有效期，并检查其是否已被使用，但不将其标记为已使用
+     * @param token 令牌
+     * @return 令牌是否有效
+     */
+    public boolean verify(String token)
+    {
+        byte[] payload = decode(token);
+
+        if (payload == null) {
+            return false;
+        }
+
+        long expireTime = getExpireTime(payload);
+
+        if (expireTime <= System.currentTimeMillis()) {
+            return false;
+        }
+
+        return !replayFilter.isUsed(getReplayKey(payload), expireTime);
+    }
+
+    /**
+     * 验证令牌，若有效，则将其标记为已使用，同一个令牌只能通过一次验证
+     * @param token 令牌
+     * @return 令牌是否有效
+     */
+    public boolean verifyAndConsume(String token)
+    {
+        byte[] payload = decode(token);
+
+        if (payload == null) {
+            return false;
+        }
+
+        long expireTime = getExpireTime(payload);
+        long now = System.currentTimeMillis();
+
+        if (expireTime <= now) {
+            return false;
+        }
+
+        return replayFilter.markUsed(getReplayKey(payload), expireTime, now);
+    }
+
+    /**
+     * 获取记录已使用令牌的记录器
+     * @return 已使用令牌的记录器
+     */
+    public ReplayFilter getReplayFilter()
+    {
+        return replayFilter;
+    }
+}
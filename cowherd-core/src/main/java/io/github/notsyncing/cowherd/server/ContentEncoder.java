@@ -0,0 +1,26 @@
+package io.github.notsyncing.cowherd.server;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+
+/**
+ * 响应内容编码器，用于以某种 Content-Encoding 压缩响应内容
+ * 内置 gzip 和 deflate 编码器，其他编码（如 br）可以通过 ResponseCompressor.registerEncoder 注册
+ */
+public interface ContentEncoder
+{
+    /**
+     * 获取编码的名称，即 Accept-Encoding 及 Content-Encoding 中使用的名称
+     * @return 编码的名称
+     */
+    String getName();
+
+    /**
+     * 压缩内容
+     * @param data 要压缩的内容
+     * @param level 压缩级别，取值 1 ~ 9
+     * @return 压缩后的内容
+     */
+    Buffer encode(Buffer data, int level) throws IOException;
+}
@@ -1,17 +1,20 @@
 package io.github.notsyncing.cowherd.server;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import io.github.notsyncing.cowherd.Cowherd;
+import io.github.notsyncing.cowherd.commons.CSRFConfig;
 import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.exceptions.AuthenticationFailedException;
 import io.github.notsyncing.cowherd.exceptions.FilterBreakException;
+import io.github.notsyncing.cowherd.exceptions.RequestBodyOversizeException;
 import io.github.notsyncing.cowherd.exceptions.ValidationFailedException;
 import io.github.notsyncing.cowherd.files.FileStorage;
+import io.github.notsyncing.cowherd.files.StaticFilePrecompressor;
 import io.github.notsyncing.cowherd.models.*;
 import io.github.notsyncing.cowherd.responses.ActionResponse;
 import io.github.notsyncing.cowherd.routing.RouteManager;
 import io.github.notsyncing.cowherd.service.ServiceManager;
+import io.github.notsyncing.cowherd.utils.ResponseUtils;
 import io.github.notsyncing.cowherd.utils.StringUtils;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
@@ -21,12 +24,12 @@ import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.impl.ConcurrentHashSet;
 
-import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -42,6 +45,7 @@ public class CowherdServer
     private CowherdLogger log = CowherdLogger.getInstance(this);
     private CowherdLogger accessLogger = CowherdLogger.getAccessLogger();
     private ConcurrentHashSet<CSRFToken> csrfTokens = new ConcurrentHashSet<>();
+    private volatile CSRFTokenSigner csrfTokenSigner;
 
     private Function<RequestDelegationInfo, CompletableFuture<RequestDelegationInfo>> requestDelegation;
     private Consumer<RequestDoneInfo> requestDoneListener;
@@ -70,26 +74,19 @@ public class CowherdServer
         this.requestDoneListener = requestDoneListener;
     }
 
-    public FileStorage getFileStorage()
+    public Vertx getVertx()
     {
-        return fileStorage;
+        return vertx;
     }
 
-    private void writeResponse(HttpServerResponse resp, byte[] data)
+    public FileStorage getFileStorage()
     {
-        resp.putHeader("Content-Length", String.valueOf(data.length));
-        resp.write(Buffer.buffer(data));
-        resp.end();
+        return fileStorage;
     }
 
-    private void writeResponse(HttpServerResponse resp, String data)
+    private void writeResponse(HttpServerRequest req, String data, Integer compressionLevel)
     {
-        try {
-            writeResponse(resp, data.getBytes("utf-8"));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-            writeResponse(resp, e.getMessage());
-        }
+        ResponseCompressor.end(req, ResponseUtils.stringToBuffer(data), compressionLevel);
     }
 
     private CompletableFuture<Void> processRequest(HttpServerRequest req)
@@ -188,6 +185,12 @@ public class CowherdServer
                 req.response().setStatusCode(400);
                 req.response().end();
 
+                logAccess(req, accessLog, reqTimeEnd[0] - reqTimeStart);
+                return null;
+            } else if (ex.getCause() instanceof RequestBodyOversizeException) {
+                req.response().setStatusCode(413);
+                req.response().end();
+
                 logAccess(req, accessLog, reqTimeEnd[0] - reqTimeStart);
                 return null;
             }
@@ -199,7 +202,7 @@ public class CowherdServer
             req.response().setStatusCode(500);
             req.response().setStatusMessage(ex.getMessage());
 
-            writeResponse(req.response(), data);
+            writeResponse(req, data, null);
             logAccess(req, accessLog, reqTimeEnd[0] - reqTimeStart);
             return null;
         }).thenAccept(r -> {
@@ -228,24 +231,28 @@ public class CowherdServer
     private void writeObjectToResponse(ActionContext context, ActionResult o)
     {
         HttpServerRequest req = context.getRequest();
+        Integer compressionLevel = context.getActionMethod() == null ? null
+                : context.getActionMethod().getPlan().getCompressionLevel();
 
         String ret;
 
         if (o.getResult() instanceof ActionResponse) {
+            ActionResponse actionResponse = (ActionResponse)o.getResult();
+
             try {
-                ((ActionResponse)o.getResult()).writeToResponse(context);
+                actionResponse.writeToResponse(context);
             } catch (Exception e) {
                 log.e("An exception was thrown when writing response to client: ", e);
                 req.response().setStatusCode(500);
                 req.response().setStatusMessage(e.getMessage());
             }
 
-            if (!req.response().ended()) {
+            if ((!req.response().ended()) && (!actionResponse.isStreaming())) {
                 req.response().end();
             }
         } else if (o.getResult() instanceof String) {
             ret = (String) o.getResult();
-            writeResponse(req.response(), ret);
+            writeResponse(req, ret, compressionLevel);
         } else if (o.getResult() instanceof Enum) {
             if (!req.response().headers().contains("Content-Type")) {
                 req.response().putHeader("Content-Type", "text/plain");
@@ -257,19 +264,21 @@ public class CowherdServer
                 ret = String.valueOf(((Enum) o.getResult()).ordinal());
             }
 
-            writeResponse(req.response(), ret);
+            writeResponse(req, ret, compressionLevel);
         } else {
+            Buffer data;
+
             if (context.getConfig().isEnumReturnsString()) {
-                ret = JSON.toJSONString(o.getResult(), SerializerFeature.WriteEnumUsingName);
+                data = ResponseUtils.objectToJsonBuffer(o.getResult(), SerializerFeature.WriteEnumUsingName);
             } else {
-                ret = JSON.toJSONString(o.getResult());
+                data = ResponseUtils.objectToJsonBuffer(o.getResult());
             }
 
             if (!req.response().headers().contains("Content-Type")) {
                 req.response().putHeader("Content-Type", "application/json");
             }
 
-            writeResponse(req.response(), ret);
+            ResponseCompressor.end(req, data, compressionLevel);
         }
     }
 
@@ -304,8 +313,33 @@ public class CowherdServer
             log.e("Failed to instantiate services!", e);
         }
 
+        if (CowherdConfiguration.isBundleClasspathAssets()) {
+            try {
+                RouteManager.loadClasspathAssetBundle();
+            } catch (Exception e) {
+                log.e("Failed to load classpath static files into memory!", e);
+            }
+        }
+
+        if (CowherdConfiguration.isFingerprintStaticFiles()) {
+            try {
+                RouteManager.loadAssetManifest();
+            } catch (Exception e) {
+                log.e("Failed to fingerprint static files!", e);
+            }
+        }
+
+        if (CowherdConfiguration.isPrecompressStaticFiles()) {
+            vertx.executeBlocking(f -> {
+                int count = StaticFilePrecompressor.precompress(CowherdConfiguration.getContextRoots());
+                log.i("Precompressed " + count + " static files.");
+                f.complete();
+            }, false, null);
+        }
+
         HttpServerOptions options = new HttpServerOptions()
-                .setCompressionSupported(CowherdConfiguration.isEnableCompression());
+                .setCompressionSupported(CowherdConfiguration.isEnableCompression())
+                .setCompressionLevel(CowherdConfiguration.getCompressionConfig().getLevel());
 
         int count = CowherdConfiguration.getWorkers();
 
@@ -348,6 +382,8 @@ public class CowherdServer
 
         csrfTokens.clear();
 
+        csrfTokenSigner = null;
+
         CompletableFuture f = new CompletableFuture();
         final int[] count = {0};
 
@@ -381,17 +417,77 @@ public class CowherdServer
         });
     }
 
+    private CSRFTokenSigner getCSRFTokenSigner()
+    {
+        CSRFConfig config = CowherdConfiguration.getCsrfConfig();
+
+        if ((config == null) || (!config.isStateless())) {
+            return null;
+        }
+
+        CSRFTokenSigner signer = csrfTokenSigner;
+
+        if (signer != null) {
+            return signer;
+        }
+
+        synchronized (this) {
+            if (csrfTokenSigner == null) {
+                byte[] secret = config.getSecret() != null ? config.getSecret().getBytes(StandardCharsets.UTF_8) : null;
+
+                csrfTokenSigner = new CSRFTokenSigner(secret, TimeUnit.SECONDS.toMillis(config.getTokenTtl()),
+                        TimeUnit.SECONDS.toMillis(config.getReplayBucketSize()));
+            }
+
+            return csrfTokenSigner;
+        }
+    }
+
+    private long getCSRFTokenTtl()
+    {
+        CSRFConfig config = CowherdConfiguration.getCsrfConfig();
+        return TimeUnit.SECONDS.toMillis(config != null ? config.getTokenTtl() : TimeUnit.DAYS.toSeconds(1));
+    }
+
+    /**
+     * 生成一个新的 CSRF 令牌
+     * 若启用了无状态的 CSRF 令牌，则生成带签名的令牌，不在服务器上保存，否则生成随机令牌并保存在服务器上
+     * @return 生成的 CSRF 令牌
+     */
+    public String generateCSRFToken() {
+        CSRFTokenSigner signer = getCSRFTokenSigner();
+
+        if (signer != null) {
+            return signer.generate();
+        }
+
+        String token = UUID.randomUUID().toString();
+        addCSRFToken(token);
+
+        return token;
+    }
+
     public void addCSRFToken(String token) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.DAY_OF_MONTH, 1);
-        csrfTokens.add(new CSRFToken(token, calendar.getTime()));
+        csrfTokens.add(new CSRFToken(token, new Date(System.currentTimeMillis() + getCSRFTokenTtl())));
     }
 
     public boolean checkAndRemoveCSRFToken(String token) {
+        CSRFTokenSigner signer = getCSRFTokenSigner();
+
+        if ((signer != null) && (signer.verifyAndConsume(token))) {
+            return true;
+        }
+
         return csrfTokens.remove(new CSRFToken(token));
     }
 
     public boolean checkCSRFToken(String token) {
+        CSRFTokenSigner signer = getCSRFTokenSigner();
+
+        if ((signer != null) && (signer.verify(token))) {
+            return true;
+        }
+
         return csrfTokens.contains(new CSRFToken(token));
     }
 }
@@ -11,12 +11,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FilterManager
 {
     static List<FilterInfo> globalFilters = new ArrayList<>();
     static Map<RouteInfo, FilterInfo> routedFilters = new ConcurrentHashMap<>();
     static Map<Class<? extends ServiceActionFilter>, FilterInfo> normalFilters = new ConcurrentHashMap<>();
+    private static AtomicInteger version = new AtomicInteger();
 
     private static CowherdLogger log = CowherdLogger.getInstance(FilterManager.class);
 
@@ -35,6 +37,15 @@ public class FilterManager
         return normalFilters;
     }
 
+    /**
+     * 获取过滤器注册表的版本号，每次添加过滤器后版本号都会改变
+     * @return 当前版本号
+     */
+    public static int getVersion()
+    {
+        return version.get();
+    }
+
     static FilterInfo createFilterInfo(Class<? extends ServiceActionFilter> filterClass)
     {
         FilterInfo info = new FilterInfo();
@@ -75,6 +86,7 @@ public class FilterManager
 
         FilterInfo info = createFilterInfo(filterClass);
         globalFilters.add(info);
+        version.incrementAndGet();
     }
 
     public static void addRoutedFilterClass(Class<? extends ServiceActionFilter> filterClass)
@@ -96,6 +108,7 @@ public class FilterManager
             }
 
             routedFilters.put(info, createFilterInfo(filterClass));
+            version.incrementAndGet();
         }
     }
 
@@ -103,6 +116,7 @@ public class FilterManager
     {
         FilterInfo info = createFilterInfo(filterClass);
         normalFilters.put(filterClass, info);
+        version.incrementAndGet();
     }
 
     public static boolean isFilterClassAdded(Class<? extends ServiceActionFilter> filterClass)
@@ -0,0 +1,101 @@
+package io.github.notsyncing.cowherd.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按时间分段记录已使用的一次性令牌
+ * 令牌按其过期时间放入对应的时间段，一个时间段内的令牌全部过期后，整个时间段被直接丢弃，无需逐个扫描令牌。
+ * 已过期的令牌本身就不再有效，因此丢弃其记录不会使其可以被重复使用。
+ */
+public class ReplayFilter
+{
+    private final long bucketSize;
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * 实例化记录器
+     * @param bucketSize 每个时间段的长度，单位为毫秒
+     */
+    public ReplayFilter(long bucketSize)
+    {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+        }
+
+        this.bucketSize = bucketSize;
+    }
+
+    private void expire(long now)
+    {
+        ConcurrentNavigableMap<Long, Set<String>> expired = buckets.headMap(now / bucketSize);
+
+        if (!expired.isEmpty()) {
+            expired.clear();
+        }
+    }
+
+    /**
+     * 记录一个令牌已被使用
+     * @param id 令牌的唯一标识
+     * @param expireTime 令牌的过期时间，单位为毫秒
+     * @param now 当前时间，单位为毫秒
+     * @return 若该令牌此前未被使用过，则返回 true，否则返回 false
+     */
+    public boolean markUsed(String id, long expireTime, long now)
+    {
+        expire(now);
+
+        long bucket = expireTime / bucketSize;
+
+        // 丢弃时间段与添加令牌并发时，令牌可能被加入已丢弃的集合中，但此时该令牌也已经过期
+        return buckets.computeIfAbsent(bucket, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    /**
+     * 判断一个令牌是否已被使用
+     * @param id 令牌的唯一标识
+     * @param expireTime 令牌的过期时间，单位为毫秒
+     * @return 该令牌是否已被使用
+     */
+    public boolean isUsed(String id, long expireTime)
+    {
+        Set<String> set = buckets.get(expireTime / bucketSize);
+        return (set != null) && (set.contains(id));
+    }
+
+    /**
+     * 获取当前记录的令牌数量
+     * @return 记录的令牌数量
+     */
+    public int size()
+    {
+        int count = 0;
+
+        for (Map.Entry<Long, Set<String>> e : buckets.entrySet()) {
+            count += e.getValue().size();
+        }
+
+        return count;
+    }
+
+    /**
+     * 获取当前保留的时间段数量
+     * @return 时间段数量
+     */
+    public int getBucketCount()
+    {
+        return buckets.size();
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void clear()
+    {
+        buckets.clear();
+    }
+}
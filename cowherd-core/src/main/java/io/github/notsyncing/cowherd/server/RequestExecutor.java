@@ -1,35 +1,35 @@
 package io.github.notsyncing.cowherd.server;
 
 import io.github.notsyncing.cowherd.Cowherd;
-import io.github.notsyncing.cowherd.annotations.ContentType;
-import io.github.notsyncing.cowherd.annotations.GenerateCSRFToken;
-import io.github.notsyncing.cowherd.annotations.ValidateCSRFToken;
 import io.github.notsyncing.cowherd.authentication.ActionAuthenticator;
-import io.github.notsyncing.cowherd.authentication.annotations.ServiceActionAuthenticator;
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.exceptions.AuthenticationFailedException;
 import io.github.notsyncing.cowherd.exceptions.FilterBreakException;
 import io.github.notsyncing.cowherd.exceptions.ValidationFailedException;
+import io.github.notsyncing.cowherd.files.FileStorage;
 import io.github.notsyncing.cowherd.models.*;
 import io.github.notsyncing.cowherd.service.ComponentInstantiateType;
 import io.github.notsyncing.cowherd.service.ServiceManager;
+import io.github.notsyncing.cowherd.utils.CookieUtils;
 import io.github.notsyncing.cowherd.utils.FutureUtils;
 import io.github.notsyncing.cowherd.utils.RequestUtils;
-import io.github.notsyncing.cowherd.utils.StringUtils;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.ServerWebSocket;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.HttpCookie;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class RequestExecutor
 {
+    private static final CompletableFuture<Object> COMPLETED_NULL = CompletableFuture.completedFuture(null);
+    private static final CompletableFuture<Boolean> AUTHENTICATED = CompletableFuture.completedFuture(true);
+
     private static CowherdLogger log = CowherdLogger.getInstance(RequestExecutor.class);
 
     @SuppressWarnings("unchecked")
@@ -39,24 +39,21 @@ public class RequestExecutor
                                                                          List<UploadFileInfo> uploads,
                                                                          Object... otherParams)
     {
-        Method requestedMethod = context.getActionMethod().getMethod();
+        ActionPlan plan = context.getActionMethod().getPlan();
         HttpServerRequest request = context.getRequest();
 
-        if (requestedMethod.isAnnotationPresent(ValidateCSRFToken.class)) {
-            boolean valid = false;
-
+        if (plan.isValidateCSRFToken()) {
             if (cookies == null) {
                 return FutureUtils.failed(new AuthenticationFailedException("Empty cookies when checking CSRF token!"));
             }
 
-            for (HttpCookie c : cookies) {
-                if (c.getName().equals("csrf-token")) {
-                    String csrfToken = c.getValue();
+            boolean valid = false;
 
-                    if (context.getServer().checkAndRemoveCSRFToken(csrfToken)) {
-                        valid = true;
-                        break;
-                    }
+            // 浏览器可能为不同的路径或域名发送多个同名的令牌，逐个检查
+            for (String csrfToken : CookieUtils.getCookieValues(cookies, "csrf-token")) {
+                if (context.getServer().checkAndRemoveCSRFToken(csrfToken)) {
+                    valid = true;
+                    break;
                 }
             }
 
@@ -65,35 +62,63 @@ public class RequestExecutor
             }
         }
 
-        try {
-            if (requestedMethod.isAnnotationPresent(ContentType.class)) {
-                String contentType = requestedMethod.getAnnotation(ContentType.class).value();
+        if (plan.getContentType() != null) {
+            request.response().putHeader("Content-Type", plan.getContentType());
+        }
 
-                if (!StringUtils.isEmpty(contentType)) {
-                    request.response().putHeader("Content-Type", contentType);
-                }
-            }
+        RequestBody body = context.getRequestBody();
+        CompletableFuture<Object[]> paramsChain;
 
-            Object[] targetParams;
+        // 写入临时文件的 JSON 请求体需要从文件中读取并反序列化，在工作线程中进行，不阻塞事件循环
+        if ((body != null) && (!body.isInMemory()) && (RequestUtils.isJsonRequest(request))
+                && (context.getActionMethod().getBinder().isJsonBodyBound()) && (context.getServer() != null)) {
+            paramsChain = new CompletableFuture<>();
 
+            CompletableFuture<Object[]> f = paramsChain;
+
+            context.getServer().getVertx().<Object[]>executeBlocking(h -> {
+                try {
+                    h.complete(RequestUtils.convertParameterListToMethodParameters(context, parameters, cookies,
+                            uploads, otherParams));
+                } catch (Exception e) {
+                    h.fail(e);
+                }
+            }, false, r -> {
+                if (r.succeeded()) {
+                    f.complete(r.result());
+                } else {
+                    f.completeExceptionally(r.cause());
+                }
+            });
+        } else {
             try {
-                targetParams = RequestUtils.convertParameterListToMethodParameters(context, parameters, cookies,
-                        uploads, otherParams);
-            } catch (ValidationFailedException e) {
+                paramsChain = CompletableFuture.completedFuture(RequestUtils.convertParameterListToMethodParameters(
+                        context, parameters, cookies, uploads, otherParams));
+            } catch (Exception e) {
                 return FutureUtils.failed(e);
             }
+        }
+
+        return FutureUtils.compose(paramsChain, targetParams -> invokeRequestedAction(context, targetParams));
+    }
 
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<ActionResult> invokeRequestedAction(ActionContext context, Object[] targetParams)
+    {
+        Method requestedMethod = context.getActionMethod().getMethod();
+        ActionPlan plan = context.getActionMethod().getPlan();
+        HttpServerRequest request = context.getRequest();
+
+        try {
             Object service = ServiceManager.getServiceInstance(requestedMethod.getDeclaringClass());
-            Object result = requestedMethod.invoke(service, targetParams);
+            Object result = context.getActionMethod().getInvoker().invoke(service, targetParams);
 
-            if (requestedMethod.isAnnotationPresent(GenerateCSRFToken.class)) {
-                String csrfToken = UUID.randomUUID().toString();
+            if (plan.isGenerateCSRFToken()) {
+                String csrfToken = context.getServer().generateCSRFToken();
 
                 HttpCookie csrfCookie = new HttpCookie("csrf-token", csrfToken);
                 csrfCookie.setMaxAge(-1);
 
-                context.getServer().addCSRFToken(csrfToken);
-
                 RequestUtils.putCookie(request, csrfCookie);
             }
 
@@ -132,7 +157,7 @@ public class RequestExecutor
             }
 
             Object service = ServiceManager.getServiceInstance(requestedMethod.getDeclaringClass());
-            Object result = requestedMethod.invoke(service, targetParams);
+            Object result = context.getActionMethod().getInvoker().invoke(service, targetParams);
 
             if (result instanceof CompletableFuture) {
                 return ((CompletableFuture)result).thenApply(r -> new WebSocketActionResult(context, null));
@@ -165,81 +190,152 @@ public class RequestExecutor
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> completedNull()
+    {
+        return (CompletableFuture<T>)COMPLETED_NULL;
+    }
+
     private static <T> CompletableFuture<T> executeFilters(List<FilterExecutionInfo> matchedFilters,
                                                              BiFunction<ServiceActionFilter, FilterContext, CompletableFuture<T>> filterFunc)
     {
+        if ((matchedFilters == null) || (matchedFilters.isEmpty())) {
+            return completedNull();
+        }
+
         CompletableFuture<T> filterChain = null;
 
-        if (matchedFilters != null) {
-            for (FilterExecutionInfo filterInfo : matchedFilters) {
-                ServiceActionFilter filter = filterInfo.getFilter().getFilterInstance();
+        for (int i = 0; i < matchedFilters.size(); i++) {
+            FilterExecutionInfo filterInfo = matchedFilters.get(i);
+            ServiceActionFilter filter = filterInfo.getFilter().getFilterInstance();
 
-                if (filterChain == null) {
-                    filterChain = filterFunc.apply(filter, filterInfo.getContext());
-                } else {
-                    final ServiceActionFilter finalFilter = filter;
-                    filterChain = filterChain.thenCompose(b -> {
-                        if (b instanceof Boolean) {
-                            if (!((Boolean)b)) {
-                                return FutureUtils.failed(new FilterBreakException());
-                            } else {
-                                return filterFunc.apply(finalFilter, filterInfo.getContext());
-                            }
-                        } else {
-                            return filterFunc.apply(finalFilter, filterInfo.getContext());
-                        }
-                    });
-                }
+            if (filterChain == null) {
+                filterChain = filterFunc.apply(filter, filterInfo.getContext());
+                continue;
+            }
+
+            if (!FutureUtils.isCompletedNormally(filterChain)) {
+                return composeFilters(filterChain, matchedFilters, i, filterFunc);
+            }
+
+            T b = filterChain.getNow(null);
+
+            if ((b instanceof Boolean) && (!((Boolean)b))) {
+                return FutureUtils.failed(new FilterBreakException());
+            }
+
+            try {
+                filterChain = filterFunc.apply(filter, filterInfo.getContext());
+            } catch (Exception e) {
+                return FutureUtils.failed(new CompletionException(e));
             }
         }
 
-        if (filterChain == null) {
-            filterChain = CompletableFuture.completedFuture(null);
+        return filterChain;
+    }
+
+    private static <T> CompletableFuture<T> composeFilters(CompletableFuture<T> filterChain,
+                                                             List<FilterExecutionInfo> matchedFilters, int start,
+                                                             BiFunction<ServiceActionFilter, FilterContext, CompletableFuture<T>> filterFunc)
+    {
+        for (int i = start; i < matchedFilters.size(); i++) {
+            FilterExecutionInfo filterInfo = matchedFilters.get(i);
+            final ServiceActionFilter finalFilter = filterInfo.getFilter().getFilterInstance();
+
+            filterChain = filterChain.thenCompose(b -> {
+                if (b instanceof Boolean) {
+                    if (!((Boolean)b)) {
+                        return FutureUtils.failed(new FilterBreakException());
+                    } else {
+                        return filterFunc.apply(finalFilter, filterInfo.getContext());
+                    }
+                } else {
+                    return filterFunc.apply(finalFilter, filterInfo.getContext());
+                }
+            });
         }
 
         return filterChain;
     }
 
-    private static CompletableFuture<Boolean> executeAuthenticators(Method m, FilterContext context)
+    private static CompletableFuture<Boolean> executeAuthenticators(ActionPlan plan, RequestContext req,
+                                                                    List<Pair<String, String>> additionalParams,
+                                                                    List<HttpCookie> cookies)
     {
-        if (m.getAnnotations() == null) {
-            return CompletableFuture.completedFuture(true);
+        ActionPlan.AuthenticatorInfo[] authenticators = plan.getAuthenticators();
+
+        if (authenticators.length <= 0) {
+            return AUTHENTICATED;
         }
 
-        List<Annotation> authAnnos = Stream.of(m.getAnnotations())
-                .filter(a -> a.annotationType().isAnnotationPresent(ServiceActionAuthenticator.class))
-                .collect(Collectors.toList());
+        ParameterList parameters = req.getParameters();
 
-        if (authAnnos.size() <= 0) {
-            return CompletableFuture.completedFuture(true);
+        if ((additionalParams != null) && (!additionalParams.isEmpty())) {
+            parameters = new ParameterList(parameters);
+            parameters.addAll(additionalParams);
         }
 
-        CompletableFuture<Boolean> f = null;
+        FilterContext context = new FilterContext();
+        context.setRequestCookies(cookies);
+        context.setRequest(req.getRequest());
+        context.setRequestUploads(req.getUploads());
+        context.setRequestParameters(parameters);
 
-        for (Annotation a : authAnnos) {
-            Class<? extends ActionAuthenticator> c = a.annotationType().getAnnotation(ServiceActionAuthenticator.class).value();
-            ActionAuthenticator authenticator;
+        for (int i = 0; i < authenticators.length; i++) {
+            CompletableFuture<Boolean> f;
 
             try {
-                authenticator = Cowherd.dependencyInjector.getComponent(c);
+                f = authenticate(authenticators[i], context);
             } catch (Exception e) {
-                log.e("Failed to get an instance of authenticator " + c, e);
                 return FutureUtils.failed(e);
             }
 
-            if (f == null) {
-                f = authenticator.authenticate(a, context);
-            } else {
-                f = f.thenCompose(b -> {
-                    if (!b) {
-                        return FutureUtils.failed(new AuthenticationFailedException());
-                    } else {
-                        return authenticator.authenticate(a, context);
-                    }
-                });
+            if (!FutureUtils.isCompletedNormally(f)) {
+                return composeAuthenticators(f, authenticators, i + 1, context);
+            }
+
+            if (!f.getNow(false)) {
+                return FutureUtils.failed(new AuthenticationFailedException());
             }
         }
 
+        return AUTHENTICATED;
+    }
+
+    private static CompletableFuture<Boolean> authenticate(ActionPlan.AuthenticatorInfo info, FilterContext context) throws Exception
+    {
+        ActionAuthenticator authenticator;
+
+        try {
+            authenticator = Cowherd.dependencyInjector.getComponent(info.getAuthenticatorClass());
+        } catch (Exception e) {
+            log.e("Failed to get an instance of authenticator " + info.getAuthenticatorClass(), e);
+            throw e;
+        }
+
+        return authenticator.authenticate(info.getAnnotation(), context);
+    }
+
+    private static CompletableFuture<Boolean> composeAuthenticators(CompletableFuture<Boolean> f,
+                                                                    ActionPlan.AuthenticatorInfo[] authenticators,
+                                                                    int start, FilterContext context)
+    {
+        for (int i = start; i < authenticators.length; i++) {
+            ActionPlan.AuthenticatorInfo info = authenticators[i];
+
+            f = f.thenCompose(b -> {
+                if (!b) {
+                    return FutureUtils.failed(new AuthenticationFailedException());
+                }
+
+                try {
+                    return authenticate(info, context);
+                } catch (Exception e) {
+                    return FutureUtils.failed(e);
+                }
+            });
+        }
+
         return f.thenCompose(b -> {
             if (!b) {
                 return FutureUtils.failed(new AuthenticationFailedException());
@@ -257,8 +353,9 @@ public class RequestExecutor
                                                                         Object... otherParams)
     {
         Method requestedAction = context.getActionMethod().getMethod();
+        ActionPlan plan = context.getActionMethod().getPlan();
 
-        if (!RequestUtils.checkIfHttpMethodIsAllowedOnAction(requestedAction, req.getMethod())) {
+        if (!plan.isHttpMethodAllowed(req.getMethod())) {
             req.getResponse()
                     .setStatusCode(403)
                     .setStatusMessage("Method " + req.getMethod() + " is not allowed on " + requestedAction.getName())
@@ -271,36 +368,69 @@ public class RequestExecutor
 
         CompletableFuture<Boolean> filterChain = executeFilters(matchedFilters, ServiceActionFilter::early);
 
-        return filterChain.thenCompose(b -> {
-            req.getParameters().addAll(additionalParams);
+        return FutureUtils.compose(filterChain, b -> {
+            List<HttpCookie> cookies = req.getCookies();
 
-            List<HttpCookie> cookies = RequestUtils.parseHttpCookies(req.getRequest());
-            final ActionResult[] result = new ActionResult[1];
+            CompletableFuture<Boolean> authChain = executeAuthenticators(plan, req, additionalParams, cookies);
 
-            FilterContext filterContext = new FilterContext();
-            filterContext.setRequestCookies(cookies);
-            filterContext.setRequest(req.getRequest());
-            filterContext.setRequestUploads(req.getUploads());
-            filterContext.setRequestParameters(req.getParameters());
+            long maxBodySize = plan.getMaxRequestBodySize() != null ? plan.getMaxRequestBodySize()
+                    : CowherdConfiguration.getMaxRequestBodySize();
 
-            return executeAuthenticators(requestedAction, filterContext)
-                    .thenCompose(ab -> executeFilters(matchedFilters, (f, c) -> {
-                        c.setRequest(req.getRequest());
-                        c.setRequestParameters(req.getParameters());
-                        c.setRequestUploads(req.getUploads());
-                        c.setRequestCookies(cookies);
-                        return f.before(c);
-                    }))
-                    .thenCompose(c -> executeRequestedAction(context, req.getParameters(), cookies, req.getUploads(),
-                            otherParams))
-                    .thenCompose(r -> {
-                        result[0] = r;
-
-                        return executeFilters(matchedFilters, (f, c) -> {
-                            c.setResult(r);
-                            return f.after(c);
-                        });
-                    }).thenApply(r -> r == null ? result[0] : r);
+            CompletableFuture<RequestContext> bodyChain = FutureUtils.compose(authChain, ab -> {
+                FileStorage storage = context.getServer() != null ? context.getServer().getFileStorage() : null;
+                Path uploadDir;
+
+                try {
+                    uploadDir = storage != null ? storage.getUploadDirectory() : null;
+                } catch (IOException e) {
+                    return FutureUtils.failed(e);
+                }
+
+                return RequestUtils.readRequestBody(req, maxBodySize, uploadDir);
+            });
+
+            CompletableFuture<RequestContext> bodyStringChain = FutureUtils.compose(bodyChain, body -> {
+                context.setRequestBody(req.getBody());
+
+                if ((req.getBody() == null) || (!context.getActionMethod().getBinder().isBodyRequired())) {
+                    return CompletableFuture.completedFuture(body);
+                }
+
+                // 写入临时文件的请求体通过异步文件系统读取，不阻塞事件循环
+                return req.getBody().asStringAsync(context.getServer().getVertx()).thenApply(s -> {
+                    req.getParameters().add(new Pair<>("__body__", s));
+                    return body;
+                });
+            });
+
+            CompletableFuture<Boolean> beforeChain = FutureUtils.compose(bodyStringChain, body -> {
+                req.getParameters().addAll(additionalParams);
+
+                return executeFilters(matchedFilters, (f, c) -> {
+                    c.setRequest(req.getRequest());
+                    c.setRequestParameters(req.getParameters());
+                    c.setRequestUploads(req.getUploads());
+                    c.setRequestCookies(cookies);
+                    return f.before(c);
+                });
+            });
+
+            CompletableFuture<ActionResult> actionChain = FutureUtils.compose(beforeChain,
+                    c -> executeRequestedAction(context, req.getParameters(), cookies, req.getUploads(), otherParams));
+
+            return FutureUtils.compose(actionChain, r -> {
+                CompletableFuture<ActionResult> afterChain = executeFilters(matchedFilters, (f, c) -> {
+                    c.setResult(r);
+                    return f.after(c);
+                });
+
+                if (FutureUtils.isCompletedNormally(afterChain)) {
+                    ActionResult ar = afterChain.getNow(null);
+                    return ar == null ? CompletableFuture.completedFuture(r) : afterChain;
+                }
+
+                return afterChain.thenApply(ar -> ar == null ? r : ar);
+            });
         });
     }
 
@@ -310,31 +440,29 @@ public class RequestExecutor
                                                                                  RequestContext req,
                                                                                  Object... otherParams)
     {
-        Method requestedAction = context.getActionMethod().getMethod();
+        ActionPlan plan = context.getActionMethod().getPlan();
 
         prepareFilters(matchedFilters);
 
         CompletableFuture<Boolean> filterChain = executeFilters(matchedFilters, ServiceActionFilter::early);
 
-        return filterChain.thenCompose(b -> {
+        return FutureUtils.compose(filterChain, b -> {
             req.getParameters().addAll(additionalParams);
 
-            List<HttpCookie> cookies = RequestUtils.parseHttpCookies(req.getRequest());
+            List<HttpCookie> cookies = req.getCookies();
 
-            FilterContext filterContext = new FilterContext();
-            filterContext.setRequestCookies(cookies);
-            filterContext.setRequest(req.getRequest());
-            filterContext.setRequestParameters(req.getParameters());
+            CompletableFuture<Boolean> authChain = executeAuthenticators(plan, req, null, cookies);
 
-            return executeAuthenticators(requestedAction, filterContext)
-                    .thenCompose(ab -> executeFilters(matchedFilters, (f, c) -> {
+            CompletableFuture<Boolean> beforeChain = FutureUtils.compose(authChain,
+                    ab -> executeFilters(matchedFilters, (f, c) -> {
                         c.setRequest(req.getRequest());
                         c.setRequestParameters(req.getParameters());
                         c.setRequestCookies(cookies);
                         return f.before(c);
-                    }))
-                    .thenCompose(c -> executeRequestedWebSocketAction(context, req.getParameters(), cookies,
-                            otherParams));
+                    }));
+
+            return FutureUtils.compose(beforeChain,
+                    c -> executeRequestedWebSocketAction(context, req.getParameters(), cookies, otherParams));
         });
     }
 }
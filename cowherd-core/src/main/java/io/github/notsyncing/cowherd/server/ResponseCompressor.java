@@ -0,0 +1,348 @@
+package io.github.notsyncing.cowherd.server;
+
+import io.github.notsyncing.cowherd.commons.CompressionConfig;
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.utils.RequestUtils;
+import io.github.notsyncing.cowherd.utils.ResponseUtils;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 响应压缩策略
+ * 根据响应的长度、内容类型及服务方法上指定的压缩级别决定是否压缩响应，并按客户端的 Accept-Encoding 选择编码。
+ * 服务方法的返回值在此处直接压缩，带有强 ETag 的返回值压缩后会以请求地址、内容类型及 ETag 为键缓存，相同内容的后续响应无需再次压缩。
+ * 文件等其他响应仍交由 HTTP 层压缩，但不符合压缩策略的响应会被标记为不压缩。
+ */
+public class ResponseCompressor
+{
+    private static final String IDENTITY = "identity";
+
+    private static CowherdLogger log = CowherdLogger.getInstance(ResponseCompressor.class);
+
+    private static final List<ContentEncoder> encoders = new CopyOnWriteArrayList<>();
+    private static final LinkedHashMap<String, Buffer> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedSize = 0;
+
+    static {
+        encoders.add(new GzipEncoder());
+        encoders.add(new DeflateEncoder());
+    }
+
+    private static class GzipEncoder implements ContentEncoder
+    {
+        @Override
+        public String getName()
+        {
+            return "gzip";
+        }
+
+        @Override
+        public Buffer encode(Buffer data, int level) throws IOException
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length() / 2));
+
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+                {
+                    def.setLevel(level);
+                }
+            }) {
+                gzip.write(data.getBytes());
+            }
+
+            return Buffer.buffer(Unpooled.wrappedBuffer(out.toByteArray()));
+        }
+    }
+
+    private static class DeflateEncoder implements ContentEncoder
+    {
+        @Override
+        public String getName()
+        {
+            return "deflate";
+        }
+
+        @Override
+        public Buffer encode(Buffer data, int level) throws IOException
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length() / 2));
+            Deflater deflater = new Deflater(level);
+
+            try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                deflate.write(data.getBytes());
+            } finally {
+                deflater.end();
+            }
+
+            return Buffer.buffer(Unpooled.wrappedBuffer(out.toByteArray()));
+        }
+    }
+
+    /**
+     * 注册一个内容编码器，已存在同名编码器的将被替换
+     * 后注册的编码器在客户端对多个编码给出相同权重时优先使用，因此可以注册 br 编码器使其优先于内置的 gzip
+     * @param encoder 要注册的编码器
+     */
+    public static void registerEncoder(ContentEncoder encoder)
+    {
+        unregisterEncoder(encoder.getName());
+        encoders.add(0, encoder);
+    }
+
+    /**
+     * 移除一个内容编码器
+     * @param name 编码的名称
+     */
+    public static void unregisterEncoder(String name)
+    {
+        encoders.removeIf(e -> e.getName().equalsIgnoreCase(name));
+    }
+
+    /**
+     * 按客户端的 Accept-Encoding 选择编码器
+     * @param acceptEncoding 请求的 Accept-Encoding 头
+     * @return 权重最高的可用编码器，若客户端不接受任何可用的编码，则返回 null
+     */
+    public static ContentEncoder selectEncoder(String acceptEncoding)
+    {
+        ContentEncoder selected = null;
+        double selectedQuality = 0;
+
+        for (ContentEncoder encoder : encoders) {
+            double q = RequestUtils.getAcceptedEncodingQuality(acceptEncoding, encoder.getName());
+
+            if (q > selectedQuality) {
+                selected = encoder;
+                selectedQuality = q;
+            }
+        }
+
+        return selected;
+    }
+
+    private static boolean matchContentType(String pattern, String type)
+    {
+        if (pattern.equals("*/*")) {
+            return true;
+        }
+
+        if (pattern.endsWith("/*")) {
+            return type.startsWith(pattern.substring(0, pattern.length() - 1).toLowerCase());
+        }
+
+        return pattern.equalsIgnoreCase(type);
+    }
+
+    /**
+     * 判断内容类型是否允许压缩
+     * 精确匹配允许列表的内容类型总是允许压缩，其次匹配禁止列表的不压缩，最后若允许列表为空或匹配允许列表，则允许压缩
+     * @param contentType 内容类型，可以带有参数，为 null 时视为允许压缩
+     * @return 是否允许压缩
+     */
+    public static boolean isCompressibleType(String contentType)
+    {
+        if (contentType == null) {
+            return true;
+        }
+
+        CompressionConfig config = CowherdConfiguration.getCompressionConfig();
+        int i = contentType.indexOf(';');
+        String type = (i >= 0 ? contentType.substring(0, i) : contentType).trim().toLowerCase();
+        List<String> allows = config.getAllowContentTypes();
+        List<String> denies = config.getDenyContentTypes();
+
+        if ((allows != null) && (allows.stream().anyMatch(type::equalsIgnoreCase))) {
+            return true;
+        }
+
+        if ((denies != null) && (denies.stream().anyMatch(p -> matchContentType(p, type)))) {
+            return false;
+        }
+
+        return (allows == null) || (allows.isEmpty()) || (allows.stream().anyMatch(p -> matchContentType(p, type)));
+    }
+
+    /**
+     * 判断响应是否符合压缩策略
+     * @param contentType 内容类型
+     * @param length 内容长度，小于 0 表示长度未知
+     * @return 是否应当压缩
+     */
+    public static boolean isCompressible(String contentType, long length)
+    {
+        if (!CowherdConfiguration.isEnableCompression()) {
+            return false;
+        }
+
+        if ((length >= 0) && (length < CowherdConfiguration.getCompressionConfig().getMinSize())) {
+            return false;
+        }
+
+        return isCompressibleType(contentType);
+    }
+
+    /**
+     * 禁止 HTTP 层压缩当前响应，已设置 Content-Encoding 的响应不受影响
+     * 仅在客户端接受 HTTP 层所用的 gzip 或 deflate 编码时才需要标记，其他请求的响应头保持不变
+     * @param req 请求
+     */
+    public static void disableHttpCompression(HttpServerRequest req)
+    {
+        HttpServerResponse resp = req.response();
+
+        if ((!CowherdConfiguration.isEnableCompression()) || (resp.headers().contains("Content-Encoding"))) {
+            return;
+        }
+
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+
+        if ((RequestUtils.getAcceptedEncodingQuality(acceptEncoding, "gzip") > 0)
+                || (RequestUtils.getAcceptedEncodingQuality(acceptEncoding, "deflate") > 0)) {
+            resp.putHeader("Content-Encoding", IDENTITY);
+        }
+    }
+
+    /**
+     * 对交由 HTTP 层压缩的响应（如文件）应用压缩策略，不符合策略的响应将不被压缩
+     * @param req 请求
+     * @param contentType 内容类型
+     * @param length 内容长度，小于 0 表示长度未知
+     */
+    public static void applyPolicy(HttpServerRequest req, String contentType, long length)
+    {
+        if (!isCompressible(contentType, length)) {
+            disableHttpCompression(req);
+        }
+    }
+
+    /**
+     * 按压缩策略压缩内容并结束响应
+     * @param req 请求
+     * @param data 要发送的内容
+     * @param level 服务方法上指定的压缩级别，为 null 表示使用全局配置，0 表示不压缩
+     */
+    public static void end(HttpServerRequest req, Buffer data, Integer level)
+    {
+        HttpServerResponse resp = req.response();
+
+        if ((!CowherdConfiguration.isEnableCompression()) || (resp.headers().contains("Content-Encoding"))) {
+            ResponseUtils.endWithBuffer(resp, data);
+            return;
+        }
+
+        if (((level != null) && (level <= 0)) || (!isCompressible(resp.headers().get("Content-Type"), data.length()))) {
+            disableHttpCompression(req);
+            ResponseUtils.endWithBuffer(resp, data);
+            return;
+        }
+
+        resp.putHeader("Vary", "Accept-Encoding");
+
+        ContentEncoder encoder = selectEncoder(req.getHeader("Accept-Encoding"));
+
+        if (encoder == null) {
+            disableHttpCompression(req);
+            ResponseUtils.endWithBuffer(resp, data);
+            return;
+        }
+
+        int l = Math.min(9, level != null ? level : CowherdConfiguration.getCompressionConfig().getLevel());
+        Buffer compressed;
+
+        try {
+            compressed = compress(req, encoder, data, l);
+        } catch (IOException e) {
+            log.e("Failed to compress response with " + encoder.getName(), e);
+
+            disableHttpCompression(req);
+            ResponseUtils.endWithBuffer(resp, data);
+            return;
+        }
+
+        resp.putHeader("Content-Encoding", encoder.getName());
+        ResponseUtils.endWithBuffer(resp, compressed);
+    }
+
+    private static Buffer compress(HttpServerRequest req, ContentEncoder encoder, Buffer data, int level)
+            throws IOException
+    {
+        long maxCacheSize = CowherdConfiguration.getCompressionConfig().getCacheSize();
+        String etag = req.response().headers().get("ETag");
+
+        // 弱 ETag 不保证内容逐字节相同，不能用作缓存的键
+        if ((etag == null) || (etag.startsWith("W/")) || (maxCacheSize <= 0)) {
+            return encoder.encode(data, level);
+        }
+
+        // ETag 只在同一资源内唯一，不同地址的响应可能带有相同的 ETag，因此键中需包含请求地址及内容类型
+        String key = req.method() + " " + req.uri() + " " + req.response().headers().get("Content-Type") + " "
+                + etag + " " + encoder.getName() + " " + level;
+
+        synchronized (cache) {
+            Buffer cached = cache.get(key);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Buffer compressed = encoder.encode(data, level);
+
+        if (compressed.length() > maxCacheSize) {
+            return compressed;
+        }
+
+        synchronized (cache) {
+            Buffer old = cache.put(key, compressed);
+
+            if (old != null) {
+                cachedSize -= old.length();
+            }
+
+            cachedSize += compressed.length();
+
+            Iterator<Map.Entry<String, Buffer>> iter = cache.entrySet().iterator();
+
+            while ((cachedSize > maxCacheSize) && (iter.hasNext())) {
+                cachedSize -= iter.next().getValue().length();
+                iter.remove();
+            }
+        }
+
+        return compressed;
+    }
+
+    /**
+     * 获取压缩结果缓存中的条目数量
+     * @return 缓存的条目数量
+     */
+    public static int getCachedCount()
+    {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * 清空压缩结果缓存
+     */
+    public static void clearCache()
+    {
+        synchronized (cache) {
+            cache.clear();
+            cachedSize = 0;
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package io.github.notsyncing.cowherd.service;
 
+import com.alibaba.fastjson.JSON;
 import io.github.notsyncing.cowherd.annotations.AsEnum;
 import io.github.notsyncing.cowherd.annotations.ContentType;
 import io.github.notsyncing.cowherd.annotations.Exported;
 import io.github.notsyncing.cowherd.annotations.ExposeAsEnum;
 import io.github.notsyncing.cowherd.annotations.httpmethods.HttpAnyMethod;
 import io.github.notsyncing.cowherd.annotations.httpmethods.HttpGet;
+import io.github.notsyncing.cowherd.files.AssetManifest;
 import io.github.notsyncing.cowherd.models.ActionContext;
 import io.github.notsyncing.cowherd.models.CowherdServiceInfo;
 import io.github.notsyncing.cowherd.models.Pair;
 import io.github.notsyncing.cowherd.models.UploadFileInfo;
+import io.github.notsyncing.cowherd.routing.RouteManager;
 import io.github.notsyncing.cowherd.utils.RequestUtils;
 import io.github.notsyncing.cowherd.utils.RouteUtils;
 import io.github.notsyncing.cowherd.utils.StringUtils;
@@ -107,6 +110,12 @@ public class CowherdAPIService extends CowherdService
                 "   __HTTP__.ajax = MagicForm.ajax;\n" +
                 "}\n";
 
+        AssetManifest assetManifest = RouteManager.getAssetManifest();
+
+        if (assetManifest.size() > 0) {
+            js += "window.CowherdAssets = " + JSON.toJSONString(assetManifest.getUrls()) + ";\n";
+        }
+
         Set<Class<?>> generatedEnumClasses = new HashSet<>();
 
         for (CowherdServiceInfo info : ServiceManager.getServices()) {
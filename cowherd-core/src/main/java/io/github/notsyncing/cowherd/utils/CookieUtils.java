@@ -1,9 +1,12 @@
 package io.github.notsyncing.cowherd.utils;
 
+import io.github.notsyncing.cowherd.models.RequestCookies;
+
 import java.net.HttpCookie;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class CookieUtils
 {
@@ -45,26 +48,135 @@ public class CookieUtils
         return b.toString();
     }
 
+    /**
+     * 逐个解析请求中 Cookie 头的名称和值，不分割字符串，也不创建 HttpCookie 对象
+     * 没有 = 或值为空的项将被忽略
+     * @param cookies Cookie 头
+     * @param consumer 接收每个 Cookie 的名称和值
+     */
+    public static void parseServerCookies(String cookies, BiConsumer<String, String> consumer)
+    {
+        int length = cookies.length();
+        int start = 0;
+
+        while (start < length) {
+            int end = cookies.indexOf(';', start);
+
+            if (end < 0) {
+                end = length;
+            }
+
+            int eq = cookies.indexOf('=', start);
+
+            if ((eq > start) && (eq < end)) {
+                int nameStart = skipSpaces(cookies, start, eq);
+                int nameEnd = trimSpaces(cookies, nameStart, eq);
+                int valueStart = skipSpaces(cookies, eq + 1, end);
+                int valueEnd = trimSpaces(cookies, valueStart, end);
+
+                if ((nameStart < nameEnd) && (valueStart < valueEnd)) {
+                    consumer.accept(cookies.substring(nameStart, nameEnd), cookies.substring(valueStart, valueEnd));
+                }
+            }
+
+            start = end + 1;
+        }
+    }
+
+    private static int skipSpaces(String s, int start, int end)
+    {
+        while ((start < end) && (Character.isWhitespace(s.charAt(start)))) {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static int trimSpaces(String s, int start, int end)
+    {
+        while ((end > start) && (Character.isWhitespace(s.charAt(end - 1)))) {
+            end--;
+        }
+
+        return end;
+    }
+
     public static List<HttpCookie> parseServerCookies(String cookies)
     {
         List<HttpCookie> list = new ArrayList<>();
-        String[] cookiePairs = cookies.split(";");
+        parseServerCookies(cookies, (name, value) -> list.add(new HttpCookie(name, value)));
+
+        return list;
+    }
 
-        if (cookiePairs.length <= 0) {
-            return list;
+    /**
+     * 在 Cookie 列表中查找指定名称的 Cookie
+     * 若列表为请求的 Cookie 视图，则通过其索引查找，只创建找到的 Cookie 对象
+     * @param cookies Cookie 列表
+     * @param name Cookie 名称
+     * @return 第一个具有该名称的 Cookie，若不存在，则返回 null
+     */
+    public static HttpCookie findCookie(List<HttpCookie> cookies, String name)
+    {
+        if (cookies == null) {
+            return null;
         }
 
-        for (String cp : cookiePairs) {
-            String[] nv = cp.split("=");
+        if (cookies instanceof RequestCookies) {
+            return ((RequestCookies) cookies).getCookie(name);
+        }
 
-            if (nv.length <= 1) {
-                continue;
+        for (HttpCookie c : cookies) {
+            if (c.getName().equals(name)) {
+                return c;
             }
+        }
+
+        return null;
+    }
 
-            HttpCookie cookie = new HttpCookie(nv[0].trim(), nv[1].trim());
-            list.add(cookie);
+    /**
+     * 在 Cookie 列表中查找指定名称的 Cookie 的值
+     * 若列表为请求的 Cookie 视图，则直接通过其索引查找，不创建 Cookie 对象
+     * @param cookies Cookie 列表
+     * @param name Cookie 名称
+     * @return 第一个具有该名称的 Cookie 的值，若不存在，则返回 null
+     */
+    public static String getCookieValue(List<HttpCookie> cookies, String name)
+    {
+        if (cookies instanceof RequestCookies) {
+            return ((RequestCookies) cookies).getValue(name);
         }
 
-        return list;
+        HttpCookie c = findCookie(cookies, name);
+        return c != null ? c.getValue() : null;
+    }
+
+    /**
+     * 按出现顺序获取 Cookie 列表中指定名称的所有 Cookie 的值
+     * 若列表为请求的 Cookie 视图，则直接通过其索引查找，不创建 Cookie 对象
+     * @param cookies Cookie 列表
+     * @param name Cookie 名称
+     * @return Cookie 的值列表，若不存在，则返回空列表
+     */
+    public static List<String> getCookieValues(List<HttpCookie> cookies, String name)
+    {
+        if (cookies == null) {
+            return Collections.emptyList();
+        }
+
+        if (cookies instanceof RequestCookies) {
+            return ((RequestCookies) cookies).getValues(name);
+        }
+
+        List<String> values = new ArrayList<>();
+
+        for (HttpCookie c : cookies) {
+            if (c.getName().equals(name)) {
+                values.add(c.getValue());
+            }
+        }
+
+        return values;
     }
 }
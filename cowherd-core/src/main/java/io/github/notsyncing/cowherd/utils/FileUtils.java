@@ -5,6 +5,9 @@ import io.vertx.core.streams.WriteStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class FileUtils
 {
@@ -43,4 +46,24 @@ public class FileUtils
 
         return null;
     }
+
+    /**
+     * 获取文件的内容类型，依次尝试系统探测、按文件名猜测
+     * @param file 文件
+     * @return 文件的内容类型，若无法判断，则返回 null
+     */
+    public static String getContentType(Path file) throws IOException
+    {
+        String contentType = Files.probeContentType(file);
+
+        if (contentType == null) {
+            contentType = URLConnection.guessContentTypeFromName(file.getFileName().toString());
+
+            if (contentType == null) {
+                contentType = guessContentType(file.getFileName().toString());
+            }
+        }
+
+        return contentType;
+    }
 }
@@ -1,6 +1,9 @@
 package io.github.notsyncing.cowherd.utils;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 public class FutureUtils
 {
@@ -10,4 +13,32 @@ public class FutureUtils
         f.completeExceptionally(e);
         return f;
     }
+
+    public static boolean isCompletedNormally(CompletableFuture<?> f)
+    {
+        return (f.isDone()) && (!f.isCompletedExceptionally());
+    }
+
+    /**
+     * 与 {@link CompletableFuture#thenCompose(Function)} 相同，但若 f 已正常完成，则直接在当前线程调用 fn，
+     * 不再创建中间的 CompletableFuture
+     * @param f 前一阶段
+     * @param fn 下一阶段
+     * @return 下一阶段的结果
+     */
+    public static <T, U> CompletableFuture<U> compose(CompletableFuture<T> f,
+                                                      Function<? super T, ? extends CompletionStage<U>> fn)
+    {
+        if (!isCompletedNormally(f)) {
+            return f.thenCompose(fn);
+        }
+
+        try {
+            return fn.apply(f.getNow(null)).toCompletableFuture();
+        } catch (CompletionException e) {
+            return failed(e);
+        } catch (Throwable e) {
+            return failed(new CompletionException(e));
+        }
+    }
 }
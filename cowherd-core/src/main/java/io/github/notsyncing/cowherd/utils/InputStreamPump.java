@@ -0,0 +1,149 @@
+package io.github.notsyncing.cowherd.utils;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 将输入流异步发送到写入流
+ * 读取输入流在 vert.x 的工作线程中进行，写入流的写入队列满时暂停读取，直到写入队列被清空，
+ * 因此每次传输在内存中缓存的内容不会超过写入队列的最大长度加上一次读取的长度
+ */
+public class InputStreamPump
+{
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    private final Vertx vertx;
+    private final InputStream input;
+    private final WriteStream<Buffer> output;
+    private final int chunkSize;
+    private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+    private long skip;
+    private long remaining;
+    private long written;
+    private volatile boolean cancelled;
+
+    /**
+     * 实例化输入流发送器
+     * @param vertx 用于执行读取操作的 vert.x 实例
+     * @param input 要发送的输入流
+     * @param skip 要跳过的长度
+     * @param length 要发送的长度，小于 0 表示发送到输入流结束
+     * @param output 写入流
+     * @param maxBufferSize 在内存中缓存的最大长度
+     */
+    public InputStreamPump(Vertx vertx, InputStream input, long skip, long length, WriteStream<Buffer> output,
+                           int maxBufferSize)
+    {
+        this.vertx = vertx;
+        this.input = input;
+        this.skip = skip;
+        this.remaining = length < 0 ? Long.MAX_VALUE : length;
+        this.output = output;
+        this.chunkSize = Math.max(1, Math.min(MAX_CHUNK_SIZE, maxBufferSize / 2));
+
+        output.setWriteQueueMaxSize(Math.max(1, maxBufferSize - chunkSize));
+    }
+
+    /**
+     * 开始发送
+     * @return 发送完成时返回实际发送的长度，输入流不会被关闭，写入流也不会被结束
+     */
+    public CompletableFuture<Long> start()
+    {
+        output.exceptionHandler(this::fail);
+
+        readNext();
+
+        return future;
+    }
+
+    /**
+     * 取消发送，例如客户端断开连接时
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    private void fail(Throwable ex)
+    {
+        cancelled = true;
+        future.completeExceptionally(ex);
+    }
+
+    private void readNext()
+    {
+        if (cancelled) {
+            future.completeExceptionally(new IOException("Stream transfer was cancelled"));
+            return;
+        }
+
+        if (remaining <= 0) {
+            future.complete(written);
+            return;
+        }
+
+        int toRead = (int) Math.min(chunkSize, remaining);
+
+        vertx.<Buffer>executeBlocking(f -> {
+            try {
+                if (skip > 0) {
+                    long s = input.skip(skip);
+
+                    if (s <= 0) {
+                        f.complete(null);
+                        return;
+                    }
+
+                    skip -= s;
+                    f.complete(Buffer.buffer());
+                    return;
+                }
+
+                byte[] data = new byte[toRead];
+                int l = input.read(data);
+
+                f.complete(l < 0 ? null : Buffer.buffer(Unpooled.wrappedBuffer(data, 0, l)));
+            } catch (Exception e) {
+                f.fail(e);
+            }
+        }, false, r -> {
+            if (r.failed()) {
+                fail(r.cause());
+                return;
+            }
+
+            Buffer data = r.result();
+
+            if (data == null) {
+                future.complete(written);
+                return;
+            }
+
+            if (data.length() > 0) {
+                if (cancelled) {
+                    readNext();
+                    return;
+                }
+
+                output.write(data);
+                written += data.length();
+                remaining -= data.length();
+
+                if (output.writeQueueFull()) {
+                    output.drainHandler(v -> readNext());
+                    return;
+                }
+            }
+
+            readNext();
+        });
+    }
+}
@@ -0,0 +1,205 @@
+package io.github.notsyncing.cowherd.utils;
+
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.exceptions.RequestBodyOversizeException;
+import io.github.notsyncing.cowherd.models.RequestBody;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.io.File;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 接收请求体，超过长度限制时失败，超过内存阈值时转存到临时文件
+ */
+class RequestBodyReceiver
+{
+    private final HttpServerRequest request;
+    private final long maxSize;
+    private final long memoryThreshold;
+    private final boolean store;
+    private final CompletableFuture<RequestBody> future = new CompletableFuture<>();
+
+    private Buffer buffer = Buffer.buffer();
+    private File file;
+    private AsyncFile asyncFile;
+    private boolean opening;
+    private boolean ended;
+    private long length;
+
+    /**
+     * @param request 请求
+     * @param maxSize 请求体的最大长度，小于等于 0 表示不限制
+     * @param memoryThreshold 请求体在内存中缓存的最大长度，小于 0 表示不转存
+     * @param store 是否保存请求体，若为 false，则只检查长度
+     */
+    RequestBodyReceiver(HttpServerRequest request, long maxSize, long memoryThreshold, boolean store)
+    {
+        this.request = request;
+        this.maxSize = maxSize;
+        this.memoryThreshold = memoryThreshold;
+        this.store = store;
+    }
+
+    CompletableFuture<RequestBody> getFuture()
+    {
+        return future;
+    }
+
+    /**
+     * 根据 Content-Length 检查请求体是否必然超过长度限制
+     * @return 若超过，则返回 true，此时接收器已失败
+     */
+    boolean rejectByContentLength()
+    {
+        if (maxSize <= 0) {
+            return false;
+        }
+
+        String contentLength = request.getHeader("Content-Length");
+
+        if (contentLength == null) {
+            return false;
+        }
+
+        try {
+            if (Long.parseLong(contentLength.trim()) <= maxSize) {
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        fail(new RequestBodyOversizeException(maxSize));
+        return true;
+    }
+
+    void handle(Buffer data)
+    {
+        if (future.isDone()) {
+            return;
+        }
+
+        length += data.length();
+
+        if ((maxSize > 0) && (length > maxSize)) {
+            fail(new RequestBodyOversizeException(maxSize));
+            return;
+        }
+
+        if (!store) {
+            return;
+        }
+
+        if (asyncFile != null) {
+            asyncFile.write(data);
+
+            if (asyncFile.writeQueueFull()) {
+                request.pause();
+                asyncFile.drainHandler(v -> request.resume());
+            }
+
+            return;
+        }
+
+        buffer.appendBuffer(data);
+
+        if ((!opening) && (memoryThreshold >= 0) && (length > memoryThreshold)) {
+            spill();
+        }
+    }
+
+    void end()
+    {
+        ended = true;
+
+        if ((future.isDone()) || (opening)) {
+            return;
+        }
+
+        finish();
+    }
+
+    private void spill()
+    {
+        opening = true;
+        request.pause();
+
+        try {
+            file = new File(CowherdConfiguration.getUploadCacheDir().toFile(), UUID.randomUUID().toString());
+        } catch (Exception e) {
+            opening = false;
+            fail(e);
+            return;
+        }
+
+        OpenOptions options = new OpenOptions().setWrite(true).setCreate(true).setTruncateExisting(true);
+
+        Vertx.currentContext().owner().fileSystem().open(file.getAbsolutePath(), options, r -> {
+            opening = false;
+
+            if (r.failed()) {
+                file.delete();
+                fail(r.cause());
+                return;
+            }
+
+            asyncFile = r.result();
+
+            if (future.isDone()) {
+                asyncFile.close(c -> file.delete());
+                return;
+            }
+
+            asyncFile.write(buffer);
+            buffer = null;
+
+            if (ended) {
+                finish();
+            } else if (asyncFile.writeQueueFull()) {
+                asyncFile.drainHandler(v -> request.resume());
+            } else {
+                request.resume();
+            }
+        });
+    }
+
+    private void finish()
+    {
+        if (!store) {
+            future.complete(null);
+        } else if (asyncFile == null) {
+            future.complete(new RequestBody(buffer));
+        } else {
+            asyncFile.close(r -> {
+                if (r.failed()) {
+                    file.delete();
+                    future.completeExceptionally(r.cause());
+                } else {
+                    future.complete(new RequestBody(file, length));
+                }
+            });
+        }
+    }
+
+    private void fail(Throwable ex)
+    {
+        if (!future.completeExceptionally(ex)) {
+            return;
+        }
+
+        buffer = null;
+
+        if (asyncFile != null) {
+            asyncFile.close(r -> file.delete());
+        }
+
+        if (!request.isEnded()) {
+            request.resume();
+        }
+    }
+}
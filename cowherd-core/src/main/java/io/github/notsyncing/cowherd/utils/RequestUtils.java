@@ -7,38 +7,35 @@ import com.alibaba.fastjson.parser.ParserConfig;
 import io.github.notsyncing.cowherd.annotations.httpmethods.*;
 import io.github.notsyncing.cowherd.commons.AlternativeCookieHeaderConfig;
 import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
-import io.github.notsyncing.cowherd.commons.ParameterParseType;
 import io.github.notsyncing.cowherd.exceptions.ParameterProcessException;
+import io.github.notsyncing.cowherd.exceptions.RequestBodyOversizeException;
 import io.github.notsyncing.cowherd.exceptions.UploadOversizeException;
 import io.github.notsyncing.cowherd.exceptions.ValidationFailedException;
 import io.github.notsyncing.cowherd.models.*;
 import io.github.notsyncing.cowherd.server.CowherdLogger;
 import io.github.notsyncing.cowherd.utils.deserializers.Jdk8NullableDateCodec;
 import io.github.notsyncing.cowherd.validators.ParameterValidator;
-import io.github.notsyncing.cowherd.validators.annotations.ServiceActionParameterValidator;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServerRequest;
-import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 
 import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.net.HttpCookie;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static io.github.notsyncing.cowherd.utils.CookieUtils.parseServerCookies;
 
 public class RequestUtils
 {
-    private static Map<Class<? extends ParameterValidator>, ParameterValidator> parameterValidators = new ConcurrentHashMap<>();
 
     static {
         ParserConfig.getGlobalInstance().putDeserializer(LocalDateTime.class, new Jdk8NullableDateCodec());
@@ -116,177 +113,18 @@ public class RequestUtils
         return param.getName();
     }
 
-    private static ParameterParseType getParameterParseType(Parameter param) {
-        if (!param.isAnnotationPresent(io.github.notsyncing.cowherd.annotations.Parameter.class)) {
-            return ParameterParseType.Normal;
-        }
-
-        return param.getAnnotation(io.github.notsyncing.cowherd.annotations.Parameter.class).parseType();
-    }
-
     public static Object[] convertParameterListToMethodParameters(ActionContext context,
                                                                   List<Pair<String, String>> params,
                                                                   List<HttpCookie> cookies,
                                                                   List<UploadFileInfo> uploads,
                                                                   Object... otherParameters) throws IllegalAccessException, InstantiationException, ValidationFailedException, ParameterProcessException {
-        Method method = context.getActionMethod().getMethod();
-        HttpServerRequest req = context.getRequest();
-
-        Parameter[] pl = method.getParameters();
+        Object[] targetParams = context.getActionMethod().getBinder().bind(context, params, cookies, uploads,
+                otherParameters);
 
-        if ((pl == null) || (pl.length <= 0)) {
+        if (targetParams == null) {
             return null;
         }
 
-        Object[] targetParams = new Object[pl.length];
-        List<Parameter> methodParams = Arrays.asList(pl);
-        Map<String, Parameter> methodParamMap = new HashMap<>();
-
-        for (int i = 0; i < methodParams.size(); i++) {
-            Parameter p = methodParams.get(i);
-            methodParamMap.put(RequestUtils.getParameterName(method, p, i), p);
-        }
-
-        JSONObject jsonParams = null;
-        String bodyParam = null;
-        List<Pair<String, String>> complexParamPairs = new ArrayList<>();
-
-        for (Pair<String, String> reqParam : params) {
-            try {
-                if (reqParam.getKey().equals("__json__")) {
-                    jsonParams = JSON.parseObject(reqParam.getValue());
-                } else if (reqParam.getKey().equals("__body__")) {
-                    bodyParam = reqParam.getValue();
-                }
-
-                if ((reqParam.getKey().contains(".")) || (reqParam.getKey().contains("["))) {
-                    complexParamPairs.add(reqParam);
-                    continue;
-                }
-
-                if (!methodParamMap.containsKey(reqParam.getKey())) {
-                    continue;
-                }
-
-                Parameter methodParam = methodParamMap.get(reqParam.getKey());
-                ParameterParseType parseType = getParameterParseType(methodParam);
-                int methodParamIndex = methodParams.indexOf(methodParam);
-
-                if (parseType == ParameterParseType.JSON) {
-                    targetParams[methodParamIndex] = JSON.parseObject(reqParam.getValue(), methodParam.getParameterizedType());
-                    continue;
-                }
-
-                if (methodParam.getType().isEnum()) {
-                    int e = Integer.parseInt(reqParam.getValue());
-
-                    if (e < 0) {
-                        targetParams[methodParamIndex] = null;
-                    } else {
-                        targetParams[methodParamIndex] = methodParam.getType().getEnumConstants()[e];
-                    }
-                } else if (methodParam.getType().isArray()) {
-                    List<String> values = params.stream()
-                            .filter(p -> p.getKey().equals(reqParam.getKey()))
-                            .map(Pair::getValue)
-                            .collect(Collectors.toList());
-
-                    targetParams[methodParamIndex] = TypeUtils.stringListToArrayType(methodParam.getType().getComponentType(), values);
-                } else {
-                    targetParams[methodParamIndex] = TypeUtils.stringToType(methodParam.getType(), reqParam.getValue());
-                }
-            } catch (Exception e) {
-                throw new ParameterProcessException("Error occured when processing parameter " + reqParam.getKey() +
-                        " (value " + reqParam.getValue() + ") of method " + method.getName(), e);
-            }
-        }
-
-        for (int i = 0; i < methodParams.size(); i++) {
-            Parameter methodParam = methodParams.get(i);
-            String methodParamName = getParameterName(method, methodParam, i);
-
-            if (methodParamName.equals("__parameters__")) {
-                targetParams[i] = params;
-            } else if (methodParamName.equals("__uploads__")) {
-                targetParams[i] = uploads;
-            } else if (methodParamName.equals("__cookies__")) {
-                targetParams[i] = cookies;
-            } else if (methodParamName.equals("__body__")) {
-                targetParams[i] = bodyParam;
-            } else if (methodParam.getType() == UploadFileInfo.class) {
-                if (uploads != null) {
-                    Optional<UploadFileInfo> ufi = uploads.stream()
-                            .filter(u -> u.getParameterName().equals(methodParamName))
-                            .findFirst();
-
-                    targetParams[i] = ufi.isPresent() ? ufi.get() : null;
-                } else {
-                    targetParams[i] = null;
-                }
-            } else if (methodParam.getType() == UploadFileInfo[].class) {
-                if (uploads != null) {
-                    targetParams[i] = uploads.toArray(new UploadFileInfo[uploads.size()]);
-                } else {
-                    targetParams[i] = null;
-                }
-            } else if (methodParam.getType() == ActionContext.class) {
-                targetParams[i] = context;
-            } else if (methodParam.getType() == HttpServerRequest.class) {
-                targetParams[i] = req;
-            } else if (methodParam.getType() == HttpServerResponse.class) {
-                targetParams[i] = req.response();
-            } else if (methodParam.getType() == HttpCookie.class) {
-                if (cookies != null) {
-                    HttpCookie cookie = cookies.stream()
-                            .filter(c -> c.getName().equals(methodParamName))
-                            .findFirst()
-                            .orElse(null);
-
-                    targetParams[i] = cookie;
-                } else {
-                    targetParams[i] = null;
-                }
-            } else if ((jsonParams != null) && (jsonParams.containsKey(methodParamName))) {
-                targetParams[i] = jsonParams.getObject(methodParamName, pl[i].getType());
-            } else if (otherParameters != null) {
-                Object o = Stream.of(otherParameters)
-                        .filter(op -> (op != null) && (methodParam.getType().isAssignableFrom(op.getClass())))
-                        .findFirst()
-                        .orElse(null);
-
-                if (o != null) {
-                    targetParams[i] = o;
-                }
-            }
-        }
-
-        if (complexParamPairs.size() > 0) {
-            JSONObject complexParams = new JSONObject();
-
-            complexKeyToJsonObject(complexParams, complexParamPairs);
-
-            for (int i = 0; i < targetParams.length; i++) {
-                if (targetParams[i] != null) {
-                    continue;
-                }
-
-                Parameter p = pl[i];
-                String pn = getParameterName(p);
-
-                if (!complexParams.containsKey(pn)) {
-                    continue;
-                }
-
-                Object o = complexParams.get(pn);
-
-                if ((o instanceof JSONArray) || (o instanceof JSONObject)) {
-                    targetParams[i] = JSON.parseObject(o.toString(), p.getParameterizedType());
-                } else {
-                    targetParams[i] = o;
-                }
-            }
-        }
-
         validateMethodParameters(context.getActionMethod(), targetParams);
 
         return targetParams;
@@ -294,41 +132,35 @@ public class RequestUtils
 
     private static void validateMethodParameters(ActionMethodInfo methodInfo, Object[] targetParams) throws InstantiationException, IllegalAccessException, ValidationFailedException
     {
-        Method method = methodInfo.getMethod();
+        ActionPlan plan = methodInfo.getPlan();
 
-        if ((methodInfo.getParameters() == null) || (methodInfo.getParameters().isEmpty())) {
+        if (!plan.hasValidators()) {
             return;
         }
 
         for (int i = 0; i < methodInfo.getParameters().size(); i++) {
             ActionMethodParameterInfo p = methodInfo.getParameters().get(i);
 
-            if ((p.getAnnotations() != null) && (p.getAnnotations().length > 0)) {
-                for (Annotation a : p.getAnnotations()) {
-                    if (!a.annotationType().isAnnotationPresent(ServiceActionParameterValidator.class)) {
-                        continue;
-                    }
-
-                    ServiceActionParameterValidator validatorAnno = a.annotationType().getAnnotation(ServiceActionParameterValidator.class);
-
-                    if (!parameterValidators.containsKey(validatorAnno.value())) {
-                        parameterValidators.put(validatorAnno.value(), validatorAnno.value().newInstance());
-                    }
+            for (ActionPlan.ValidatorInfo v : plan.getValidators(i)) {
+                ParameterValidator validator = v.getValidator();
 
-                    ParameterValidator validator = parameterValidators.get(validatorAnno.value());
-                    Object value = targetParams[i];
+                if (validator == null) {
+                    throw new InstantiationException("Failed to create validator for annotation " + v.getAnnotation()
+                            + " on parameter #" + i + " of method " + methodInfo.getMethod().toString());
+                }
 
-                    if (!validator.validate(p.getParameter(), a, value)) {
-                        throw new ValidationFailedException(p.getParameter(), validator, a, value);
-                    }
+                Object value = targetParams[i];
 
-                    targetParams[i] = validator.filter(p.getParameter(), a, value);
+                if (!validator.validate(p.getParameter(), v.getAnnotation(), value)) {
+                    throw new ValidationFailedException(p.getParameter(), validator, v.getAnnotation(), value);
                 }
+
+                targetParams[i] = validator.filter(p.getParameter(), v.getAnnotation(), value);
             }
 
-            if ((p.getParameter().getType().isPrimitive()) && (targetParams[i] == null)) {
+            if ((plan.isPrimitiveParameter(i)) && (targetParams[i] == null)) {
                 throw new IllegalAccessException("Parameter #" + i + " '" + p.getParameter().getName() + "' <" +
-                        p.getParameter().getType() + "> of method " + method.toString() +
+                        p.getParameter().getType() + "> of method " + methodInfo.getMethod().toString() +
                         " is primitive, but received an null value!");
             }
         }
@@ -516,40 +348,54 @@ public class RequestUtils
 
     public static List<HttpCookie> parseHttpCookies(HttpServerRequest request)
     {
-        List<HttpCookie> cookies = new ArrayList<>();
-        String cookieHeader = request.getHeader("Cookie");
-        String altCookieHeader = null;
+        return new RequestCookies(request);
+    }
 
-        AlternativeCookieHeaderConfig ch = CowherdConfiguration.getAlternativeCookieHeaders();
+    private static boolean isWebSocketUpgrade(HttpServerRequest request)
+    {
+        String upgradeHeader = request.getHeader("Upgrade");
+        return (upgradeHeader != null) && ("websocket".compareToIgnoreCase(upgradeHeader) == 0);
+    }
 
-        if (ch != null) {
-            if (((!StringUtils.isEmpty(ch.getOnlyOn()))
-                    || ("true".equals(request.getHeader(ch.getOnlyOn()))))
-                    && (!StringUtils.isEmpty(ch.getCookie()))) {
-                altCookieHeader = request.getHeader(ch.getCookie());
-            }
-        }
+    /**
+     * 判断请求体是否为 JSON 格式
+     * @param request 请求
+     * @return 若请求的内容类型为 application/json 或以 +json 结尾，则返回 true
+     */
+    public static boolean isJsonRequest(HttpServerRequest request)
+    {
+        String contentType = request.getHeader("Content-Type");
 
-        if (altCookieHeader != null) {
-            cookies.addAll(parseServerCookies(altCookieHeader));
+        if (contentType == null) {
+            return false;
         }
 
-        if (cookieHeader != null) {
-            CookieUtils.parseServerCookies(cookieHeader).stream()
-                    .filter(c -> !cookies.stream().anyMatch(c2 -> c2.getName().equals(c.getName())))
-                    .forEach(cookies::add);
-        }
+        int i = contentType.indexOf(';');
+        String type = (i >= 0 ? contentType.substring(0, i) : contentType).trim().toLowerCase();
 
-        return cookies;
+        return (type.equals("application/json")) || (type.endsWith("+json"));
     }
 
-    public static CompletableFuture<RequestContext> toRequestContext(HttpServerRequest request)
+    private static boolean isMultipartRequest(HttpServerRequest request)
     {
-        CompletableFuture<RequestContext> future = new CompletableFuture<>();
-        CompletableFuture<Void> bodyFuture = new CompletableFuture<>();
-        List<CompletableFuture<Void>> uploadFutures = new ArrayList<>();
-        Buffer bodyBuffer = Buffer.buffer();
+        String contentType = request.getHeader("Content-Type");
+        return (contentType != null) && (contentType.toLowerCase().startsWith("multipart/"));
+    }
 
+    private static boolean isExpectingContinue(HttpServerRequest request)
+    {
+        String expect = request.getHeader("Expect");
+        return (expect != null) && ("100-continue".equalsIgnoreCase(expect)) && (request.version() == HttpVersion.HTTP_1_1);
+    }
+
+    /**
+     * 根据请求头创建请求上下文，不读取请求体
+     * 请求体在调用 {@link #readRequestBody(RequestContext)} 之前会被暂停接收
+     * @param request 请求
+     * @return 请求上下文
+     */
+    public static RequestContext createRequestContext(HttpServerRequest request)
+    {
         RequestContext context = new RequestContext();
         context.setRequest(request);
         context.setResponse(request.response());
@@ -557,25 +403,87 @@ public class RequestUtils
         context.setPath(request.path());
         context.setHeaders(request.headers());
 
-        request.params().forEach(e -> context.getParameters().add(new Pair<>(e.getKey(), e.getValue())));
+        UrlEncodedDecoder.decodeQuery(request.query(), context.getParameters());
 
-        String upgradeHeader = request.getHeader("Upgrade");
+        if (isWebSocketUpgrade(request)) {
+            context.setBodyFuture(CompletableFuture.completedFuture(context));
+            return context;
+        }
 
-        if ((upgradeHeader != null) && ("websocket".compareToIgnoreCase(upgradeHeader) == 0)) {
+        if (!request.isEnded()) {
+            request.pause();
+            context.setBodyPaused(true);
+        }
+
+        return context;
+    }
+
+    /**
+     * 读取请求体，包括表单、上传的文件等，并将其加入请求上下文中
+     * 请求体长度使用全局配置的限制
+     * @param context 由 {@link #createRequestContext(HttpServerRequest)} 创建的请求上下文
+     * @return 读取完成的请求上下文
+     */
+    public static CompletableFuture<RequestContext> readRequestBody(RequestContext context)
+    {
+        return readRequestBody(context, CowherdConfiguration.getMaxRequestBodySize());
+    }
+
+    /**
+     * 读取请求体，包括表单、上传的文件等，并将其加入请求上下文中
+     * 若客户端发送了 Expect: 100-continue，则会在此时回复 100 Continue
+     * 非 multipart 请求体超过长度限制时将以 {@link RequestBodyOversizeException} 失败，
+     * 非表单请求体超过内存阈值时将被写入临时文件，此时不会再将其作为查询字符串解析为参数，
+     * JSON 请求体也不会被解析为参数，而是在绑定服务方法参数时直接反序列化
+     * @param context 由 {@link #createRequestContext(HttpServerRequest)} 创建的请求上下文
+     * @param maxBodySize 请求体的最大长度，小于等于 0 表示不限制
+     * @return 读取完成的请求上下文
+     */
+    public static CompletableFuture<RequestContext> readRequestBody(RequestContext context, long maxBodySize)
+    {
+        return readRequestBody(context, maxBodySize, null);
+    }
+
+    /**
+     * 读取请求体，并将上传的文件直接写入指定的目录中，其余同 {@link #readRequestBody(RequestContext, long)}
+     * @param context 由 {@link #createRequestContext(HttpServerRequest)} 创建的请求上下文
+     * @param maxBodySize 请求体的最大长度，小于等于 0 表示不限制
+     * @param uploadDir 接收上传文件的目录，为 null 则使用上传文件的临时存放路径
+     * @return 读取完成的请求上下文
+     */
+    public static CompletableFuture<RequestContext> readRequestBody(RequestContext context, long maxBodySize,
+                                                                    Path uploadDir)
+    {
+        if (context.getBodyFuture() != null) {
+            return context.getBodyFuture();
+        }
+
+        HttpServerRequest request = context.getRequest();
+        CompletableFuture<RequestContext> future = new CompletableFuture<>();
+        context.setBodyFuture(future);
+
+        if (request.isEnded()) {
             future.complete(context);
             return future;
         }
 
+        List<CompletableFuture<Void>> uploadFutures = new ArrayList<>();
+        RequestBodyReceiver receiver = null;
+
         request.setExpectMultipart(true);
 
-        if (checkIfRequestHasBody(request)) {
-            request.handler(b -> {
-                if (!request.isExpectMultipart()) {
-                    bodyBuffer.appendBuffer(b);
+        if ((checkIfRequestHasBody(request)) && (!isMultipartRequest(request))) {
+            RequestBodyReceiver r = new RequestBodyReceiver(request, maxBodySize,
+                    CowherdConfiguration.getRequestBodyMemoryThreshold(), !request.isExpectMultipart());
+
+            r.getFuture().whenComplete((body, ex) -> {
+                if (ex != null) {
+                    future.completeExceptionally(ex);
                 }
             });
-        } else {
-            bodyFuture.complete(null);
+
+            request.handler(r::handle);
+            receiver = r;
         }
 
         request.uploadHandler(upload -> {
@@ -597,7 +505,8 @@ public class RequestUtils
             File f;
 
             try {
-                f = new File(CowherdConfiguration.getUploadCacheDir().toFile(), UUID.randomUUID().toString());
+                Path dir = uploadDir != null ? uploadDir : CowherdConfiguration.getUploadCacheDir();
+                f = new File(dir.toFile(), UUID.randomUUID().toString());
             } catch (Exception e) {
                 uf.completeExceptionally(e);
                 return;
@@ -616,29 +525,86 @@ public class RequestUtils
 
         request.exceptionHandler(future::completeExceptionally);
 
+        RequestBodyReceiver bodyReceiver = receiver;
+
         request.endHandler(r -> {
             if (request.isExpectMultipart()) {
                 request.formAttributes()
                         .forEach(e -> context.getParameters().add(new Pair<>(e.getKey(), e.getValue())));
             }
 
-            if (!bodyFuture.isDone()) {
-                String bodyStr = bodyBuffer.toString();
+            if (bodyReceiver != null) {
+                uploadFutures.add(bodyReceiver.getFuture().thenAccept(body -> {
+                    if (body == null) {
+                        return;
+                    }
+
+                    context.setBody(body);
 
-                context.getParameters().addAll(StringUtils.parseQueryString(bodyStr));
-                context.getParameters().add(new Pair<>("__body__", bodyStr));
+                    if ((body.isInMemory()) && (!isJsonRequest(request))) {
+                        UrlEncodedDecoder.decodeForm(body.getBuffer(), context.getParameters());
+                    }
+                }));
 
-                bodyFuture.complete(null);
+                bodyReceiver.end();
             }
 
-            uploadFutures.add(bodyFuture);
             CompletableFuture.allOf(uploadFutures.toArray(new CompletableFuture[0]))
-                    .thenAccept(v -> future.complete(context));
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            future.completeExceptionally(ex instanceof CompletionException ? ex.getCause() : ex);
+                        } else {
+                            future.complete(context);
+                        }
+                    });
         });
 
+        if ((receiver != null) && (receiver.rejectByContentLength())) {
+            return future;
+        }
+
+        if (isExpectingContinue(request)) {
+            request.response().writeContinue();
+        }
+
+        if (context.isBodyPaused()) {
+            context.setBodyPaused(false);
+            request.resume();
+        }
+
         return future;
     }
 
+    /**
+     * 放弃尚未读取的请求体，用于请求在读取请求体之前即被拒绝的情况
+     * @param context 请求上下文
+     */
+    public static void discardRequestBody(RequestContext context)
+    {
+        if ((context.getBodyFuture() != null) || (!context.isBodyPaused())) {
+            return;
+        }
+
+        context.setBodyPaused(false);
+        context.getRequest().resume();
+    }
+
+    /**
+     * 删除请求体转存的临时文件，用于请求处理完成之后
+     * @param context 请求上下文
+     */
+    public static void releaseRequestBody(RequestContext context)
+    {
+        if (context.getBody() != null) {
+            context.getBody().delete();
+        }
+    }
+
+    public static CompletableFuture<RequestContext> toRequestContext(HttpServerRequest request)
+    {
+        return readRequestBody(createRequestContext(request));
+    }
+
     public static void putCookie(HttpServerRequest request, HttpCookie cookie)
     {
         String cookieString = CookieUtils.cookieToString(cookie);
@@ -680,21 +646,89 @@ public class RequestUtils
         }
 
         String rangeContent = rangeHeader.substring(start + 6);
-        String[] ranges = rangeContent.split(",");
+        List<RangeHeaderInfo> ranges = new ArrayList<>();
+
+        for (String r : rangeContent.split(",")) {
+            r = r.trim();
+
+            if (r.isEmpty()) {
+                continue;
+            }
+
+            int dash = r.indexOf('-');
+
+            if (dash < 0) {
+                return Collections.emptyList();
+            }
+
+            String startPart = r.substring(0, dash).trim();
+            String endPart = r.substring(dash + 1).trim();
+
+            try {
+                if (startPart.isEmpty()) {
+                    if (endPart.isEmpty()) {
+                        return Collections.emptyList();
+                    }
 
-        return Stream.of(ranges)
-                .map(String::trim)
-                .map(s -> s.split("-"))
-                .map(ss -> {
-                    int startBytes = Integer.parseInt(ss[0]);
-                    int endBytes = -1;
+                    ranges.add(RangeHeaderInfo.suffix(Long.parseLong(endPart)));
+                } else {
+                    long startBytes = Long.parseLong(startPart);
+                    long endBytes = endPart.isEmpty() ? -1 : Long.parseLong(endPart);
 
-                    if ((ss.length > 1) && (!ss[1].isEmpty())) {
-                        endBytes = Integer.parseInt(ss[1]);
+                    if ((endBytes >= 0) && (endBytes < startBytes)) {
+                        return Collections.emptyList();
                     }
 
-                    return new RangeHeaderInfo(startBytes, endBytes);
-                })
-                .collect(Collectors.toList());
+                    ranges.add(new RangeHeaderInfo(startBytes, endBytes));
+                }
+            } catch (NumberFormatException e) {
+                return Collections.emptyList();
+            }
+        }
+
+        return ranges;
+    }
+
+    /**
+     * 从 Accept-Encoding 头中获取客户端对指定内容编码的接受程度
+     * @param acceptEncoding Accept-Encoding 头的内容
+     * @param encoding 内容编码，如 gzip
+     * @return 该编码的 q 值，若客户端不接受该编码，则返回 0
+     */
+    public static double getAcceptedEncodingQuality(String acceptEncoding, String encoding)
+    {
+        if (StringUtils.isEmpty(acceptEncoding)) {
+            return 0;
+        }
+
+        double wildcardQuality = 0;
+
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim();
+            double quality = 1;
+
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equalsIgnoreCase(encoding)) {
+                return quality;
+            }
+
+            if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+
+        return wildcardQuality;
     }
 }
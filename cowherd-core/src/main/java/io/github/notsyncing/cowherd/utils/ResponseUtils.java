@@ -0,0 +1,58 @@
+package io.github.notsyncing.cowherd.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.JSONSerializer;
+import com.alibaba.fastjson.serializer.SerializeWriter;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 将服务方法的返回值写入响应的工具类
+ * 返回值会被直接编码进一块大小恰好的缓冲区，并通过一次 end 调用发送，不再经过额外的复制
+ */
+public class ResponseUtils
+{
+    /**
+     * 将字符串按 UTF-8 编码进缓冲区，编码结果直接作为响应缓冲区，不再复制
+     * @param s 字符串
+     * @return 包含编码后内容的缓冲区
+     */
+    public static Buffer stringToBuffer(String s)
+    {
+        return Buffer.buffer(Unpooled.wrappedBuffer(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 将对象序列化为 JSON 并按 UTF-8 编码进缓冲区
+     * 序列化使用 fastjson 线程内复用的字符缓冲区，编码结果直接作为响应缓冲区，不生成中间字符串
+     * @param o 要序列化的对象
+     * @param features 序列化选项
+     * @return 包含序列化结果的缓冲区
+     */
+    public static Buffer objectToJsonBuffer(Object o, SerializerFeature... features)
+    {
+        SerializeWriter out = new SerializeWriter(null, JSON.DEFAULT_GENERATE_FEATURE, features);
+
+        try {
+            new JSONSerializer(out).write(o);
+            return Buffer.buffer(Unpooled.wrappedBuffer(out.toBytes(StandardCharsets.UTF_8)));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 以缓冲区的长度设置 Content-Length，并通过一次 end 调用发送缓冲区，结束响应
+     * @param resp 响应
+     * @param data 要发送的缓冲区
+     */
+    public static void endWithBuffer(HttpServerResponse resp, Buffer data)
+    {
+        resp.putHeader("Content-Length", String.valueOf(data.length()));
+        resp.end(data);
+    }
+}
@@ -1,14 +1,13 @@
 package io.github.notsyncing.cowherd.utils;
 
 import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.ParameterList;
 
 import java.io.*;
-import java.net.URLDecoder;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Pattern;
 
 public class StringUtils
 {
@@ -90,30 +89,8 @@ public class StringUtils
 
     public static List<Pair<String, String>> parseQueryString(String qs)
     {
-        List<Pair<String, String>> l = new ArrayList<>();
-        String[] pairs = qs.split("&");
-        Pattern skipPattern = Pattern.compile(".*?[<>!].*?");
-
-        try {
-            for (String p : pairs) {
-                int i = p.indexOf("=");
-
-                if (i < 0) {
-                    continue;
-                }
-
-                String key = URLDecoder.decode(p.substring(0, i), "utf-8");
-                String value = URLDecoder.decode(p.substring(i + 1), "utf-8");
-
-                if (skipPattern.matcher(key).find()) {
-                    continue;
-                }
-
-                l.add(new Pair<>(key, value));
-            }
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-        }
+        ParameterList l = new ParameterList();
+        UrlEncodedDecoder.decodeForm(qs, l);
 
         return l;
     }
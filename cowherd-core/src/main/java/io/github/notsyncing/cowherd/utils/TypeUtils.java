@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 public class TypeUtils
 {
@@ -124,6 +125,46 @@ public class TypeUtils
         return (T)s;
     }
 
+    /**
+     * 预先选择将字符串转换为指定类型的转换函数，其转换结果与 {@link #stringToType(Class, String)} 相同
+     * @param c 目标类型
+     * @return 转换函数
+     */
+    public static Function<String, Object> stringConverterFor(Class<?> c)
+    {
+        Function<String, Object> converter;
+
+        if (c == String.class) {
+            return s -> s;
+        } else if ((c == boolean.class) || (c == Boolean.class)) {
+            converter = TypeUtils::stringToBoolean;
+        } else if ((c == int.class) || (c == Integer.class)) {
+            converter = TypeUtils::stringToInt;
+        } else if ((c == byte.class) || (c == Byte.class)) {
+            converter = TypeUtils::stringToByte;
+        } else if ((c == char.class) || (c == Character.class)) {
+            converter = s -> s.charAt(0);
+        } else if ((c == long.class) || (c == Long.class)) {
+            converter = TypeUtils::stringToLong;
+        } else if ((c == short.class) || (c == Short.class)) {
+            converter = TypeUtils::stringToShort;
+        } else if ((c == float.class) || (c == Float.class)) {
+            converter = TypeUtils::stringToFloat;
+        } else if ((c == double.class) || (c == Double.class)) {
+            converter = TypeUtils::stringToDouble;
+        } else if (c == BigDecimal.class) {
+            converter = s -> StringUtils.isEmpty(s) ? null : new BigDecimal(s);
+        } else if (c == Instant.class) {
+            converter = TypeUtils::stringToInstant;
+        } else if (c == LocalDateTime.class) {
+            converter = TypeUtils::stringToLocalDateTime;
+        } else {
+            return s -> s;
+        }
+
+        return s -> s == null ? null : converter.apply(s);
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T[] stringListToArrayType(Class<T> elementType, List<String> values)
     {
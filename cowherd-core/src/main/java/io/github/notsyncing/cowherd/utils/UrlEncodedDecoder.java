@@ -0,0 +1,185 @@
+package io.github.notsyncing.cowherd.utils;
+
+import io.github.notsyncing.cowherd.models.Pair;
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 查询字符串及 application/x-www-form-urlencoded 表单的解析器
+ * 直接在原始字节上单次扫描，只有含有 % 或 + 的部分才需要解码，其余部分直接按 UTF-8 转换为字符串。
+ * 不合法的百分号编码按原样保留，不会抛出异常。
+ */
+public class UrlEncodedDecoder
+{
+    /**
+     * 解析请求 URL 中的查询字符串，没有 = 的参数值为空字符串，& 与 ; 均作为参数分隔符
+     * @param query 查询字符串，不含开头的 ?
+     * @param target 解析出的参数按顺序添加到此列表中
+     */
+    public static void decodeQuery(String query, List<Pair<String, String>> target)
+    {
+        if (StringUtils.isEmpty(query)) {
+            return;
+        }
+
+        byte[] data = query.getBytes(StandardCharsets.UTF_8);
+        decode(data, 0, data.length, target, false);
+    }
+
+    /**
+     * 解析表单请求体，没有 = 的参数及名称中含有 &lt; &gt; ! 的参数将被忽略
+     * @param data 请求体
+     * @param target 解析出的参数按顺序添加到此列表中
+     */
+    public static void decodeForm(Buffer data, List<Pair<String, String>> target)
+    {
+        ByteBuf buf = data.getByteBuf();
+
+        // 堆内缓冲区直接扫描其底层数组，不再复制
+        if (buf.hasArray()) {
+            decode(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes(), target, true);
+        } else {
+            byte[] bytes = data.getBytes();
+            decode(bytes, 0, bytes.length, target, true);
+        }
+    }
+
+    /**
+     * 解析字符串形式的表单请求体，规则同 {@link #decodeForm(Buffer, List)}
+     * @param data 请求体字符串
+     * @param target 解析出的参数按顺序添加到此列表中
+     */
+    public static void decodeForm(String data, List<Pair<String, String>> target)
+    {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        decode(bytes, 0, bytes.length, target, true);
+    }
+
+    private static void decode(byte[] buf, int offset, int length, List<Pair<String, String>> target, boolean form)
+    {
+        int end = offset + length;
+        int start = offset;
+        int valueStart = -1;
+        boolean keyEscaped = false;
+        boolean valueEscaped = false;
+
+        for (int i = start; i <= end; i++) {
+            byte b = i < end ? buf[i] : (byte) '&';
+
+            if ((b == '&') || ((b == ';') && (!form))) {
+                addParameter(buf, start, valueStart, i, keyEscaped, valueEscaped, target, form);
+
+                start = i + 1;
+                valueStart = -1;
+                keyEscaped = false;
+                valueEscaped = false;
+            } else if (b == '=') {
+                if (valueStart < 0) {
+                    valueStart = i + 1;
+                }
+            } else if ((b == '%') || (b == '+')) {
+                if (valueStart < 0) {
+                    keyEscaped = true;
+                } else {
+                    valueEscaped = true;
+                }
+            }
+        }
+    }
+
+    private static void addParameter(byte[] buf, int start, int valueStart, int end, boolean keyEscaped,
+                                     boolean valueEscaped, List<Pair<String, String>> target, boolean form)
+    {
+        if (start >= end) {
+            return;
+        }
+
+        String key;
+        String value;
+
+        if (valueStart < 0) {
+            if (form) {
+                return;
+            }
+
+            key = decodeComponent(buf, start, end, keyEscaped);
+            value = "";
+        } else {
+            key = decodeComponent(buf, start, valueStart - 1, keyEscaped);
+
+            if ((form) && (isSkippedKey(key))) {
+                return;
+            }
+
+            value = decodeComponent(buf, valueStart, end, valueEscaped);
+        }
+
+        target.add(new Pair<>(key, value));
+    }
+
+    private static boolean isSkippedKey(String key)
+    {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+
+            if ((c == '<') || (c == '>') || (c == '!')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String decodeComponent(byte[] buf, int start, int end, boolean escaped)
+    {
+        if (start >= end) {
+            return "";
+        }
+
+        if (!escaped) {
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] decoded = new byte[end - start];
+        int n = 0;
+
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+
+            if (b == '+') {
+                decoded[n++] = ' ';
+            } else if ((b == '%') && (i + 2 < end)) {
+                int high = hexValue(buf[i + 1]);
+                int low = hexValue(buf[i + 2]);
+
+                if ((high < 0) || (low < 0)) {
+                    decoded[n++] = b;
+                    continue;
+                }
+
+                decoded[n++] = (byte) ((high << 4) | low);
+                i += 2;
+            } else {
+                decoded[n++] = b;
+            }
+        }
+
+        return new String(decoded, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int hexValue(byte b)
+    {
+        if ((b >= '0') && (b <= '9')) {
+            return b - '0';
+        } else if ((b >= 'a') && (b <= 'f')) {
+            return b - 'a' + 10;
+        } else if ((b >= 'A') && (b <= 'F')) {
+            return b - 'A' + 10;
+        }
+
+        return -1;
+    }
+}
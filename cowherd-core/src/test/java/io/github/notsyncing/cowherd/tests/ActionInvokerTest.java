@@ -0,0 +1,110 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.models.ActionInvoker;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+public class ActionInvokerTest
+{
+    public static class Target
+    {
+        public String echo(String s, int i)
+        {
+            return s + i;
+        }
+
+        public long widen(long l)
+        {
+            return l + 1;
+        }
+
+        public Object cast(Object o)
+        {
+            return (String)o;
+        }
+
+        public String fail()
+        {
+            throw new IllegalStateException("fail");
+        }
+
+        public void nothing()
+        {
+        }
+
+        public static String staticEcho(String s)
+        {
+            return s;
+        }
+    }
+
+    private static ActionInvoker invoker(String name, Class<?>... types) throws NoSuchMethodException
+    {
+        return new ActionInvoker(Target.class.getMethod(name, types));
+    }
+
+    @Test
+    public void testInvoke() throws Exception
+    {
+        assertEquals("a1", invoker("echo", String.class, int.class).invoke(new Target(), new Object[] { "a", 1 }));
+        assertEquals(null, invoker("nothing").invoke(new Target(), new Object[0]));
+        assertEquals("s", invoker("staticEcho", String.class).invoke(null, new Object[] { "s" }));
+    }
+
+    @Test
+    public void testPrimitiveWidening() throws Exception
+    {
+        assertEquals(3L, invoker("widen", long.class).invoke(new Target(), new Object[] { 2 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArgumentTypeMismatch() throws Exception
+    {
+        invoker("echo", String.class, int.class).invoke(new Target(), new Object[] { 1, "a" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPrimitiveArgument() throws Exception
+    {
+        invoker("echo", String.class, int.class).invoke(new Target(), new Object[] { "a", null });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongArgumentCount() throws Exception
+    {
+        invoker("echo", String.class, int.class).invoke(new Target(), new Object[] { "a" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongReceiver() throws Exception
+    {
+        invoker("echo", String.class, int.class).invoke("not a target", new Object[] { "a", 1 });
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullReceiver() throws Exception
+    {
+        invoker("echo", String.class, int.class).invoke(null, new Object[] { "a", 1 });
+    }
+
+    @Test
+    public void testActionExceptionsWrapped() throws Exception
+    {
+        try {
+            invoker("fail").invoke(new Target(), new Object[0]);
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        try {
+            invoker("cast", Object.class).invoke(new Target(), new Object[] { 1 });
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+}
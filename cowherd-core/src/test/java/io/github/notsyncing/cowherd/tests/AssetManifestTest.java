@@ -0,0 +1,89 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.files.AssetManifest;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class AssetManifestTest
+{
+    private Path tempDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("cowherd-manifest-test");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    @Test
+    public void testFingerprint()
+    {
+        assertEquals("app.3f2a9c1d.js", AssetManifest.fingerprint("app.js", "3f2a9c1d"));
+        assertEquals("js/app.min.3f2a9c1d.js", AssetManifest.fingerprint("js/app.min.js", "3f2a9c1d"));
+        assertEquals("v1.0/LICENSE.3f2a9c1d", AssetManifest.fingerprint("v1.0/LICENSE", "3f2a9c1d"));
+        assertEquals("js/.hidden.3f2a9c1d", AssetManifest.fingerprint("js/.hidden", "3f2a9c1d"));
+    }
+
+    @Test
+    public void testAddDirectory() throws IOException
+    {
+        Files.createDirectories(tempDir.resolve("js"));
+        Files.write(tempDir.resolve("js/app.js"), "var a = 1;".getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("js/app.js.gz"), new byte[] { 1, 2, 3 });
+        Files.write(tempDir.resolve("index.html"), "<html></html>".getBytes(StandardCharsets.UTF_8));
+
+        AssetManifest manifest = new AssetManifest();
+        manifest.addDirectory(tempDir);
+
+        assertEquals(1, manifest.size());
+
+        String url = manifest.getUrl("js/app.js");
+        assertTrue(url.matches("js/app\\.[0-9a-f]{8}\\.js"));
+        assertEquals("/" + url, manifest.getUrl("/js/app.js"));
+        assertEquals("js/app.js", manifest.resolve(url));
+
+        assertEquals("/index.html", manifest.getUrl("/index.html"));
+        assertNull(manifest.resolve("js/app.js"));
+    }
+
+    @Test
+    public void testContentChangesHash() throws IOException
+    {
+        Files.write(tempDir.resolve("app.css"), "a {}".getBytes(StandardCharsets.UTF_8));
+
+        AssetManifest manifest1 = new AssetManifest();
+        manifest1.addDirectory(tempDir);
+
+        Files.write(tempDir.resolve("app.css"), "b {}".getBytes(StandardCharsets.UTF_8));
+
+        AssetManifest manifest2 = new AssetManifest();
+        manifest2.addDirectory(tempDir);
+
+        assertNotEquals(manifest1.getUrl("app.css"), manifest2.getUrl("app.css"));
+    }
+
+    @Test
+    public void testIsCurrent()
+    {
+        AssetManifest manifest = new AssetManifest();
+        manifest.add("app.js", "3f2a9c1d", "\"a-1\"");
+
+        assertTrue(manifest.isCurrent("app.js", "\"a-1\""));
+        assertFalse(manifest.isCurrent("app.js", "\"a-2\""));
+        assertFalse(manifest.isCurrent("other.js", "\"a-1\""));
+    }
+}
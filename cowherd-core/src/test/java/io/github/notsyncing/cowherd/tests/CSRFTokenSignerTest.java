@@ -0,0 +1,123 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.server.CSRFTokenSigner;
+import io.github.notsyncing.cowherd.server.ReplayFilter;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CSRFTokenSignerTest
+{
+    private static final byte[] SECRET = "test-secret".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testVerifyGeneratedToken()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        String token = signer.generate();
+
+        assertTrue(signer.verify(token));
+        assertTrue(signer.verify(token));
+        assertTrue(new CSRFTokenSigner(SECRET, 60000, 1000).verify(token));
+    }
+
+    @Test
+    public void testTokenCanOnlyBeConsumedOnce()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        String token = signer.generate();
+
+        assertTrue(signer.verifyAndConsume(token));
+        assertFalse(signer.verifyAndConsume(token));
+        assertFalse(signer.verify(token));
+        assertTrue(signer.verifyAndConsume(signer.generate()));
+    }
+
+    @Test
+    public void testRejectTokenWithWrongSecret()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        CSRFTokenSigner other = new CSRFTokenSigner("other".getBytes(StandardCharsets.UTF_8), 60000, 1000);
+
+        assertFalse(other.verify(signer.generate()));
+        assertFalse(new CSRFTokenSigner(null, 60000, 1000).verify(signer.generate()));
+    }
+
+    @Test
+    public void testRejectReplayWithAlternativeEncoding()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        String token = signer.generate();
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        char last = token.charAt(token.length() - 1);
+        String lowBitFlipped = token.substring(0, token.length() - 1) + alphabet.charAt(alphabet.indexOf(last) ^ 1);
+
+        assertTrue(signer.verifyAndConsume(token));
+        assertFalse(signer.verifyAndConsume(token + "="));
+        assertFalse(signer.verifyAndConsume(lowBitFlipped));
+        assertFalse(signer.verify(token + "="));
+        assertFalse(signer.verify(lowBitFlipped));
+    }
+
+    @Test
+    public void testRejectAlternativeEncodingOfUnusedToken()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        String token = signer.generate();
+
+        assertFalse(signer.verify(token + "="));
+        assertTrue(signer.verifyAndConsume(token));
+    }
+
+    @Test
+    public void testRejectExpiredToken()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, -1000, 1000);
+        String token = signer.generate();
+
+        assertFalse(signer.verify(token));
+        assertFalse(signer.verifyAndConsume(token));
+    }
+
+    @Test
+    public void testRejectTamperedToken()
+    {
+        CSRFTokenSigner signer = new CSRFTokenSigner(SECRET, 60000, 1000);
+        String token = signer.generate();
+        int i = token.indexOf('.');
+        char c = token.charAt(1) == 'A' ? 'B' : 'A';
+
+        assertFalse(signer.verify(token.substring(0, 1) + c + token.substring(2)));
+        assertFalse(signer.verify(token.substring(0, i)));
+        assertFalse(signer.verify(token + ".x"));
+        assertFalse(signer.verify("not-a-token"));
+        assertFalse(signer.verify("!!!.???"));
+        assertFalse(signer.verify(""));
+        assertFalse(signer.verify(null));
+    }
+
+    @Test
+    public void testReplayFilterExpiresWholeBuckets()
+    {
+        ReplayFilter filter = new ReplayFilter(1000);
+
+        assertTrue(filter.markUsed("a", 1500, 0));
+        assertTrue(filter.markUsed("b", 1900, 0));
+        assertTrue(filter.markUsed("c", 2500, 0));
+        assertFalse(filter.markUsed("a", 1500, 0));
+        assertEquals(2, filter.getBucketCount());
+        assertEquals(3, filter.size());
+
+        // 时间段 [1000, 2000) 中仍有未过期的令牌时不丢弃
+        assertTrue(filter.markUsed("d", 2600, 1600));
+        assertTrue(filter.isUsed("b", 1900));
+
+        assertTrue(filter.markUsed("e", 3500, 2000));
+        assertEquals(2, filter.getBucketCount());
+        assertFalse(filter.isUsed("a", 1500));
+        assertTrue(filter.isUsed("c", 2500));
+        assertTrue(filter.isUsed("d", 2600));
+    }
+}
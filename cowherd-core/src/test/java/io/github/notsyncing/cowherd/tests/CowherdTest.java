@@ -2,11 +2,15 @@ package io.github.notsyncing.cowherd.tests;
 
 import com.alibaba.fastjson.JSON;
 import io.github.notsyncing.cowherd.Cowherd;
+import io.github.notsyncing.cowherd.commons.CSRFConfig;
 import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.files.FileStorage;
 import io.github.notsyncing.cowherd.models.ActionResult;
 import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.responses.FileResponse;
+import io.github.notsyncing.cowherd.routing.RouteManager;
 import io.github.notsyncing.cowherd.server.FilterManager;
+import io.github.notsyncing.cowherd.server.ResponseCompressor;
 import io.github.notsyncing.cowherd.service.CowherdAPIService;
 import io.github.notsyncing.cowherd.service.ServiceManager;
 import io.github.notsyncing.cowherd.tests.services.*;
@@ -20,6 +24,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -34,18 +39,26 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.*;
 
@@ -250,6 +263,164 @@ public class CowherdTest
         req.end();
     }
 
+    @Test
+    public void testOversizePostRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/limitedPostRequest");
+
+        req.handler(r -> {
+            context.assertEquals(413, r.statusCode());
+            context.assertNull(testSimplePostBody);
+            async.complete();
+        });
+
+        req.exceptionHandler(ex -> {
+            if (!async.isCompleted()) {
+                context.fail(ex);
+            }
+        });
+
+        req.putHeader("Content-Length", "20");
+        req.write("Test body too long!!");
+        req.end();
+    }
+
+    @Test
+    public void testOversizeChunkedPostRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/limitedPostRequest");
+
+        req.handler(r -> {
+            context.assertEquals(413, r.statusCode());
+            context.assertNull(testSimplePostBody);
+            async.complete();
+        });
+
+        req.exceptionHandler(ex -> {
+            if (!async.isCompleted()) {
+                context.fail(ex);
+            }
+        });
+
+        req.setChunked(true);
+        req.write("Test body ");
+        req.write("too long!!");
+        req.end();
+    }
+
+    @Test
+    public void testSpilledPostRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/simplePostRequest");
+
+        long threshold = CowherdConfiguration.getRequestBodyMemoryThreshold();
+        CowherdConfiguration.setRequestBodyMemoryThreshold(16);
+
+        StringBuilder body = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            body.append("Test body ").append(i).append("!");
+        }
+
+        req.handler(r -> {
+            r.endHandler(v -> {
+                CowherdConfiguration.setRequestBodyMemoryThreshold(threshold);
+
+                context.assertEquals(200, r.statusCode());
+                context.assertEquals(body.toString(), testSimplePostBody);
+                async.complete();
+            });
+        });
+
+        req.setChunked(true);
+        req.write(body.toString());
+        req.end();
+    }
+
+    @Test
+    public void testSpilledJsonPostRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/jsonPostRequest");
+
+        long threshold = CowherdConfiguration.getRequestBodyMemoryThreshold();
+        CowherdConfiguration.setRequestBodyMemoryThreshold(16);
+
+        StringBuilder padding = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            padding.append("Test body ").append(i).append("!");
+        }
+
+        String body = "{\"padding\":\"" + padding + "\",\"name\":\"json\",\"values\":[1,2,3]}";
+
+        req.exceptionHandler(context::fail);
+        req.putHeader("Content-Type", "application/json");
+
+        checkIfSuccessAndString(context, async, req, "json3", (data, resp) ->
+                CowherdConfiguration.setRequestBodyMemoryThreshold(threshold));
+
+        req.setChunked(true);
+        req.write(body);
+        req.end();
+    }
+
+    @Test
+    public void testExpectContinuePostRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/simplePostRequest");
+        req.exceptionHandler(context::fail);
+
+        req.handler(r -> {
+            context.assertEquals(200, r.statusCode());
+
+            r.bodyHandler(b -> {
+                context.assertEquals("Hello, world, post!", b.toString());
+                context.assertEquals("Test body!", testSimplePostBody);
+                async.complete();
+            });
+        });
+
+        req.continueHandler(v -> {
+            req.write("Test body!");
+            req.end();
+        });
+
+        req.putHeader("Content-Length", "10");
+        req.putHeader("Expect", "100-continue");
+        req.sendHead();
+    }
+
+    @Test
+    public void testExpectContinueRejectedRequest(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = post("/WhatService/NON_EXISTS");
+        boolean[] continued = new boolean[] { false };
+
+        req.exceptionHandler(ex -> {
+            if (!async.isCompleted()) {
+                context.fail(ex);
+            }
+        });
+
+        req.handler(resp -> {
+            context.assertEquals(404, resp.statusCode());
+            context.assertFalse(continued[0]);
+            async.complete();
+        });
+
+        req.continueHandler(v -> continued[0] = true);
+
+        req.putHeader("Content-Length", "10");
+        req.putHeader("Expect", "100-continue");
+        req.sendHead();
+    }
+
     @Test
     public void testEchoRequest(TestContext context)
     {
@@ -319,6 +490,591 @@ public class CowherdTest
         req.end();
     }
 
+    @Test
+    public void testGetMissingFile(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getMissingFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(404, resp.statusCode());
+            async.complete();
+        });
+
+        req.end();
+    }
+
+    @Test
+    public void testGetFileRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+            context.assertEquals("bytes 2-4/13", resp.getHeader("Content-Range"));
+            context.assertEquals("3", resp.getHeader("Content-Length"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("llo", b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=2-4");
+        req.end();
+    }
+
+    @Test
+    public void testGetFileSuffixRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+            context.assertEquals("bytes 10-12/13", resp.getHeader("Content-Range"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("ld!", b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=-3");
+        req.end();
+    }
+
+    @Test
+    public void testGetFileUnsatisfiableRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(416, resp.statusCode());
+            context.assertEquals("bytes */13", resp.getHeader("Content-Range"));
+            async.complete();
+        });
+
+        req.putHeader("Range", "bytes=20-30");
+        req.end();
+    }
+
+    @Test
+    public void testGetFileMultipleRanges(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+
+            String contentType = resp.getHeader("Content-Type");
+            context.assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+
+            String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+            resp.bodyHandler(b -> {
+                String body = b.toString();
+
+                context.assertEquals(Integer.parseInt(resp.getHeader("Content-Length")), b.length());
+                context.assertTrue(body.contains("Content-Range: bytes 0-1/13\r\n\r\nHe\r\n--" + boundary));
+                context.assertTrue(body.contains("Content-Range: bytes 10-12/13\r\n\r\nld!\r\n--" + boundary + "--\r\n"));
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=0-1,-3");
+        req.end();
+    }
+
+    @Test
+    public void testGetStreamFileMultipleRanges(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getStreamFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+            context.assertTrue(resp.getHeader("Content-Type").startsWith("multipart/byteranges; boundary="));
+
+            resp.bodyHandler(b -> {
+                String body = b.toString();
+
+                context.assertTrue(body.contains("Content-Range: bytes 26-29/1048576\r\n\r\nabcd\r\n"));
+                context.assertTrue(body.contains("Content-Range: bytes 100002-100007/1048576\r\n\r\nghijkl\r\n"));
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=100002-100007,26-29");
+        req.end();
+    }
+
+    @Test
+    public void testGetFileOverlappingRangesMerged(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+            context.assertEquals("bytes 0-12/13", resp.getHeader("Content-Range"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals(13, b.length());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=0-,0-,0-,2-5,6-");
+        req.end();
+    }
+
+    @Test
+    public void testGetStreamFileTooManyRanges(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getStreamFile");
+        req.exceptionHandler(context::fail);
+
+        StringBuilder ranges = new StringBuilder("bytes=");
+
+        for (int i = 0; i <= FileResponse.MAX_RANGES; i++) {
+            ranges.append(i > 0 ? "," : "").append(i * 10).append("-").append(i * 10 + 1);
+        }
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals(String.valueOf(1024 * 1024), resp.getHeader("Content-Length"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals(1024 * 1024, b.length());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", ranges.toString());
+        req.end();
+    }
+
+    @Test
+    public void testGetStreamFile(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getStreamFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals(String.valueOf(1024 * 1024), resp.getHeader("Content-Length"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals(1024 * 1024, b.length());
+
+                for (int i = 0; i < b.length(); i += 4099) {
+                    context.assertEquals((byte) ('a' + (i % 26)), b.getByte(i));
+                }
+
+                async.complete();
+            });
+        });
+
+        req.end();
+    }
+
+    @Test
+    public void testGetStreamFileRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/getStreamFile");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("ghijkl", b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=100002-100007");
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFile(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/a.txt");
+        req.exceptionHandler(context::fail);
+
+        checkIfSuccessAndString(context, async, req, "Hello");
+
+        req.end();
+    }
+
+    @Test
+    public void testCompressActionResult(TestContext context)
+    {
+        ResponseCompressor.clearCache();
+
+        String expected = String.join("", Collections.nCopies(256, "Hello, compression!"));
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/compressibleRequest");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals("gzip", resp.getHeader("Content-Encoding"));
+            context.assertEquals("Accept-Encoding", resp.getHeader("Vary"));
+
+            resp.bodyHandler(b -> {
+                context.assertTrue(b.length() < expected.length());
+
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(b.getBytes()))) {
+                    context.assertEquals(expected, IOUtils.toString(in, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    context.fail(e);
+                }
+
+                context.assertEquals(1, ResponseCompressor.getCachedCount());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Accept-Encoding", "gzip, deflate");
+        req.end();
+    }
+
+    @Test
+    public void testCompressedResultCacheSeparatesRoutesWithSameETag(TestContext context)
+    {
+        ResponseCompressor.clearCache();
+
+        String expected = String.join("", Collections.nCopies(256, "Hello, compression!"));
+        String expectedOther = String.join("", Collections.nCopies(256, "Other, compression!"));
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/compressibleRequest");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> resp.bodyHandler(b -> {
+            context.assertEquals("gzip", resp.getHeader("Content-Encoding"));
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(b.getBytes()))) {
+                context.assertEquals(expected, IOUtils.toString(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                context.fail(e);
+            }
+
+            HttpClientRequest req2 = get("/TestService/compressibleSameETagRequest");
+            req2.exceptionHandler(context::fail);
+
+            req2.handler(resp2 -> resp2.bodyHandler(b2 -> {
+                context.assertEquals("gzip", resp2.getHeader("Content-Encoding"));
+                context.assertEquals(resp.getHeader("ETag"), resp2.getHeader("ETag"));
+
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(b2.getBytes()))) {
+                    context.assertEquals(expectedOther, IOUtils.toString(in, StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    context.fail(e);
+                }
+
+                context.assertEquals(2, ResponseCompressor.getCachedCount());
+                async.complete();
+            }));
+
+            req2.putHeader("Accept-Encoding", "gzip, deflate");
+            req2.end();
+        }));
+
+        req.putHeader("Accept-Encoding", "gzip, deflate");
+        req.end();
+    }
+
+    @Test
+    public void testCompressionDisabledByAnnotation(TestContext context)
+    {
+        String expected = String.join("", Collections.nCopies(256, "Hello, compression!"));
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/uncompressedRequest");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals("identity", resp.getHeader("Content-Encoding"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals(expected, b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Accept-Encoding", "gzip, deflate");
+        req.end();
+    }
+
+    @Test
+    public void testSmallActionResultNotCompressed(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/TestService/simpleRequest");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals("identity", resp.getHeader("Content-Encoding"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("Hello, world!", b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Accept-Encoding", "gzip");
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFileNotModified(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/a.txt");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+
+            String etag = resp.getHeader("ETag");
+            context.assertNotNull(etag);
+
+            HttpClientRequest req2 = get("/a.txt");
+            req2.exceptionHandler(context::fail);
+
+            req2.handler(resp2 -> {
+                context.assertEquals(304, resp2.statusCode());
+                context.assertEquals(etag, resp2.getHeader("ETag"));
+                async.complete();
+            });
+
+            req2.putHeader("If-None-Match", etag);
+            req2.end();
+        });
+
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFileRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/a.txt");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+            context.assertEquals("bytes 1-3/5", resp.getHeader("Content-Range"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("ell", b.toString());
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=1-3");
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFileMultipleRanges(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/a.txt");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(206, resp.statusCode());
+
+            String contentType = resp.getHeader("Content-Type");
+            context.assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+
+            String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+            resp.bodyHandler(b -> {
+                String body = b.toString();
+
+                context.assertEquals(Integer.parseInt(resp.getHeader("Content-Length")), b.length());
+                context.assertTrue(body.contains("Content-Range: bytes 0-1/5\r\n\r\nHe\r\n--" + boundary));
+                context.assertTrue(body.contains("Content-Range: bytes 3-4/5\r\n\r\nlo\r\n--" + boundary + "--\r\n"));
+                async.complete();
+            });
+        });
+
+        req.putHeader("Range", "bytes=3-4,0-0,1-1");
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFileRangeWithETagIfRange(TestContext context)
+    {
+        Async async = context.async();
+        HttpClientRequest req = get("/a.txt");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+
+            String etag = resp.getHeader("ETag");
+            context.assertNotNull(etag);
+
+            HttpClientRequest req2 = get("/a.txt");
+            req2.exceptionHandler(context::fail);
+
+            req2.handler(resp2 -> {
+                context.assertEquals(206, resp2.statusCode());
+                context.assertEquals("bytes 1-3/5", resp2.getHeader("Content-Range"));
+
+                resp2.bodyHandler(b -> {
+                    context.assertEquals("ell", b.toString());
+                    async.complete();
+                });
+            });
+
+            req2.putHeader("Range", "bytes=1-3");
+            req2.putHeader("If-Range", etag);
+            req2.end();
+        });
+
+        req.end();
+    }
+
+    @Test
+    public void testGetStaticFileRangeWithMismatchedIfRange(TestContext context)
+    {
+        Async async = context.async(3);
+
+        for (String ifRange : new String[] { "\"0-0\"", "W/\"0-0\"", "not a date" }) {
+            HttpClientRequest req = get("/a.txt");
+            req.exceptionHandler(context::fail);
+
+            req.handler(resp -> {
+                context.assertEquals(200, resp.statusCode());
+                context.assertNull(resp.getHeader("Content-Range"));
+
+                resp.bodyHandler(b -> {
+                    context.assertEquals("Hello", b.toString());
+                    async.countDown();
+                });
+            });
+
+            req.putHeader("Range", "bytes=1-3");
+            req.putHeader("If-Range", ifRange);
+            req.end();
+        }
+    }
+
+    @Test
+    public void testGetPrecompressedStaticFile(TestContext context) throws Exception
+    {
+        Path root = Paths.get(getClass().getResource("/APP_ROOT").toURI());
+        Path file = root.resolve("precompressed.txt");
+        Path gzFile = root.resolve("precompressed.txt.gz");
+
+        Files.write(file, "Hello, precompressed!".getBytes(StandardCharsets.UTF_8));
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzFile))) {
+            out.write("Hello, precompressed!".getBytes(StandardCharsets.UTF_8));
+        }
+
+        byte[] gzData = Files.readAllBytes(gzFile);
+
+        Async async = context.async();
+        HttpClientRequest req = get("/precompressed.txt");
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals("gzip", resp.getHeader("Content-Encoding"));
+            context.assertEquals("Accept-Encoding", resp.getHeader("Vary"));
+            context.assertTrue(resp.getHeader("Content-Type").startsWith("text/plain"));
+
+            resp.bodyHandler(b -> {
+                context.assertTrue(Arrays.equals(gzData, b.getBytes()));
+
+                HttpClientRequest req2 = get("/precompressed.txt");
+                req2.exceptionHandler(context::fail);
+
+                req2.handler(resp2 -> {
+                    context.assertNull(resp2.getHeader("Content-Encoding"));
+                    context.assertEquals("Accept-Encoding", resp2.getHeader("Vary"));
+
+                    resp2.bodyHandler(b2 -> {
+                        context.assertEquals("Hello, precompressed!", b2.toString());
+
+                        try {
+                            Files.delete(file);
+                            Files.delete(gzFile);
+                        } catch (IOException e) {
+                            context.fail(e);
+                        }
+
+                        async.complete();
+                    });
+                });
+
+                req2.putHeader("Accept-Encoding", "br;q=0, gzip;q=0");
+                req2.end();
+            });
+        });
+
+        req.putHeader("Accept-Encoding", "gzip, deflate");
+        req.end();
+    }
+
+    @Test
+    public void testGetFingerprintedStaticFile(TestContext context) throws Exception
+    {
+        RouteManager.loadAssetManifest();
+
+        String url = RouteManager.getAssetManifest().getUrl("/a.txt");
+        context.assertTrue(url.matches("/a\\.[0-9a-f]{8}\\.txt"));
+
+        Async async = context.async();
+        HttpClientRequest req = get(url);
+        req.exceptionHandler(context::fail);
+
+        req.handler(resp -> {
+            context.assertEquals(200, resp.statusCode());
+            context.assertEquals("public, max-age=31536000, immutable", resp.getHeader("Cache-Control"));
+
+            resp.bodyHandler(b -> {
+                context.assertEquals("Hello", b.toString());
+
+                HttpClientRequest req2 = get("/a.txt");
+                req2.exceptionHandler(context::fail);
+
+                req2.handler(resp2 -> {
+                    context.assertEquals(200, resp2.statusCode());
+                    context.assertNull(resp2.getHeader("Cache-Control"));
+                    async.complete();
+                });
+
+                req2.end();
+            });
+        });
+
+        req.end();
+    }
+
     @Test
     public void testSimpleRequestThroughAPIService(TestContext context)
     {
@@ -888,6 +1644,22 @@ public class CowherdTest
         req.end();
     }
 
+    @Test
+    public void testValidateCSRFTokenWithRepeatedCookies(TestContext context) {
+        cowherd.getServer().addCSRFToken("test-token");
+
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/csrfValidateRequest");
+        req.exceptionHandler(context::fail);
+        req.putHeader("Cookie", "csrf-token=other-path-token; csrf-token=test-token");
+
+        checkIfSuccessAndString(context, async, req, "CSRF", (data, resp) -> {
+            context.assertFalse(cowherd.getServer().checkCSRFToken("test-token"));
+        });
+
+        req.end();
+    }
+
     @Test
     public void testValidateCSRFTokenFailWrongToken(TestContext context) {
         cowherd.getServer().addCSRFToken("test-token");
@@ -922,4 +1694,33 @@ public class CowherdTest
 
         req.end();
     }
+
+    @Test
+    public void testStatelessCSRFToken(TestContext context) {
+        CSRFConfig csrfConfig = CowherdConfiguration.getCsrfConfig();
+        CSRFConfig statelessConfig = new CSRFConfig();
+        statelessConfig.setStateless(true);
+        statelessConfig.setSecret("test-secret");
+        CowherdConfiguration.setCsrfConfig(statelessConfig);
+
+        String csrfToken = cowherd.getServer().generateCSRFToken();
+        context.assertTrue(cowherd.getServer().checkCSRFToken(csrfToken));
+
+        Async async = context.async();
+        HttpClientRequest req = post("/TestService/csrfValidateRequest");
+        req.exceptionHandler(context::fail);
+        req.putHeader("Cookie", "csrf-token=" + csrfToken);
+
+        checkIfSuccessAndString(context, async, req, "CSRF", (data, resp) -> {
+            boolean valid = cowherd.getServer().checkCSRFToken(csrfToken);
+            boolean consumed = cowherd.getServer().checkAndRemoveCSRFToken(csrfToken);
+
+            CowherdConfiguration.setCsrfConfig(csrfConfig);
+
+            context.assertFalse(valid);
+            context.assertFalse(consumed);
+        });
+
+        req.end();
+    }
 }
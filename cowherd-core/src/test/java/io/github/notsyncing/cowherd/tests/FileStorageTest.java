@@ -17,13 +17,14 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 @RunWith(VertxUnitRunner.class)
 public class FileStorageTest
@@ -210,4 +211,88 @@ public class FileStorageTest
                     return null;
                 });
     }
+
+    @Test
+    public void testStoreFileByMove(TestContext context) throws IOException
+    {
+        Path dir = tempDir.resolve("test_storage");
+        fs.registerStoragePath(TestStorageEnum.TestStorage, dir);
+
+        Path tempFile = Files.write(tempDir.resolve("upload.txt"), "Upload".getBytes());
+        Object fileKey = Files.readAttributes(tempFile, BasicFileAttributes.class).fileKey();
+        Async async = context.async();
+
+        fs.storeFile(tempFile, TestStorageEnum.TestStorage, "moved.txt", false)
+                .thenAccept(p -> {
+                    try {
+                        Path stored = dir.resolve("moved.txt");
+
+                        context.assertEquals(stored, p);
+                        context.assertTrue(Files.notExists(tempFile));
+                        context.assertEquals("Upload", new String(Files.readAllBytes(stored)));
+
+                        if (fileKey != null) {
+                            context.assertEquals(fileKey, Files.readAttributes(stored, BasicFileAttributes.class).fileKey());
+                        }
+                    } catch (IOException e) {
+                        context.fail(e);
+                    }
+
+                    async.complete();
+                })
+                .exceptionally(ex -> {
+                    context.fail(ex);
+                    async.complete();
+                    return null;
+                });
+    }
+
+    @Test
+    public void testStoreFileByMoveNotOverwriteExisting(TestContext context) throws IOException
+    {
+        Path dir = tempDir.resolve("test_storage");
+        fs.registerStoragePath(TestStorageEnum.TestStorage, dir);
+
+        Path tempFile = Files.write(tempDir.resolve("upload.txt"), "Upload".getBytes());
+        Path existing = Files.write(dir.resolve("existing.txt"), "Existing".getBytes());
+        Async async = context.async();
+
+        fs.storeFile(tempFile, TestStorageEnum.TestStorage, "existing.txt", false)
+                .whenComplete((p, ex) -> {
+                    try {
+                        context.assertTrue(ex.getCause() instanceof FileAlreadyExistsException);
+                        context.assertTrue(Files.exists(tempFile));
+                        context.assertEquals("Existing", new String(Files.readAllBytes(existing)));
+                    } catch (IOException e) {
+                        context.fail(e);
+                    }
+
+                    async.complete();
+                });
+    }
+
+    @Test
+    public void testUploadStorage() throws IOException
+    {
+        Path dir = tempDir.resolve("test_storage");
+        fs.registerStoragePath(TestStorageEnum.TestStorage, dir);
+
+        assertNull(fs.getUploadStorage());
+        assertEquals(CowherdConfiguration.getUploadCacheDir(), fs.getUploadDirectory());
+
+        fs.setUploadStorage(TestStorageEnum.TestStorage);
+
+        Path uploadDir = dir.resolve(FileStorage.UPLOADING_DIR_NAME);
+        assertEquals(TestStorageEnum.TestStorage, fs.getUploadStorage());
+        assertEquals(uploadDir, fs.getUploadDirectory());
+        assertTrue(Files.isDirectory(uploadDir));
+        assertTrue(fs.isUploadingFile(TestStorageEnum.TestStorage, uploadDir.resolve("abc")));
+        assertTrue(fs.isUploadingFile(TestStorageEnum.TestStorage, dir.resolve("a/../.uploading/abc")));
+        assertFalse(fs.isUploadingFile(TestStorageEnum.TestStorage, dir.resolve("abc")));
+
+        fs.setUploadStorage(null);
+
+        assertNull(fs.getUploadStorage());
+        assertEquals(CowherdConfiguration.getUploadCacheDir(), fs.getUploadDirectory());
+    }
 }
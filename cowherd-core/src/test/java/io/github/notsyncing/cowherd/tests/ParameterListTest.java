@@ -0,0 +1,85 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.ParameterList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParameterListTest
+{
+    @Test
+    public void testLookup()
+    {
+        ParameterList l = new ParameterList();
+        l.add("a", "1");
+        l.add("b", "2");
+        l.add("a", "3");
+
+        assertEquals(3, l.size());
+        assertEquals("a", l.get(2).getKey());
+        assertTrue(l.containsKey("a"));
+        assertFalse(l.containsKey("c"));
+        assertEquals("1", l.getFirst("a"));
+        assertEquals("3", l.getLast("a"));
+        assertEquals("2", l.getFirst("b"));
+        assertNull(l.getFirst("c"));
+        assertEquals(Arrays.asList("1", "3"), l.getAll("a"));
+        assertEquals(Collections.singletonList("2"), l.getAll("b"));
+        assertTrue(l.getAll("c").isEmpty());
+    }
+
+    @Test
+    public void testLookupAfterModification()
+    {
+        ParameterList l = new ParameterList();
+        l.add("a", "1");
+        l.add("b", "2");
+        l.add(0, new Pair<>("a", "0"));
+
+        assertEquals(Arrays.asList("0", "1"), l.getAll("a"));
+
+        l.remove(0);
+
+        assertEquals(Collections.singletonList("1"), l.getAll("a"));
+
+        l.set(1, new Pair<>("c", "3"));
+
+        assertFalse(l.containsKey("b"));
+        assertEquals("3", l.getFirst("c"));
+
+        l.removeIf(p -> p.getKey().equals("a"));
+
+        assertFalse(l.containsKey("a"));
+
+        l.get(0).setValue("4");
+
+        assertEquals("4", l.getFirst("c"));
+
+        l.clear();
+
+        assertFalse(l.containsKey("c"));
+        assertTrue(l.isEmpty());
+    }
+
+    @Test
+    public void testFrom()
+    {
+        List<Pair<String, String>> list = new ArrayList<>();
+        list.add(new Pair<>("a", "1"));
+        list.add(new Pair<>("a", "2"));
+
+        ParameterList l = ParameterList.from(list);
+
+        assertEquals(list, l);
+        assertEquals("1", l.getFirst("a"));
+        assertSame(l, ParameterList.from(l));
+        assertTrue(ParameterList.from(null).isEmpty());
+        assertEquals("2", Pair.listGetValues(l, "a").get(1));
+    }
+}
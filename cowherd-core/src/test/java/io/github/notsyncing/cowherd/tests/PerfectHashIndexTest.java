@@ -0,0 +1,42 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.files.PerfectHashIndex;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PerfectHashIndexTest
+{
+    @Test
+    public void testGet()
+    {
+        String[] keys = new String[10000];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "static/js/chunk-" + i + ".js";
+        }
+
+        PerfectHashIndex index = new PerfectHashIndex(keys);
+        assertEquals(keys.length, index.size());
+
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, index.get(keys[i]));
+        }
+
+        assertEquals(-1, index.get("static/js/chunk-10000.js"));
+        assertEquals(-1, index.get(""));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        PerfectHashIndex index = new PerfectHashIndex(new String[0]);
+        assertEquals(-1, index.get("index.html"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateKeys()
+    {
+        new PerfectHashIndex(new String[] { "a", "b", "a" });
+    }
+}
@@ -7,8 +7,14 @@ import io.github.notsyncing.cowherd.exceptions.ParameterProcessException;
 import io.github.notsyncing.cowherd.exceptions.ValidationFailedException;
 import io.github.notsyncing.cowherd.models.ActionContext;
 import io.github.notsyncing.cowherd.models.ActionMethodInfo;
+import io.github.notsyncing.cowherd.models.ActionParameterBinder;
 import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.RangeHeaderInfo;
+import io.github.notsyncing.cowherd.models.RequestBody;
+import io.github.notsyncing.cowherd.models.RequestCookies;
+import io.github.notsyncing.cowherd.utils.CookieUtils;
 import io.github.notsyncing.cowherd.utils.RequestUtils;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -17,10 +23,12 @@ import java.lang.reflect.Method;
 import java.net.HttpCookie;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 class TestParamClass
 {
@@ -45,6 +53,7 @@ public class RequestUtilsTest
     private Method testMethod2;
     private Method testMethod3;
     private Method testMethod4;
+    private Method testMethod5;
 
     public RequestUtilsTest()
     {
@@ -57,6 +66,8 @@ public class RequestUtilsTest
                 testMethod3 = m;
             } else if (m.getName().equals("testMethod4")) {
                 testMethod4 = m;
+            } else if (m.getName().equals("testMethod5")) {
+                testMethod5 = m;
             }
         }
     }
@@ -78,6 +89,23 @@ public class RequestUtilsTest
                              @Parameter(parseType = ParameterParseType.JSON) TestParamClass b) {
     }
 
+    private void testMethod5(@Parameter(parseType = ParameterParseType.JSONBody) List<TestParamClass> a, String b)
+    {
+    }
+
+    private ActionContext createJsonBodyContext(Method m, String json)
+    {
+        HttpServerRequest req = Mockito.mock(HttpServerRequest.class);
+        when(req.getHeader("Content-Type")).thenReturn("application/json; charset=utf-8");
+
+        ActionContext context = new ActionContext();
+        context.setActionMethod(new ActionMethodInfo(m));
+        context.setRequest(req);
+        context.setRequestBody(new RequestBody(Buffer.buffer(json)));
+
+        return context;
+    }
+
     @Test
     public void testConvertParameterListToMethodParameters() throws IllegalAccessException, ValidationFailedException, InstantiationException, ParameterProcessException {
         List<Pair<String, String>> params = new ArrayList<>();
@@ -346,6 +374,63 @@ public class RequestUtilsTest
         assertEquals("3", c.getValue());
     }
 
+    @Test
+    public void testActionMethodBinderRebuiltWithParameters()
+    {
+        ActionMethodInfo info = new ActionMethodInfo(testMethod1);
+        ActionParameterBinder binder = info.getBinder();
+
+        assertSame(binder, info.getBinder());
+
+        info.setParameters(info.getParameters());
+
+        assertNotSame(binder, info.getBinder());
+    }
+
+    @Test
+    public void testParseHttpCookiesLazily()
+    {
+        HttpServerRequest req = Mockito.mock(HttpServerRequest.class);
+        when(req.getHeader("Cookie")).thenReturn(" a = 1 ;b=x=y==; empty=; noValue; a=2");
+
+        RequestCookies cookies = new RequestCookies(req);
+
+        verify(req, never()).getHeader("Cookie");
+
+        assertEquals("1", cookies.getValue("a"));
+        assertEquals("x=y==", cookies.getValue("b"));
+        assertFalse(cookies.containsName("empty"));
+        assertFalse(cookies.containsName("noValue"));
+        assertNull(cookies.getValue("c"));
+        assertEquals(2, cookies.size());
+
+        HttpCookie b = cookies.getCookie("b");
+        assertEquals("b", b.getName());
+        assertSame(b, cookies.get(1));
+        assertSame(b, CookieUtils.findCookie(cookies, "b"));
+
+        verify(req, times(1)).getHeader("Cookie");
+    }
+
+    @Test
+    public void testParseHttpCookiesKeepsRepeatedValues()
+    {
+        HttpServerRequest req = Mockito.mock(HttpServerRequest.class);
+        when(req.getHeader("Cookie")).thenReturn("a=1; b=2; a=3; a=4");
+
+        RequestCookies cookies = new RequestCookies(req);
+
+        assertEquals("1", cookies.getValue("a"));
+        assertEquals(Arrays.asList("1", "3", "4"), cookies.getValues("a"));
+        assertEquals(Collections.singletonList("2"), cookies.getValues("b"));
+        assertTrue(cookies.getValues("c").isEmpty());
+        assertEquals(2, cookies.size());
+
+        assertEquals(Arrays.asList("1", "3", "4"), CookieUtils.getCookieValues(cookies, "a"));
+        assertEquals(Arrays.asList("1", "3"), CookieUtils.getCookieValues(Arrays.asList(new HttpCookie("a", "1"),
+                new HttpCookie("b", "2"), new HttpCookie("a", "3")), "a"));
+    }
+
     @Test
     public void testParseJsonTypeParameter() throws IllegalAccessException, ValidationFailedException, InstantiationException, ParameterProcessException {
         List<Pair<String, String>> params = new ArrayList<>();
@@ -369,4 +454,94 @@ public class RequestUtilsTest
         assertEquals("test", b.e);
         assertEquals(2, b.f);
     }
+
+    @Test
+    public void testConvertParameterListToMethodParametersWithJSONBody() throws IllegalAccessException, ValidationFailedException, InstantiationException, ParameterProcessException {
+        String json = "{" +
+                "\"a\": \"test\"," +
+                "\"x\": {\"y\": [1, 2]}," +
+                "\"b\": 2," +
+                "\"c\": [\"h\", \"el\", \"lo\"]," +
+                "\"d\": {" +
+                "\"e\": \"test2\"," +
+                "\"f\": 3" +
+                "}" +
+                "}";
+
+        List<Pair<String, String>> params = new ArrayList<>();
+        params.add(new Pair<>("a", "overridden"));
+
+        ActionContext context = createJsonBodyContext(testMethod1, json);
+
+        Object[] results = RequestUtils.convertParameterListToMethodParameters(context, params, null, null);
+        assertEquals("test", results[0]);
+        assertEquals(2, results[1]);
+        assertArrayEquals(new String[] { "h", "el", "lo" }, ((List<String>)results[2]).toArray(new String[0]));
+
+        TestParamClass d = (TestParamClass)results[3];
+        assertNotNull(d);
+        assertEquals("test2", d.e);
+        assertEquals(3, d.f);
+    }
+
+    @Test
+    public void testConvertParameterListToMethodParametersWithWholeJSONBody() throws IllegalAccessException, ValidationFailedException, InstantiationException, ParameterProcessException {
+        String json = "[{\"e\": \"test\", \"f\": 1}, {\"e\": \"test2\", \"f\": 2}]";
+
+        List<Pair<String, String>> params = new ArrayList<>();
+        params.add(new Pair<>("b", "query"));
+
+        ActionContext context = createJsonBodyContext(testMethod5, json);
+
+        Object[] results = RequestUtils.convertParameterListToMethodParameters(context, params, null, null);
+        List<TestParamClass> a = (List<TestParamClass>) results[0];
+
+        assertNotNull(a);
+        assertEquals(2, a.size());
+        assertEquals("test", a.get(0).e);
+        assertEquals(1, a.get(0).f);
+        assertEquals("test2", a.get(1).e);
+        assertEquals(2, a.get(1).f);
+        assertEquals("query", results[1]);
+    }
+
+    @Test
+    public void testParseRangeHeader()
+    {
+        List<RangeHeaderInfo> ranges = RequestUtils.parseRangeHeader("bytes=0-99, 5000000000-, -500");
+
+        assertEquals(3, ranges.size());
+        assertEquals(0, ranges.get(0).getStart());
+        assertEquals(99, ranges.get(0).getEnd());
+        assertEquals(5000000000L, ranges.get(1).getStart());
+        assertTrue(ranges.get(2).isSuffix());
+
+        RangeHeaderInfo suffix = ranges.get(2);
+        assertTrue(suffix.resolve(6000000000L));
+        assertEquals(5999999500L, suffix.getStart());
+        assertEquals(5999999999L, suffix.getEnd());
+
+        assertTrue(ranges.get(1).resolve(6000000000L));
+        assertEquals(5999999999L, ranges.get(1).getEnd());
+        assertFalse(ranges.get(1).resolve(100));
+    }
+
+    @Test
+    public void testParseInvalidRangeHeader()
+    {
+        assertTrue(RequestUtils.parseRangeHeader("bytes=5-2").isEmpty());
+        assertTrue(RequestUtils.parseRangeHeader("bytes=a-b").isEmpty());
+        assertTrue(RequestUtils.parseRangeHeader("bytes=-").isEmpty());
+    }
+
+    @Test
+    public void testGetAcceptedEncodingQuality()
+    {
+        assertEquals(1, RequestUtils.getAcceptedEncodingQuality("gzip, deflate, br", "br"), 0);
+        assertEquals(0.5, RequestUtils.getAcceptedEncodingQuality("gzip;q=0.5, br;q=1.0", "gzip"), 0);
+        assertEquals(0, RequestUtils.getAcceptedEncodingQuality("gzip;q=0, *", "gzip"), 0);
+        assertEquals(0.1, RequestUtils.getAcceptedEncodingQuality("deflate, *;q=0.1", "br"), 0);
+        assertEquals(0, RequestUtils.getAcceptedEncodingQuality("deflate", "gzip"), 0);
+        assertEquals(0, RequestUtils.getAcceptedEncodingQuality(null, "gzip"), 0);
+    }
 }
@@ -0,0 +1,111 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.commons.CompressionConfig;
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.server.ContentEncoder;
+import io.github.notsyncing.cowherd.server.ResponseCompressor;
+import io.vertx.core.buffer.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ResponseCompressorTest
+{
+    private boolean enableCompression;
+    private CompressionConfig compressionConfig;
+
+    @Before
+    public void setUp()
+    {
+        enableCompression = CowherdConfiguration.isEnableCompression();
+        compressionConfig = CowherdConfiguration.getCompressionConfig();
+
+        CowherdConfiguration.setEnableCompression(true);
+        CowherdConfiguration.setCompressionConfig(new CompressionConfig());
+    }
+
+    @After
+    public void tearDown()
+    {
+        ResponseCompressor.unregisterEncoder("br");
+
+        CowherdConfiguration.setEnableCompression(enableCompression);
+        CowherdConfiguration.setCompressionConfig(compressionConfig);
+    }
+
+    @Test
+    public void testIsCompressibleType()
+    {
+        assertTrue(ResponseCompressor.isCompressibleType("text/html;charset=UTF-8"));
+        assertTrue(ResponseCompressor.isCompressibleType("application/json"));
+        assertTrue(ResponseCompressor.isCompressibleType("image/svg+xml"));
+        assertTrue(ResponseCompressor.isCompressibleType(null));
+        assertFalse(ResponseCompressor.isCompressibleType("image/png"));
+        assertFalse(ResponseCompressor.isCompressibleType("video/mp4"));
+        assertFalse(ResponseCompressor.isCompressibleType("application/zip"));
+        assertFalse(ResponseCompressor.isCompressibleType("application/x-unknown"));
+    }
+
+    @Test
+    public void testIsCompressibleTypeWithEmptyAllowList()
+    {
+        CowherdConfiguration.getCompressionConfig().setAllowContentTypes(Collections.emptyList());
+
+        assertTrue(ResponseCompressor.isCompressibleType("application/x-unknown"));
+        assertFalse(ResponseCompressor.isCompressibleType("image/png"));
+    }
+
+    @Test
+    public void testIsCompressible()
+    {
+        assertFalse(ResponseCompressor.isCompressible("text/plain", 100));
+        assertTrue(ResponseCompressor.isCompressible("text/plain", 4096));
+        assertTrue(ResponseCompressor.isCompressible("text/plain", -1));
+        assertFalse(ResponseCompressor.isCompressible("image/jpeg", 4096));
+
+        CowherdConfiguration.setEnableCompression(false);
+
+        assertFalse(ResponseCompressor.isCompressible("text/plain", 4096));
+    }
+
+    @Test
+    public void testSelectEncoder()
+    {
+        assertNull(ResponseCompressor.selectEncoder(null));
+        assertNull(ResponseCompressor.selectEncoder("identity"));
+        assertEquals("gzip", ResponseCompressor.selectEncoder("gzip, deflate").getName());
+        assertEquals("deflate", ResponseCompressor.selectEncoder("gzip;q=0.5, deflate").getName());
+        assertEquals("gzip", ResponseCompressor.selectEncoder("*").getName());
+    }
+
+    @Test
+    public void testRegisteredEncoderPreferred()
+    {
+        ResponseCompressor.registerEncoder(new ContentEncoder()
+        {
+            @Override
+            public String getName()
+            {
+                return "br";
+            }
+
+            @Override
+            public Buffer encode(Buffer data, int level)
+            {
+                return data;
+            }
+        });
+
+        assertEquals("br", ResponseCompressor.selectEncoder("gzip, deflate, br").getName());
+        assertEquals("gzip", ResponseCompressor.selectEncoder("gzip, deflate").getName());
+        assertEquals("gzip", ResponseCompressor.selectEncoder("gzip, br;q=0.5").getName());
+
+        ResponseCompressor.unregisterEncoder("br");
+
+        assertEquals("gzip", ResponseCompressor.selectEncoder("gzip, deflate, br").getName());
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.notsyncing.cowherd.tests;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.github.notsyncing.cowherd.utils.ResponseUtils;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ResponseUtilsTest
+{
+    private enum TestEnum
+    {
+        TestA,
+        TestB
+    }
+
+    @Test
+    public void testStringToBuffer()
+    {
+        String s = "Hello, 世界! 😀 ü \ud800";
+        Buffer b = ResponseUtils.stringToBuffer(s);
+
+        assertArrayEquals(s.getBytes(StandardCharsets.UTF_8), b.getBytes());
+    }
+
+    @Test
+    public void testObjectToJsonBuffer()
+    {
+        Map<String, Object> o = new HashMap<>();
+        o.put("a", "测试");
+        o.put("b", 2);
+        o.put("c", TestEnum.TestB);
+
+        assertEquals(JSON.toJSONString(o), ResponseUtils.objectToJsonBuffer(o).toString());
+        assertEquals(JSON.toJSONString(o, SerializerFeature.WriteEnumUsingName),
+                ResponseUtils.objectToJsonBuffer(o, SerializerFeature.WriteEnumUsingName).toString());
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.annotations.Route;
+import io.github.notsyncing.cowherd.models.FilterExecutionInfo;
+import io.github.notsyncing.cowherd.models.FilterInfo;
+import io.github.notsyncing.cowherd.models.RouteInfo;
+import io.github.notsyncing.cowherd.models.SimpleURI;
+import io.github.notsyncing.cowherd.routing.FastRouteMatcher;
+import io.github.notsyncing.cowherd.routing.RegexRouteMatcher;
+import io.github.notsyncing.cowherd.routing.RouteFilterChain;
+import io.github.notsyncing.cowherd.server.FilterManager;
+import io.github.notsyncing.cowherd.server.ServiceActionFilter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class RouteFilterChainTest
+{
+    @Route(value = "/RouteFilterChainTest/a", fastRoute = true)
+    public static class LiteralFilter implements ServiceActionFilter
+    {
+    }
+
+    @Route(value = "/RouteFilterChainTest/:id/b", fastRoute = true)
+    public static class ParameterFilter implements ServiceActionFilter
+    {
+    }
+
+    @Route(value = "/RouteFilterChainTest/**:rest", fastRoute = true)
+    public static class RestFilter implements ServiceActionFilter
+    {
+    }
+
+    @Route(value = "/RouteFilterChainTest/a/b/c/d", fastRoute = true)
+    public static class LongFilter implements ServiceActionFilter
+    {
+    }
+
+    @Route(value = "^/RouteFilterChainTest/a/")
+    public static class RegexFilter implements ServiceActionFilter
+    {
+    }
+
+    public void dummyAction()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        FilterManager.addRoutedFilterClass(LiteralFilter.class);
+        FilterManager.addRoutedFilterClass(ParameterFilter.class);
+        FilterManager.addRoutedFilterClass(RestFilter.class);
+        FilterManager.addRoutedFilterClass(LongFilter.class);
+        FilterManager.addRoutedFilterClass(RegexFilter.class);
+    }
+
+    private List<Class<?>> linearMatch(SimpleURI uri)
+    {
+        FastRouteMatcher fastRouteMatcher = new FastRouteMatcher(uri);
+        RegexRouteMatcher regexRouteMatcher = new RegexRouteMatcher(uri);
+
+        return FilterManager.getRoutedFilters().entrySet().stream()
+                .filter(e -> e.getKey().isFastRoute() ? fastRouteMatcher.matchOnly(e.getKey()) :
+                        regexRouteMatcher.matchOnly(e.getKey()))
+                .map(Map.Entry::getValue)
+                .map(FilterInfo::getFilterClass)
+                .collect(Collectors.toList());
+    }
+
+    private void assertSameAsLinearMatch(String routePath, String url) throws URISyntaxException, NoSuchMethodException
+    {
+        RouteInfo route = new RouteInfo(routePath);
+        route.setFastRoute(true);
+
+        Method m = RouteFilterChainTest.class.getMethod("dummyAction");
+        SimpleURI uri = new SimpleURI(url);
+
+        List<Class<?>> expected = linearMatch(uri);
+        List<Class<?>> actual = RouteFilterChain.build(route, m).instantiate(uri).stream()
+                .map(FilterExecutionInfo::getFilter)
+                .filter(f -> FilterManager.getRoutedFilters().containsValue(f))
+                .map(FilterInfo::getFilterClass)
+                .collect(Collectors.toList());
+
+        assertEquals(routePath + " " + url, expected, actual);
+    }
+
+    @Test
+    public void testRoutedFiltersSameAsLinearMatch() throws URISyntaxException, NoSuchMethodException
+    {
+        assertSameAsLinearMatch("/RouteFilterChainTest/a", "http://www.test.com/RouteFilterChainTest/a");
+        assertSameAsLinearMatch("/RouteFilterChainTest/a/b", "http://www.test.com/RouteFilterChainTest/a/b");
+        assertSameAsLinearMatch("/RouteFilterChainTest/:x", "http://www.test.com/RouteFilterChainTest/a");
+        assertSameAsLinearMatch("/RouteFilterChainTest/:x", "http://www.test.com/RouteFilterChainTest/z");
+        assertSameAsLinearMatch("/RouteFilterChainTest/:x", "http://www.test.com/RouteFilterChainTest/z/b");
+        assertSameAsLinearMatch("/RouteFilterChainTest/**:p", "http://www.test.com/RouteFilterChainTest/a/b/c/d");
+        assertSameAsLinearMatch("/RouteFilterChainTest/**:p", "http://www.test.com/RouteFilterChainTest/q");
+        assertSameAsLinearMatch("/RouteFilterChainTest/a/b/c", "http://www.test.com/RouteFilterChainTest/a/b/c/d");
+        assertSameAsLinearMatch("/Other/a", "http://www.test.com/Other/a");
+    }
+}
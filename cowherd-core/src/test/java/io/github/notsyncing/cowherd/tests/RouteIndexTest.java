@@ -0,0 +1,279 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.models.ActionMethodInfo;
+import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.RouteInfo;
+import io.github.notsyncing.cowherd.models.SimpleURI;
+import io.github.notsyncing.cowherd.routing.FastRouteMatcher;
+import io.github.notsyncing.cowherd.routing.MatchedRoute;
+import io.github.notsyncing.cowherd.routing.RegexRouteMatcher;
+import io.github.notsyncing.cowherd.routing.RouteIndex;
+import io.github.notsyncing.cowherd.routing.RouteMatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class RouteIndexTest
+{
+    private Map<RouteInfo, ActionMethodInfo> routes;
+    private ActionMethodInfo action;
+
+    public void dummyAction()
+    {
+    }
+
+    @Before
+    public void setUp() throws NoSuchMethodException
+    {
+        routes = new ConcurrentSkipListMap<>();
+
+        Method m = RouteIndexTest.class.getMethod("dummyAction");
+        action = new ActionMethodInfo(m);
+    }
+
+    private RouteInfo addFastRoute(String path)
+    {
+        RouteInfo info = new RouteInfo(path);
+        info.setFastRoute(true);
+        routes.put(info, action);
+        return info;
+    }
+
+    private RouteInfo addRegexRoute(String path)
+    {
+        RouteInfo info = new RouteInfo(path);
+        routes.put(info, action);
+        return info;
+    }
+
+    private MatchedRoute linearMatch(SimpleURI uri)
+    {
+        RouteMatcher fastRouteMatcher = new FastRouteMatcher(uri);
+        RouteMatcher regexRouteMatcher = new RegexRouteMatcher(uri);
+
+        for (Map.Entry<RouteInfo, ActionMethodInfo> r : routes.entrySet()) {
+            RouteMatcher matcher = r.getKey().isFastRoute() ? fastRouteMatcher : regexRouteMatcher;
+            MatchedRoute mr = matcher.match(r.getKey());
+
+            if (mr != null) {
+                return mr;
+            }
+        }
+
+        return null;
+    }
+
+    private void assertSameAsLinearMatch(String url) throws URISyntaxException
+    {
+        SimpleURI uri = new SimpleURI(url);
+        MatchedRoute expected = linearMatch(uri);
+        MatchedRoute actual = RouteIndex.build(routes).match(uri);
+
+        if (expected == null) {
+            assertNull(url, actual);
+            return;
+        }
+
+        assertNotNull(url, actual);
+        assertSame(url, expected.getRoute(), actual.getRoute());
+        assertEquals(url, expected.getRouteParameters().size(), actual.getRouteParameters().size());
+
+        for (int i = 0; i < expected.getRouteParameters().size(); i++) {
+            assertEquals(expected.getRouteParameters().get(i).getKey(), actual.getRouteParameters().get(i).getKey());
+            assertEquals(expected.getRouteParameters().get(i).getValue(), actual.getRouteParameters().get(i).getValue());
+        }
+    }
+
+    @Test
+    public void testMatchLiteralRoute() throws URISyntaxException
+    {
+        RouteInfo route = addFastRoute("/a/bc/def");
+        addFastRoute("/a/bc/xyz");
+
+        MatchedRoute mr = RouteIndex.build(routes).match(new SimpleURI("http://www.test.com/a/bc/def"));
+
+        assertNotNull(mr);
+        assertSame(route, mr.getRoute());
+        assertSame(action, mr.getActionMethod());
+    }
+
+    @Test
+    public void testMatchNothing() throws URISyntaxException
+    {
+        addFastRoute("/a/bc/def");
+
+        assertNull(RouteIndex.build(routes).match(new SimpleURI("http://www.test.com/a/dd/aew")));
+    }
+
+    @Test
+    public void testExtractRouteParameters() throws URISyntaxException
+    {
+        addFastRoute("/a/*/:res");
+        addFastRoute("/b/**:path");
+
+        MatchedRoute mr = RouteIndex.build(routes).match(new SimpleURI("http://www.test.com/a/bc/def"));
+        List<Pair<String, String>> params = mr.getRouteParameters();
+
+        assertEquals("res", params.get(0).getKey());
+        assertEquals("def", params.get(0).getValue());
+
+        mr = RouteIndex.build(routes).match(new SimpleURI("http://www.test.com/b/cd/ef"));
+        params = mr.getRouteParameters();
+
+        assertEquals("path", params.get(0).getKey());
+        assertEquals("cd/ef", params.get(0).getValue());
+    }
+
+    @Test
+    public void testPrecedenceSameAsLinearMatch() throws URISyntaxException
+    {
+        addFastRoute("/a/:id");
+        addFastRoute("/a/b");
+        addFastRoute("/a/b/c");
+        addFastRoute("/a/**:rest");
+        addFastRoute("/x/*/y/:z");
+        addFastRoute("/x/**:rest/q");
+        addRegexRoute("^/a/b/(?<tail>.*)$");
+        addRegexRoute("^/r/(?<name>[a-z]+)$");
+        addFastRoute("/");
+
+        RouteInfo entry = new RouteInfo("/e/entry");
+        entry.setFastRoute(true);
+        entry.setEntry(true);
+        routes.put(entry, action);
+
+        assertSameAsLinearMatch("http://www.test.com/a/b");
+        assertSameAsLinearMatch("http://www.test.com/a/b/c");
+        assertSameAsLinearMatch("http://www.test.com/a/b/d");
+        assertSameAsLinearMatch("http://www.test.com/a/b/c/d/e");
+        assertSameAsLinearMatch("http://www.test.com/a/q");
+        assertSameAsLinearMatch("http://www.test.com/x/1/y/2");
+        assertSameAsLinearMatch("http://www.test.com/x/1/y");
+        assertSameAsLinearMatch("http://www.test.com/x/1");
+        assertSameAsLinearMatch("http://www.test.com/r/abc");
+        assertSameAsLinearMatch("http://www.test.com/nothing/here");
+        assertSameAsLinearMatch("http://www.test.com/");
+    }
+
+    @Test
+    public void testRegexRoutesSameAsLinearMatch() throws URISyntaxException
+    {
+        addRegexRoute("^/files/(?<path>.*)$");
+        addRegexRoute("^/img/(?<path>.*)$");
+        addRegexRoute("b$");
+        addRegexRoute("^/a");
+        addRegexRoute("^/(?<x>[a-z])/(\\d+)/\\1$");
+        addRegexRoute("(?i)^/UPPER/(?<v>\\w+)$");
+        addFastRoute("/img/special");
+
+        RouteInfo domainRoute = new RouteInfo("(?<sub>[a-z]+).test.com", "^/d/(?<name>.+)$");
+        routes.put(domainRoute, action);
+
+        assertSameAsLinearMatch("http://www.test.com/files/a/b.txt");
+        assertSameAsLinearMatch("http://www.test.com/img/x.png");
+        assertSameAsLinearMatch("http://www.test.com/img/special");
+        assertSameAsLinearMatch("http://www.test.com/ab");
+        assertSameAsLinearMatch("http://www.test.com/azzz");
+        assertSameAsLinearMatch("http://www.test.com/q/12/12");
+        assertSameAsLinearMatch("http://www.test.com/upper/abc");
+        assertSameAsLinearMatch("http://www.test.com/d/some");
+        assertSameAsLinearMatch("http://www.other.org/d/some");
+        assertSameAsLinearMatch("http://www.test.com///files/x");
+        assertSameAsLinearMatch("http://www.test.com/zzz");
+    }
+
+    @Test
+    public void testBucketedRegexRoutesSameAsLinearMatch() throws URISyntaxException
+    {
+        addRegexRoute("^/files/(?<path>.*)$");
+        addRegexRoute("^/fil?es/(?<any>.*)$");
+        addRegexRoute("^/files/a|^/other/(?<o>.*)$");
+        addRegexRoute("^\\/img\\/(?<name>[^/]+)$");
+        addRegexRoute("^\\Q/q(?<x>\\E/(?<y>.+)$");
+        addRegexRoute("^/esc/\\((?<z>.+)\\)$");
+        addRegexRoute("^/cls[|]/(?<c>.+)$");
+        addRegexRoute("/deep/(?<d>.+)$");
+
+        assertSameAsLinearMatch("http://www.test.com/files/a/b.txt");
+        assertSameAsLinearMatch("http://www.test.com/fies/a");
+        assertSameAsLinearMatch("http://www.test.com/other/x");
+        assertSameAsLinearMatch("http://www.test.com/img/x.png");
+        assertSameAsLinearMatch("http://www.test.com/img/x/y.png");
+        assertSameAsLinearMatch("http://www.test.com/q(?<x>/abc");
+        assertSameAsLinearMatch("http://www.test.com/esc/(abc)");
+        assertSameAsLinearMatch("http://www.test.com/esc/abc");
+        assertSameAsLinearMatch("http://www.test.com/cls|/abc");
+        assertSameAsLinearMatch("http://www.test.com/x/deep/abc");
+        assertSameAsLinearMatch("http://www.test.com/files");
+        assertSameAsLinearMatch("http://www.test.com/zzz");
+    }
+
+    @Test
+    public void testUnanchoredRegexRoutesSameAsLinearMatch() throws URISyntaxException
+    {
+        addRegexRoute("TestService/simpleRequest");
+        addRegexRoute("TestService/simple");
+        addRegexRoute("abc/d");
+        addRegexRoute("bc/(?<x>.+)");
+        addRegexRoute("c/d");
+        addRegexRoute("^/abc/e");
+        addRegexRoute("Files?/(?<f>.+)");
+
+        assertSameAsLinearMatch("http://www.test.com/TestService/simpleRequest");
+        assertSameAsLinearMatch("http://www.test.com/TestService/simpleRequestX");
+        assertSameAsLinearMatch("http://www.test.com/x/TestService/simple");
+        assertSameAsLinearMatch("http://www.test.com/TestService/simpl");
+        assertSameAsLinearMatch("http://www.test.com/abc/d");
+        assertSameAsLinearMatch("http://www.test.com/abc/e");
+        assertSameAsLinearMatch("http://www.test.com/x/abc/e");
+        assertSameAsLinearMatch("http://www.test.com/xbc/q");
+        assertSameAsLinearMatch("http://www.test.com/c/d");
+        assertSameAsLinearMatch("http://www.test.com/File/a");
+        assertSameAsLinearMatch("http://www.test.com/Files/a");
+        assertSameAsLinearMatch("http://www.test.com/Fil/a");
+    }
+
+    @Test
+    public void testServiceRoutesOnlyMatchCandidates() throws URISyntaxException
+    {
+        Set<RouteInfo> matched = new HashSet<>();
+        RouteInfo target = null;
+
+        for (int i = 0; i < 50; i++) {
+            // 与 RouteManager 为未指定路由的服务方法生成的默认路由相同
+            RouteInfo info = new RouteInfo("Service" + i + "/method") {
+                @Override
+                public Pattern getPathPattern()
+                {
+                    matched.add(this);
+                    return super.getPathPattern();
+                }
+            };
+
+            routes.put(info, action);
+
+            if (i == 7) {
+                target = info;
+            }
+        }
+
+        RouteIndex index = RouteIndex.build(routes);
+        matched.clear();
+
+        MatchedRoute mr = index.match(new SimpleURI("http://www.test.com/Service7/method"));
+
+        assertNotNull(mr);
+        assertSame(target, mr.getRoute());
+        assertEquals(1, matched.size());
+    }
+}
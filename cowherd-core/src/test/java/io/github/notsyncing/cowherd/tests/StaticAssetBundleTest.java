@@ -0,0 +1,92 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.files.StaticAssetBundle;
+import io.github.notsyncing.cowherd.models.StaticFileInfo;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class StaticAssetBundleTest
+{
+    private Path tempDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("cowherd-bundle-test");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    private String createContent(int length)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        while (builder.length() < length) {
+            builder.append("body { margin: 0; }\n");
+        }
+
+        return builder.toString();
+    }
+
+    @Test
+    public void testLoad() throws IOException
+    {
+        String css = createContent(4096);
+
+        Files.createDirectories(tempDir.resolve("css"));
+        Files.write(tempDir.resolve("index.html"), "<html></html>".getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("css/app.css"), css.getBytes(StandardCharsets.UTF_8));
+
+        StaticAssetBundle bundle = StaticAssetBundle.load(tempDir, true);
+        assertEquals(3, bundle.size());
+
+        StaticFileInfo index = bundle.get(tempDir.resolve("index.html"));
+        assertNotNull(index);
+        assertEquals("<html></html>", index.getContent().toString());
+        assertEquals("text/html", index.getContentType());
+
+        StaticFileInfo app = bundle.get(tempDir.resolve("css/../css/app.css"));
+        assertNotNull(app);
+        assertEquals(css, app.getContent().toString());
+        assertEquals("text/css", app.getContentType());
+
+        StaticFileInfo gz = bundle.get(tempDir.resolve("css/app.css.gz"));
+        assertNotNull(gz);
+        assertNotEquals(app.getETag(), gz.getETag());
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gz.getContent().getBytes()))) {
+            assertEquals(css, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+
+        assertNull(bundle.get(tempDir.resolve("index.html.gz")));
+        assertNull(bundle.get(tempDir.resolve("missing.html")));
+        assertNull(bundle.get(tempDir.getParent()));
+    }
+
+    @Test
+    public void testLoadWithoutCompression() throws IOException
+    {
+        Files.write(tempDir.resolve("app.js"), createContent(4096).getBytes(StandardCharsets.UTF_8));
+
+        StaticAssetBundle bundle = StaticAssetBundle.load(tempDir, false);
+        assertEquals(1, bundle.size());
+        assertNull(bundle.get(tempDir.resolve("app.js.gz")));
+    }
+}
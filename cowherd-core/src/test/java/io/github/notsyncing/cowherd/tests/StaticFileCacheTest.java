@@ -0,0 +1,193 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
+import io.github.notsyncing.cowherd.files.StaticFileCache;
+import io.github.notsyncing.cowherd.models.StaticFileInfo;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class StaticFileCacheTest
+{
+    private Path tempDir;
+    private StaticFileCache cache;
+    private long oldCacheSize;
+    private long oldMaxFileSize;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("cowherd-static-test");
+        cache = new StaticFileCache();
+
+        oldCacheSize = CowherdConfiguration.getStaticFileCacheSize();
+        oldMaxFileSize = CowherdConfiguration.getMaxCachedStaticFileSize();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        cache.clear();
+
+        CowherdConfiguration.setStaticFileCacheSize(oldCacheSize);
+        CowherdConfiguration.setMaxCachedStaticFileSize(oldMaxFileSize);
+
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    private Path writeFile(String name, String content) throws IOException
+    {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGet() throws IOException
+    {
+        Path file = writeFile("a.css", "body {}");
+
+        StaticFileInfo info = cache.get(file);
+        assertNotNull(info);
+        assertEquals(7, info.getSize());
+        assertEquals("text/css", info.getContentType());
+        assertEquals("body {}", info.getContent().toString());
+        assertTrue(info.getETag().startsWith("\""));
+        assertTrue(info.getETag().endsWith("\""));
+        assertNotNull(info.getLastModifiedString());
+
+        assertSame(info, cache.get(file));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testGetMissingFile() throws IOException
+    {
+        assertNull(cache.get(tempDir.resolve("missing.txt")));
+        assertNull(cache.get(tempDir));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLargeFileContentNotCached() throws IOException
+    {
+        CowherdConfiguration.setMaxCachedStaticFileSize(4);
+
+        StaticFileInfo info = cache.get(writeFile("a.txt", "Hello"));
+        assertNotNull(info);
+        assertNull(info.getContent());
+        assertEquals(5, info.getSize());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException
+    {
+        CowherdConfiguration.setStaticFileCacheSize(3 * 512 + 10);
+
+        Path a = writeFile("a.txt", "aaaa");
+        Path b = writeFile("b.txt", "bbbb");
+        Path c = writeFile("c.txt", "cccc");
+
+        StaticFileInfo infoA = cache.get(a);
+        cache.get(b);
+        assertSame(infoA, cache.get(a));
+
+        cache.get(c);
+        assertEquals(2, cache.size());
+        assertSame(infoA, cache.get(a));
+    }
+
+    @Test
+    public void testInvalidateOnModify() throws IOException, InterruptedException
+    {
+        Path file = writeFile("a.txt", "Hello");
+        StaticFileInfo info = cache.get(file);
+        assertEquals("Hello", info.getContent().toString());
+
+        writeFile("a.txt", "Hello, world!");
+
+        for (int i = 0; (i < 100) && (cache.size() > 0); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals("Hello, world!", cache.get(file).getContent().toString());
+    }
+
+    @Test
+    public void testInvalidateOnDelete() throws IOException, InterruptedException
+    {
+        Path file = writeFile("a.txt", "Hello");
+        assertNotNull(cache.get(file));
+
+        Files.delete(file);
+
+        for (int i = 0; (i < 100) && (cache.size() > 0); i++) {
+            Thread.sleep(100);
+        }
+
+        assertNull(cache.get(file));
+    }
+
+    @Test
+    public void testMissingFileCached() throws IOException, InterruptedException
+    {
+        Path file = tempDir.resolve("a.txt");
+
+        assertNull(cache.get(file));
+        assertEquals(1, cache.getMissingCount());
+        assertNull(cache.get(file));
+
+        writeFile("a.txt", "Hello");
+
+        for (int i = 0; (i < 100) && (cache.getMissingCount() > 0); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, cache.getMissingCount());
+        assertEquals("Hello", cache.get(file).getContent().toString());
+    }
+
+    @Test
+    public void testMissingFileInMissingDirectoryCached() throws IOException, InterruptedException
+    {
+        Path file = tempDir.resolve("wp-admin/includes/setup.php");
+
+        assertNull(cache.get(file));
+        assertEquals(1, cache.getMissingCount());
+
+        Files.createDirectories(file.getParent());
+
+        for (int i = 0; (i < 100) && (cache.getMissingCount() > 0); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, cache.getMissingCount());
+
+        Files.write(file, "<?php".getBytes(StandardCharsets.UTF_8));
+        assertEquals("<?php", cache.get(file).getContent().toString());
+    }
+
+    @Test
+    public void testMissingFileCountBounded() throws IOException
+    {
+        int oldCount = CowherdConfiguration.getMaxMissingStaticFileCount();
+        CowherdConfiguration.setMaxMissingStaticFileCount(2);
+
+        try {
+            assertNull(cache.get(tempDir.resolve("a.txt")));
+            assertNull(cache.get(tempDir.resolve("b.txt")));
+            assertNull(cache.get(tempDir.resolve("c.txt")));
+
+            assertEquals(2, cache.getMissingCount());
+        } finally {
+            CowherdConfiguration.setMaxMissingStaticFileCount(oldCount);
+        }
+    }
+}
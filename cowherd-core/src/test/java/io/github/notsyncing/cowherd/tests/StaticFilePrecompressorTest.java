@@ -0,0 +1,69 @@
+package io.github.notsyncing.cowherd.tests;
+
+import io.github.notsyncing.cowherd.files.StaticFilePrecompressor;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class StaticFilePrecompressorTest
+{
+    private Path tempDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("cowherd-precompress-test");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    private String createContent(int length)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        while (builder.length() < length) {
+            builder.append("function test() { return 1; }\n");
+        }
+
+        return builder.toString();
+    }
+
+    @Test
+    public void testPrecompress() throws IOException
+    {
+        String content = createContent(4096);
+
+        Files.createDirectories(tempDir.resolve("js"));
+        Files.write(tempDir.resolve("js/app.js"), content.getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("small.js"), "var a;".getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("image.png"), createContent(4096).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(1, StaticFilePrecompressor.precompress(new Path[] { tempDir }));
+
+        Path gzFile = tempDir.resolve("js/app.js.gz");
+        assertTrue(Files.isRegularFile(gzFile));
+        assertFalse(Files.exists(tempDir.resolve("small.js.gz")));
+        assertFalse(Files.exists(tempDir.resolve("image.png.gz")));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzFile))) {
+            assertEquals(content, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+
+        assertEquals(0, StaticFilePrecompressor.precompress(new Path[] { tempDir }));
+    }
+}
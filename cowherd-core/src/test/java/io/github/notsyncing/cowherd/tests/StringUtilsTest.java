@@ -1,12 +1,16 @@
 package io.github.notsyncing.cowherd.tests;
 
 import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.ParameterList;
 import io.github.notsyncing.cowherd.utils.StringUtils;
+import io.github.notsyncing.cowherd.utils.UrlEncodedDecoder;
+import io.vertx.core.buffer.Buffer;
 import org.junit.Test;
 
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class StringUtilsTest {
     @Test
@@ -32,4 +36,49 @@ public class StringUtilsTest {
         List<Pair<String, String>> l = StringUtils.parseQueryString(s);
         assertEquals(0, l.size());
     }
+
+    @Test
+    public void testParseQueryStringWithEscapes() {
+        String s = "name=%E4%BD%A0%E5%A5%BD+world&a%5B0%5D=1%2B1&bad=%zz%&empty=&noValue&a!b=1";
+        List<Pair<String, String>> l = StringUtils.parseQueryString(s);
+        assertEquals(4, l.size());
+        assertEquals("name", l.get(0).getKey());
+        assertEquals("你好 world", l.get(0).getValue());
+        assertEquals("a[0]", l.get(1).getKey());
+        assertEquals("1+1", l.get(1).getValue());
+        assertEquals("%zz%", l.get(2).getValue());
+        assertEquals("empty", l.get(3).getKey());
+        assertEquals("", l.get(3).getValue());
+    }
+
+    @Test
+    public void testParseQueryStringSkipsEncodedFilteredKey() {
+        List<Pair<String, String>> l = StringUtils.parseQueryString("%3Cscript%3E=1&b=2");
+        assertEquals(1, l.size());
+        assertEquals("b", l.get(0).getKey());
+    }
+
+    @Test
+    public void testDecodeFormBuffer() {
+        ParameterList l = new ParameterList();
+        UrlEncodedDecoder.decodeForm(Buffer.buffer("a=1&b=%E4%B8%AD&a=2"), l);
+        assertEquals(3, l.size());
+        assertEquals("中", l.getFirst("b"));
+        assertEquals("2", l.getLast("a"));
+    }
+
+    @Test
+    public void testDecodeQuery() {
+        ParameterList l = new ParameterList();
+        UrlEncodedDecoder.decodeQuery("a=1;b=x+y&flag&c=a=b", l);
+        assertEquals(4, l.size());
+        assertEquals("1", l.getFirst("a"));
+        assertEquals("x y", l.getFirst("b"));
+        assertEquals("", l.getFirst("flag"));
+        assertEquals("a=b", l.getFirst("c"));
+
+        UrlEncodedDecoder.decodeQuery(null, l);
+        assertEquals(4, l.size());
+        assertFalse(l.containsKey(""));
+    }
 }
@@ -18,6 +18,7 @@ import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.ServerWebSocket;
 import org.apache.commons.io.FileUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -25,6 +26,8 @@ import java.io.PrintWriter;
 import java.net.HttpCookie;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Route("/TestService")
@@ -69,6 +72,22 @@ public class TestService extends CowherdService
         return CompletableFuture.completedFuture("Hello, world, post!");
     }
 
+    @Exported
+    @HttpPost
+    public String jsonPostRequest(String name, List<Integer> values)
+    {
+        return name + values.size();
+    }
+
+    @Exported
+    @HttpPost
+    @MaxRequestBodySize(16)
+    public CompletableFuture<String> limitedPostRequest(String __body__)
+    {
+        CowherdTest.testSimplePostBody = __body__;
+        return CompletableFuture.completedFuture("Hello, world, post!");
+    }
+
     @Exported
     @HttpGet
     public CompletableFuture<String> echo(String data)
@@ -76,6 +95,13 @@ public class TestService extends CowherdService
         return CompletableFuture.completedFuture(data);
     }
 
+    @Exported
+    @HttpGet
+    public FileResponse getMissingFile()
+    {
+        return FileResponse.notFound();
+    }
+
     @Exported
     @HttpGet
     public CompletableFuture<FileResponse> getFile() throws IOException
@@ -91,6 +117,20 @@ public class TestService extends CowherdService
         return CompletableFuture.completedFuture(new FileResponse(p));
     }
 
+    @Exported
+    @HttpGet
+    public CompletableFuture<FileResponse> getStreamFile()
+    {
+        byte[] data = new byte[1024 * 1024];
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + (i % 26));
+        }
+
+        return CompletableFuture.completedFuture(new FileResponse(new ByteArrayInputStream(data),
+                "application/octet-stream"));
+    }
+
     @Exported
     @HttpGet
     @Filter(TestFilter.class)
@@ -204,6 +244,30 @@ public class TestService extends CowherdService
         return "done";
     }
 
+    @Exported
+    @HttpGet
+    public String compressibleRequest(HttpServerRequest req)
+    {
+        req.response().putHeader("ETag", "\"compressible\"");
+        return String.join("", Collections.nCopies(256, "Hello, compression!"));
+    }
+
+    @Exported
+    @HttpGet
+    public String compressibleSameETagRequest(HttpServerRequest req)
+    {
+        req.response().putHeader("ETag", "\"compressible\"");
+        return String.join("", Collections.nCopies(256, "Other, compression!"));
+    }
+
+    @Exported
+    @HttpGet
+    @Compression(level = 0)
+    public String uncompressedRequest()
+    {
+        return String.join("", Collections.nCopies(256, "Hello, compression!"));
+    }
+
     @Exported
     @HttpGet
     public ActionResponse redirectRequest()
@@ -187,26 +187,18 @@ object CowherdScriptManager {
     }
 
     private fun updateActions(scriptFile: Path, type: WatchEvent.Kind<*>) {
-        val iter = RouteManager.getRoutes().entries.iterator()
         val scriptFilePathStr = scriptFile.toString()
 
         if ((type == StandardWatchEventKinds.ENTRY_MODIFY) || (type == StandardWatchEventKinds.ENTRY_DELETE)) {
-            while (iter.hasNext()) {
-                val (info, _) = iter.next()
+            RouteManager.removeRouteIf { info, _ ->
                 val path = info.getTag(TAG_SCRIPT_PATH) as String?
 
                 if (path == null) {
-                    continue
-                }
-
-                if (Files.isDirectory(scriptFile)) {
-                    if (Paths.get(path).startsWith(scriptFile)) {
-                        iter.remove()
-                    }
+                    false
+                } else if (Files.isDirectory(scriptFile)) {
+                    Paths.get(path).startsWith(scriptFile)
                 } else {
-                    if (path == scriptFilePathStr) {
-                        iter.remove()
-                    }
+                    path == scriptFilePathStr
                 }
             }
         }
@@ -8,7 +8,9 @@ import io.github.notsyncing.cowherd.annotations.Parameter
 import io.github.notsyncing.cowherd.annotations.httpmethods.HttpAnyMethod
 import io.github.notsyncing.cowherd.models.ActionContext
 import io.github.notsyncing.cowherd.models.Pair
+import io.github.notsyncing.cowherd.models.ParameterList
 import io.github.notsyncing.cowherd.models.UploadFileInfo
+import io.github.notsyncing.cowherd.utils.CookieUtils
 import io.vertx.core.http.HttpMethod
 import io.vertx.core.http.HttpServerRequest
 import io.vertx.core.http.HttpServerResponse
@@ -110,12 +112,9 @@ object ScriptActionInvoker {
                                   uploads: List<UploadFileInfo>): Map<KParameter, Any?> {
         val targetParams = mutableMapOf<KParameter, Any?>()
         val params = function.parameters
-        val o = mutableMapOf<String, String>()
+        val parameterList = ParameterList.from(parameters)
         val uploadMap = uploads.groupBy { it.parameterName }
 
-        parameters.forEach { (k, v) -> o[k] = v }
-        cookies.forEach { o[it.name] = it.value }
-
         if (!params.isEmpty()) {
             for (p in params) {
                 if (p.kind == KParameter.Kind.INSTANCE) {
@@ -135,9 +134,11 @@ object ScriptActionInvoker {
                 } else if (typeName == uploadMap::class.qualifiedName) {
                     v = uploadMap
                 } else if (typeName == HttpCookie::class.qualifiedName) {
-                    v = cookies.firstOrNull { it.name == p.name }
-                } else if (o.containsKey(p.name)) {
-                    v = o[p.name].toType(type)
+                    v = CookieUtils.findCookie(cookies, p.name)
+                } else if (CookieUtils.getCookieValue(cookies, p.name) != null) {
+                    v = CookieUtils.getCookieValue(cookies, p.name).toType(type)
+                } else if (parameterList.containsKey(p.name)) {
+                    v = parameterList.getLast(p.name).toType(type)
                 } else {
                     if (p.isOptional) {
                         continue
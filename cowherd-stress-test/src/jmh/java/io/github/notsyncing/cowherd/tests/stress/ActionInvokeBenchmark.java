@@ -0,0 +1,105 @@
+package io.github.notsyncing.cowherd.tests.stress;
+
+import io.github.notsyncing.cowherd.models.ActionInvoker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比较服务方法的调用方式
+ * 服务器中所有服务方法都经过同一个调用点，因此每次调用轮流调用多个不同服务类的方法，使调用点成为多态调用点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ActionInvokeBenchmark
+{
+    private static final int TARGET_COUNT = 4;
+
+    public static class TargetA
+    {
+        public String echo(String s, int i)
+        {
+            return s;
+        }
+    }
+
+    public static class TargetB
+    {
+        public String echo(String s, int i)
+        {
+            return i > 0 ? s : null;
+        }
+    }
+
+    public static class TargetC
+    {
+        public String echo(String s, int i)
+        {
+            return i < 0 ? s : null;
+        }
+    }
+
+    public static class TargetD
+    {
+        public String echo(String s, int i)
+        {
+            return i == 0 ? null : s;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState
+    {
+        private Object[] services = new Object[] { new TargetA(), new TargetB(), new TargetC(), new TargetD() };
+        private Method[] methods = new Method[TARGET_COUNT];
+        private ActionInvoker[] invokers = new ActionInvoker[TARGET_COUNT];
+        private Object[] params = new Object[] { "value", 1 };
+
+        @Setup(Level.Trial)
+        public void setUp() throws NoSuchMethodException
+        {
+            for (int i = 0; i < TARGET_COUNT; i++) {
+                methods[i] = services[i].getClass().getMethod("echo", String.class, int.class);
+                invokers[i] = new ActionInvoker(methods[i]);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opts = new OptionsBuilder().include(".*" + ActionInvokeBenchmark.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGET_COUNT)
+    public void reflectionInvoke(BenchmarkState state, Blackhole bh) throws InvocationTargetException,
+            IllegalAccessException
+    {
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            bh.consume(state.methods[i].invoke(state.services[i], state.params));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TARGET_COUNT)
+    public void actionInvoker(BenchmarkState state, Blackhole bh) throws InvocationTargetException,
+            IllegalAccessException
+    {
+        for (int i = 0; i < TARGET_COUNT; i++) {
+            bh.consume(state.invokers[i].invoke(state.services[i], state.params));
+        }
+    }
+}
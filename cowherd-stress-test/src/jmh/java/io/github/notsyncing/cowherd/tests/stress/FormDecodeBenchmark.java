@@ -0,0 +1,108 @@
+package io.github.notsyncing.cowherd.tests.stress;
+
+import io.github.notsyncing.cowherd.models.Pair;
+import io.github.notsyncing.cowherd.models.ParameterList;
+import io.github.notsyncing.cowherd.utils.UrlEncodedDecoder;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormDecodeBenchmark
+{
+    private static final int FIELD_COUNT = 20;
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState
+    {
+        @Param({ "plain", "escaped" })
+        private String values;
+
+        private String form;
+        private Buffer formBuffer;
+
+        @Setup(Level.Trial)
+        public void setUp() throws UnsupportedEncodingException
+        {
+            StringBuilder b = new StringBuilder();
+
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                if (i > 0) {
+                    b.append('&');
+                }
+
+                String value = values.equals("plain") ? "value" + i : "值 " + i + " & more";
+
+                b.append("field").append(i).append('=').append(URLEncoder.encode(value, "utf-8"));
+            }
+
+            form = b.toString();
+            formBuffer = Buffer.buffer(form);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opts = new OptionsBuilder().include(".*" + FormDecodeBenchmark.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public List<Pair<String, String>> legacyDecode(BenchmarkState state) throws UnsupportedEncodingException
+    {
+        List<Pair<String, String>> l = new ArrayList<>();
+        Pattern skipPattern = Pattern.compile(".*?[<>!].*?");
+
+        for (String p : state.form.split("&")) {
+            int i = p.indexOf("=");
+
+            if (i < 0) {
+                continue;
+            }
+
+            String key = URLDecoder.decode(p.substring(0, i), "utf-8");
+            String value = URLDecoder.decode(p.substring(i + 1), "utf-8");
+
+            if (skipPattern.matcher(key).find()) {
+                continue;
+            }
+
+            l.add(new Pair<>(key, value));
+        }
+
+        return l;
+    }
+
+    @Benchmark
+    public ParameterList decodeString(BenchmarkState state)
+    {
+        ParameterList l = new ParameterList();
+        UrlEncodedDecoder.decodeForm(state.form, l);
+        return l;
+    }
+
+    @Benchmark
+    public ParameterList decodeBuffer(BenchmarkState state)
+    {
+        ParameterList l = new ParameterList();
+        UrlEncodedDecoder.decodeForm(state.formBuffer, l);
+        return l;
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.notsyncing.cowherd.tests.stress;
+
+import com.alibaba.fastjson.JSON;
+import io.github.notsyncing.cowherd.utils.ResponseUtils;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseWriteBenchmark
+{
+    public static class Item
+    {
+        private int id;
+        private String name;
+        private String description;
+
+        public Item(int id)
+        {
+            this.id = id;
+            this.name = "item-" + id;
+            this.description = "Item number " + id + " of the response benchmark";
+        }
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getDescription()
+        {
+            return description;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState
+    {
+        @Param({ "1024", "102400", "5242880" })
+        private int size;
+
+        private List<Item> items;
+        private String text;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            items = new ArrayList<>();
+
+            while (JSON.toJSONString(items).length() < size) {
+                items.add(new Item(items.size()));
+            }
+
+            StringBuilder b = new StringBuilder(size);
+
+            while (b.length() < size) {
+                b.append("Hello, world! 你好，世界！");
+            }
+
+            text = b.substring(0, size);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opts = new OptionsBuilder().include(".*" + ResponseWriteBenchmark.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opts).run();
+    }
+
+    @Benchmark
+    public Buffer legacyJson(BenchmarkState state) throws UnsupportedEncodingException
+    {
+        return Buffer.buffer(JSON.toJSONString(state.items).getBytes("utf-8"));
+    }
+
+    @Benchmark
+    public Buffer directJson(BenchmarkState state)
+    {
+        return ResponseUtils.objectToJsonBuffer(state.items);
+    }
+
+    @Benchmark
+    public Buffer legacyString(BenchmarkState state) throws UnsupportedEncodingException
+    {
+        return Buffer.buffer(state.text.getBytes("utf-8"));
+    }
+
+    @Benchmark
+    public Buffer directString(BenchmarkState state)
+    {
+        return ResponseUtils.stringToBuffer(state.text);
+    }
+}
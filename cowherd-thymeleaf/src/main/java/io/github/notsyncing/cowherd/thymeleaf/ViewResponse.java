@@ -5,6 +5,7 @@ import io.github.notsyncing.cowherd.commons.CowherdConfiguration;
 import io.github.notsyncing.cowherd.exceptions.InvalidViewResponseException;
 import io.github.notsyncing.cowherd.models.ActionContext;
 import io.github.notsyncing.cowherd.responses.ActionResponse;
+import io.github.notsyncing.cowherd.routing.RouteManager;
 import io.vertx.core.http.HttpServerResponse;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
@@ -86,6 +87,7 @@ public class ViewResponse<T> implements ActionResponse
         Context c = new Context();
         c.setVariable("model", model);
         c.setVariable("request", context.getRequest());
+        c.setVariable("assets", RouteManager.getAssetManifest());
 
         addModels.forEach(c::setVariable);
 